@@ -0,0 +1,113 @@
+package com.plc.recipe.codec;
+
+import com.plc.recipe.service.EthernetIPService.BatchProgress;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static com.plc.recipe.codec.AssemblyLayout.*;
+
+/**
+ * Assembly 150 encode and Assembly 100 decode over the buffer types used in
+ * production: heap and direct NIO buffers (implicit I/O snapshots, caller
+ * images) and pooled Netty buffers (explicit messaging). Should not allocate.
+ * decodeProgressHeap is the baseline: the same image decoded into a
+ * BatchProgress, one object and four boxed fields per read, as one-off REST
+ * reads still do (the poller decodes into cache slots, see ProgressPollBenchmark);
+ * compare the two with -prof gc.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AssemblyCodecBenchmark {
+
+    private ByteBuffer heapImage;
+    private ByteBuffer directImage;
+    private ByteBuf nettyImage;
+    private ByteBuf commandBuffer;
+
+    private final BatchStatusFlyweight status = new BatchStatusFlyweight();
+    private final BatchCommandFlyweight command = new BatchCommandFlyweight();
+
+    @Setup
+    public void setUp() {
+        heapImage = ByteBuffer.allocate(STATUS_SIZE);
+        directImage = allocateStatusImage();
+        nettyImage = PooledByteBufAllocator.DEFAULT.directBuffer(STATUS_SIZE);
+        nettyImage.writeZero(STATUS_SIZE);
+        commandBuffer = PooledByteBufAllocator.DEFAULT.directBuffer(COMMAND_SIZE);
+
+        for (BatchStatusFlyweight image : new BatchStatusFlyweight[]{
+                new BatchStatusFlyweight().wrap(heapImage, 0),
+                new BatchStatusFlyweight().wrap(directImage, 0),
+                new BatchStatusFlyweight().wrap(nettyImage, 0)}) {
+            image.recipeId(7)
+                    .batchId(123456)
+                    .status(STATUS_RUNNING)
+                    .operationMode(OPERATION_MODE_AUTO)
+                    .actualQuantity(420.5f)
+                    .progressPercentage(42.05f)
+                    .elapsedSeconds(25);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        nettyImage.release();
+        commandBuffer.release();
+    }
+
+    @Benchmark
+    public ByteBuf encodeCommand() {
+        commandBuffer.clear();
+        command.append(commandBuffer)
+                .recipeId(7)
+                .batchId(123456)
+                .command(COMMAND_START)
+                .operationMode(OPERATION_MODE_AUTO)
+                .targetQuantity(1000.0f);
+        return commandBuffer;
+    }
+
+    @Benchmark
+    public void decodeStatusHeap(Blackhole blackhole) {
+        decode(status.wrap(heapImage, 0), blackhole);
+    }
+
+    @Benchmark
+    public void decodeStatusDirect(Blackhole blackhole) {
+        decode(status.wrap(directImage, 0), blackhole);
+    }
+
+    @Benchmark
+    public void decodeStatusNetty(Blackhole blackhole) {
+        decode(status.wrap(nettyImage, 0), blackhole);
+    }
+
+    @Benchmark
+    public BatchProgress decodeProgressHeap() {
+        BatchStatusFlyweight image = status.wrap(heapImage, 0);
+        return new BatchProgress(
+                (double) image.actualQuantity(),
+                statusName(image.status()),
+                (double) image.progressPercentage(),
+                image.elapsedSeconds());
+    }
+
+    private static void decode(BatchStatusFlyweight image, Blackhole blackhole) {
+        blackhole.consume(image.recipeId());
+        blackhole.consume(image.batchId());
+        blackhole.consume(statusName(image.status()));
+        blackhole.consume(image.operationMode());
+        blackhole.consume(image.actualQuantity());
+        blackhole.consume(image.progressPercentage());
+        blackhole.consume(image.elapsedSeconds());
+    }
+}
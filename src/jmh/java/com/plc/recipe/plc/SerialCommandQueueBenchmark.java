@@ -0,0 +1,42 @@
+package com.plc.recipe.plc;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bookkeeping cost of command submission from 4 threads: one key per thread
+ * (batches on different units) against a single key shared by all threads (one
+ * unit). Commands complete at once, so this measures contention on the tail map
+ * only; ordering and parallelism are covered by SerialCommandQueueTest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class SerialCommandQueueBenchmark {
+
+    private static final AtomicInteger NEXT_KEY = new AtomicInteger();
+
+    private final SerialCommandQueue<Integer> queue = new SerialCommandQueue<>();
+
+    @State(Scope.Thread)
+    public static class ThreadKey {
+        final Integer key = NEXT_KEY.incrementAndGet();
+    }
+
+    @Benchmark
+    public Boolean distinctKeys(ThreadKey thread) {
+        return queue.submit(thread.key, () -> CompletableFuture.completedFuture(true)).join();
+    }
+
+    @Benchmark
+    public Boolean sharedKey() {
+        return queue.submit(0, () -> CompletableFuture.completedFuture(true)).join();
+    }
+}
@@ -0,0 +1,108 @@
+package com.plc.recipe.service;
+
+import com.plc.recipe.dto.BatchRunDTO;
+import com.plc.recipe.dto.RecipeDTO;
+import com.plc.recipe.entity.BatchRun;
+import com.plc.recipe.entity.Ingredient;
+import com.plc.recipe.entity.Recipe;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping of the list and detail endpoints.
+ * Recipes are mapped with their ingredients, so cost grows with the ingredient count.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class RecipeState {
+
+        @Param({"10", "100", "500"})
+        int ingredientCount;
+
+        RecipeService recipeService;
+        Recipe recipe;
+
+        @Setup
+        public void setUp() {
+            recipeService = new RecipeService(null, null);
+            recipe = recipe(1L, ingredientCount);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class BatchRunState {
+
+        BatchRunService batchRunService;
+        BatchRun batchRun;
+
+        @Setup
+        public void setUp() {
+            batchRunService = new BatchRunService(null, null, null);
+            batchRun = batchRun(1L, recipe(1L, 10));
+        }
+    }
+
+    @Benchmark
+    public RecipeDTO recipeToDto(RecipeState state) {
+        return state.recipeService.mapToDTO(state.recipe);
+    }
+
+    @Benchmark
+    public BatchRunDTO batchRunToDto(BatchRunState state) {
+        return state.batchRunService.mapToDTO(state.batchRun);
+    }
+
+    static Recipe recipe(Long id, int ingredientCount) {
+        LocalDateTime now = LocalDateTime.now();
+        Recipe recipe = Recipe.builder()
+                .id(id)
+                .name("Recipe " + id)
+                .description("Benchmark recipe with " + ingredientCount + " ingredients")
+                .batchSize(1000.0)
+                .unit("kg")
+                .createdAt(now)
+                .updatedAt(now)
+                .version(1L)
+                .build();
+
+        List<Ingredient> ingredients = new ArrayList<>(ingredientCount);
+        for (int i = 0; i < ingredientCount; i++) {
+            ingredients.add(Ingredient.builder()
+                    .id((long) i)
+                    .name("Ingredient " + i)
+                    .quantity(1.5 * i)
+                    .unit("kg")
+                    .notes("Add slowly while mixing")
+                    .sequenceOrder(i)
+                    .recipe(recipe)
+                    .build());
+        }
+        recipe.setIngredients(ingredients);
+        return recipe;
+    }
+
+    static BatchRun batchRun(Long id, Recipe recipe) {
+        return BatchRun.builder()
+                .id(id)
+                .recipe(recipe)
+                .batchNumber("BATCH-" + id)
+                .targetQuantity(1000.0)
+                .actualQuantity(420.0)
+                .status(BatchRun.BatchStatus.RUNNING)
+                .startedAt(LocalDateTime.now())
+                .notes("Benchmark batch")
+                .operatorName("operator")
+                .line("line-1")
+                .build();
+    }
+}
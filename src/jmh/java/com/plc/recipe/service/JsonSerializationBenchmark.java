@@ -0,0 +1,57 @@
+package com.plc.recipe.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.plc.recipe.dto.BatchRunDTO;
+import com.plc.recipe.dto.RecipeDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of list responses, configured like Spring Boot's
+ * ObjectMapper (java.time module, ISO dates). Recipes carry 20 ingredients each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int size;
+
+    private ObjectMapper objectMapper;
+    private List<BatchRunDTO> batchRuns;
+    private List<RecipeDTO> recipes;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        RecipeService recipeService = new RecipeService(null, null);
+        BatchRunService batchRunService = new BatchRunService(null, null, null);
+        batchRuns = new ArrayList<>(size);
+        recipes = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            batchRuns.add(batchRunService.mapToDTO(DtoMappingBenchmark.batchRun(id, DtoMappingBenchmark.recipe(id, 0))));
+            recipes.add(recipeService.mapToDTO(DtoMappingBenchmark.recipe(id, 20)));
+        }
+    }
+
+    @Benchmark
+    public byte[] batchRunsToJson() throws Exception {
+        return objectMapper.writeValueAsBytes(batchRuns);
+    }
+
+    @Benchmark
+    public byte[] recipesToJson() throws Exception {
+        return objectMapper.writeValueAsBytes(recipes);
+    }
+}
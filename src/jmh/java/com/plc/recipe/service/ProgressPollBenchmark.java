@@ -0,0 +1,79 @@
+package com.plc.recipe.service;
+
+import com.plc.recipe.codec.BatchStatusFlyweight;
+import com.plc.recipe.plc.StatusSnapshots;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static com.plc.recipe.codec.AssemblyLayout.*;
+
+/**
+ * Per-batch work of one progress poll: the batch's implicit I/O snapshot copied
+ * into the line's reused direct image, decoded into its cache slot and handed to
+ * the write-behind buffer. Should not allocate. Offline polls differ only in the
+ * simulator writing the image (SimulatorBenchmark).
+ * implicitIoToProgress is the baseline: the former path with a fresh image,
+ * flyweight and BatchProgress per read; compare the two with -prof gc.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProgressPollBenchmark {
+
+    private static final String LINE = "default";
+    private static final String BATCH_NUMBER = "BATCH-1";
+    private static final int BATCH_ID = EthernetIPService.plcBatchId(BATCH_NUMBER);
+    private static final long MAX_AGE_NANOS = TimeUnit.HOURS.toNanos(1);
+
+    private final StatusSnapshots snapshots = new StatusSnapshots();
+    private final ByteBuffer lineImage = ByteBuffer.allocateDirect(STATUS_SIZE);
+    private final BatchStatusFlyweight lineStatus = new BatchStatusFlyweight().wrap(lineImage, 0);
+    private final BatchProgressCache.Slot slot = new BatchProgressCache.Slot(1L, BATCH_NUMBER, null, 1000.0, LINE);
+    // Recording does not touch the database
+    private final BatchProgressWriteBehind writeBehind = new BatchProgressWriteBehind(null);
+
+    @Setup
+    public void setUp() {
+        ByteBuffer received = ByteBuffer.allocate(STATUS_SIZE);
+        new BatchStatusFlyweight().wrap(received, 0)
+                .recipeId(7)
+                .batchId(BATCH_ID)
+                .status(STATUS_RUNNING)
+                .operationMode(OPERATION_MODE_AUTO)
+                .actualQuantity(420.5f)
+                .progressPercentage(42.05f)
+                .elapsedSeconds(25);
+        snapshots.publish(BATCH_ID, received, 0, System.nanoTime());
+
+        // The batch's write-behind entry exists after its first poll
+        writeBehind.record(slot.getId(), 0.0);
+    }
+
+    @Benchmark
+    public BatchProgressCache.Slot implicitIoToSlot() {
+        if (snapshots.copyLatest(BATCH_ID, lineImage, MAX_AGE_NANOS)) {
+            slot.read(lineStatus);
+            writeBehind.record(slot.getId(), slot.currentQuantity());
+        }
+        return slot;
+    }
+
+    @Benchmark
+    public EthernetIPService.BatchProgress implicitIoToProgress() {
+        ByteBuffer image = ByteBuffer.allocate(STATUS_SIZE);
+        if (!snapshots.copyLatest(BATCH_ID, image, MAX_AGE_NANOS)) {
+            return null;
+        }
+        BatchStatusFlyweight status = new BatchStatusFlyweight().wrap(image, 0);
+        return new EthernetIPService.BatchProgress(
+                (double) status.actualQuantity(),
+                statusName(status.status()),
+                (double) status.progressPercentage(),
+                status.elapsedSeconds());
+    }
+}
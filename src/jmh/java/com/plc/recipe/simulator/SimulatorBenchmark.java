@@ -0,0 +1,82 @@
+package com.plc.recipe.simulator;
+
+import com.plc.recipe.codec.BatchStatusFlyweight;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static com.plc.recipe.codec.AssemblyLayout.STATUS_SIZE;
+
+/**
+ * Offline progress reads: one batch computed from the clock, and a lookup
+ * among many running batches as done by the poller in offline mode.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulatorBenchmark {
+
+    private static final String LINE = "default";
+
+    @State(Scope.Thread)
+    public static class BatchState {
+
+        final ByteBuffer image = ByteBuffer.allocate(STATUS_SIZE);
+        final BatchStatusFlyweight status = new BatchStatusFlyweight().wrap(image, 0);
+        SimulatedBatch batch;
+
+        @Setup
+        public void setUp() {
+            batch = new SimulatedBatch(7, 1000.0f, TimeUnit.HOURS.toNanos(1), SimulationCurve.S_CURVE, System.nanoTime());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class SimulatorState {
+
+        @Param({"1000", "10000"})
+        int batchCount;
+
+        final ByteBuffer image = ByteBuffer.allocate(STATUS_SIZE);
+        final BatchStatusFlyweight status = new BatchStatusFlyweight().wrap(image, 0);
+        BatchSimulator simulator;
+        String[] batchNumbers;
+        int next;
+
+        @Setup
+        public void setUp() {
+            SimulatorProperties properties = new SimulatorProperties();
+            properties.setSeed(42L);
+            properties.setDefaultDurationMs(TimeUnit.HOURS.toMillis(1));
+            properties.setDefaultCurve(SimulationCurve.S_CURVE);
+            simulator = new BatchSimulator(properties);
+            simulator.init();
+
+            batchNumbers = new String[batchCount];
+            for (int i = 0; i < batchCount; i++) {
+                batchNumbers[i] = "BATCH-" + i;
+                simulator.start(LINE, batchNumbers[i], 1000.0);
+            }
+        }
+
+        @TearDown
+        public void tearDown() {
+            simulator.shutdown();
+        }
+    }
+
+    @Benchmark
+    public boolean batchProgress(BatchState state) {
+        return state.batch.writeTo(state.status, 123456, System.nanoTime());
+    }
+
+    @Benchmark
+    public boolean simulatorRead(SimulatorState state) {
+        String batchNumber = state.batchNumbers[state.next];
+        state.next = state.next + 1 == state.batchNumbers.length ? 0 : state.next + 1;
+        return state.simulator.writeStatus(LINE, batchNumber, state.status, 123456);
+    }
+}
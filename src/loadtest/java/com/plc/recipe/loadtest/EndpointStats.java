@@ -0,0 +1,91 @@
+package com.plc.recipe.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and error count of one endpoint
+ * Latencies are recorded in nanoseconds from any number of virtual users;
+ * {@link #reset()} drops the warmup, {@link #finish()} takes the measured interval.
+ */
+class EndpointStats {
+
+    private static final double NANOS_PER_MS = 1_000_000.0;
+
+    final String name;
+
+    // Auto-resizing, 3 significant digits
+    private final Recorder recorder = new Recorder(3);
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    private Histogram histogram;
+    private long requestCount;
+    private long errorCount;
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Record a request of a closed-loop user (the next request waits for this one)
+     */
+    void record(long latencyNanos, boolean success) {
+        recorder.recordValue(latencyNanos);
+        count(success);
+    }
+
+    /**
+     * Record a request of a fixed-rate user; latencies above the interval also
+     * record the requests that should have been sent meanwhile (coordinated omission)
+     */
+    void record(long latencyNanos, long expectedIntervalNanos, boolean success) {
+        recorder.recordValueWithExpectedInterval(latencyNanos, expectedIntervalNanos);
+        count(success);
+    }
+
+    private void count(boolean success) {
+        requests.increment();
+        if (!success) {
+            errors.increment();
+        }
+    }
+
+    void reset() {
+        recorder.reset();
+        requests.reset();
+        errors.reset();
+    }
+
+    void finish() {
+        histogram = recorder.getIntervalHistogram();
+        requestCount = requests.sum();
+        errorCount = errors.sum();
+    }
+
+    long requests() {
+        return requestCount;
+    }
+
+    long errors() {
+        return errorCount;
+    }
+
+    double percentileMs(double percentile) {
+        return histogram.getValueAtPercentile(percentile) / NANOS_PER_MS;
+    }
+
+    double maxMs() {
+        return histogram.getMaxValue() / NANOS_PER_MS;
+    }
+
+    /**
+     * Write the percentile distribution in milliseconds (.hgrm, plottable with HdrHistogram's plotter)
+     */
+    void writeDistribution(PrintStream out) {
+        histogram.outputPercentileDistribution(out, NANOS_PER_MS);
+    }
+}
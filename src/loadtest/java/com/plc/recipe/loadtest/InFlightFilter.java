@@ -0,0 +1,41 @@
+package com.plc.recipe.loadtest;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Requests being handled by a server thread at once, registered in the
+ * in-process application. With platform threads the peak cannot exceed
+ * server.tomcat.threads.max; with virtual threads it can.
+ * An async request (CompletableFuture result) counts until its handler returns.
+ */
+class InFlightFilter implements Filter {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    void reset() {
+        peak.set(inFlight.get());
+    }
+
+    int peak() {
+        return peak.get();
+    }
+}
@@ -0,0 +1,350 @@
+package com.plc.recipe.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.plc.recipe.RecipeManagementApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * End-to-end HTTP load test
+ *
+ * Boots the application in offline-simulator mode (or targets base-url) and runs
+ * three scripted workloads concurrently, one thread per virtual user:
+ * - monitors: poll the progress of a random running batch at a fixed rate, and
+ *   every tenth poll the progress of all running batches
+ * - operators: create a batch, start it, follow its progress, stop it
+ * - editors: create, read, update and list recipes with think time
+ *
+ * After the warmup, latencies are recorded per endpoint as HDR histograms.
+ * The report gives count, errors, throughput and p50/p99/p99.9/max per endpoint,
+ * the distributions are written to report-dir/&lt;endpoint&gt;.hgrm, and the process
+ * exits with status 1 when an SLO is breached. In-process, the peak of requests
+ * handled at once is reported too, and checked against min-peak-in-flight.
+ *
+ * Usage: mvn -Pload-test verify -DskipTests [-Dloadtest.args="monitors=500 duration-s=300"]
+ */
+@Slf4j
+public class LoadTest {
+
+    static final String RECIPE_CREATE = "recipe.create";
+    static final String RECIPE_GET = "recipe.get";
+    static final String RECIPE_UPDATE = "recipe.update";
+    static final String RECIPE_LIST = "recipe.list";
+    static final String BATCH_CREATE = "batch.create";
+    static final String BATCH_START = "batch.start";
+    static final String BATCH_STOP = "batch.stop";
+    static final String BATCH_PROGRESS = "batch.progress";
+    static final String BATCH_PROGRESS_ALL = "batch.progress.all";
+
+    private static final int INGREDIENTS_PER_RECIPE = 5;
+    private static final int ALL_PROGRESS_EVERY = 10;
+
+    private final LoadTestConfig config;
+    private final LoadTestClient client;
+    // Null against base-url
+    private final InFlightFilter inFlight;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    private final List<Long> recipeIds = new ArrayList<>();
+    // Batch currently run by each operator, 0 if none; read by the monitors
+    private final AtomicLongArray runningBatches;
+
+    private volatile boolean running = true;
+
+    LoadTest(LoadTestConfig config, String baseUrl, InFlightFilter inFlight) {
+        this.config = config;
+        this.inFlight = inFlight;
+        this.client = new LoadTestClient(baseUrl, Duration.ofMillis(config.requestTimeoutMs));
+        this.runningBatches = new AtomicLongArray(Math.max(config.operators, 1));
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.load(args);
+
+        ConfigurableApplicationContext application = null;
+        InFlightFilter inFlight = null;
+        String baseUrl = config.baseUrl;
+        if (baseUrl.isEmpty()) {
+            inFlight = new InFlightFilter();
+            application = startApplication(config, inFlight);
+            baseUrl = "http://localhost:" + application.getEnvironment().getProperty("local.server.port");
+        }
+
+        boolean passed;
+        try {
+            passed = new LoadTest(config, baseUrl, inFlight).run();
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static ConfigurableApplicationContext startApplication(LoadTestConfig config, InFlightFilter inFlight) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("server.port", 0);
+        properties.put("plc.offline-mode", true);
+        properties.put("plc.simulator.seed", config.seed);
+        properties.put("plc.simulator.default-duration-ms", config.batchDurationMs);
+        properties.put("spring.main.banner-mode", "off");
+        // Per-request INFO logging would dominate the measurements
+        properties.put("logging.level.com.plc.recipe", "WARN");
+        properties.put("logging.level.org.springframework.data", "WARN");
+        if (!config.springProfiles.isEmpty()) {
+            properties.put("spring.profiles.active", config.springProfiles);
+        }
+        if (config.tomcatMaxThreads > 0) {
+            properties.put("server.tomcat.threads.max", config.tomcatMaxThreads);
+        }
+        log.info("Starting application in offline-simulator mode (profiles: {}, Tomcat max threads: {})",
+                config.springProfiles.isEmpty() ? "default" : config.springProfiles,
+                config.tomcatMaxThreads > 0 ? config.tomcatMaxThreads : "default");
+        return new SpringApplicationBuilder(RecipeManagementApplication.class)
+                .properties(properties)
+                // Spring Boot registers Filter beans with the embedded Tomcat
+                .initializers(context -> context.getBeanFactory().registerSingleton("loadTestInFlightFilter", inFlight))
+                .run();
+    }
+
+    /**
+     * @return true if all SLOs hold
+     */
+    boolean run() throws InterruptedException, IOException {
+        for (int i = 0; i < config.recipes; i++) {
+            JsonNode recipe = client.post(RECIPE_CREATE, "/api/recipes", recipeBody("Load test recipe " + runId + "-" + i));
+            if (recipe == null) {
+                throw new IllegalStateException("Could not create load test recipes");
+            }
+            recipeIds.add(recipe.get("id").asLong());
+        }
+
+        log.info("Load test {}: {} monitors, {} operators, {} editors, {}s warmup, {}s measured",
+                runId, config.monitors, config.operators, config.editors, config.warmupSeconds, config.durationSeconds);
+
+        ExecutorService users = Executors.newFixedThreadPool(config.monitors + config.operators + config.editors);
+        for (int i = 0; i < config.operators; i++) {
+            int slot = i;
+            users.execute(() -> operator(slot));
+        }
+        for (int i = 0; i < config.monitors; i++) {
+            users.execute(this::monitor);
+        }
+        for (int i = 0; i < config.editors; i++) {
+            users.execute(this::editor);
+        }
+
+        TimeUnit.SECONDS.sleep(config.warmupSeconds);
+        client.stats().forEach(EndpointStats::reset);
+        if (inFlight != null) {
+            inFlight.reset();
+        }
+        long measureStart = System.nanoTime();
+        TimeUnit.SECONDS.sleep(config.durationSeconds);
+        client.stats().forEach(EndpointStats::finish);
+        double seconds = (System.nanoTime() - measureStart) / 1e9;
+
+        running = false;
+        users.shutdown();
+        if (!users.awaitTermination(config.requestTimeoutMs + config.pollIntervalMs + 1000, TimeUnit.MILLISECONDS)) {
+            users.shutdownNow();
+        }
+
+        report(seconds);
+        writeDistributions();
+        return checkSlos(seconds);
+    }
+
+    private void operator(int slot) {
+        while (running) {
+            Long recipeId = recipeIds.get(ThreadLocalRandom.current().nextInt(recipeIds.size()));
+            Map<String, Object> batch = new LinkedHashMap<>();
+            batch.put("recipeId", recipeId);
+            batch.put("batchNumber", "LT-" + runId + "-" + sequence.incrementAndGet());
+            batch.put("targetQuantity", 1000.0);
+            batch.put("operatorName", "load-test-" + slot);
+
+            JsonNode created = client.post(BATCH_CREATE, "/api/batch-runs", batch);
+            if (created == null) {
+                pause(config.pollIntervalMs);
+                continue;
+            }
+            long id = created.get("id").asLong();
+            if (client.post(BATCH_START, "/api/batch-runs/" + id + "/start", null) == null) {
+                continue;
+            }
+
+            runningBatches.set(slot, id);
+            for (int i = 0; i < config.pollsPerBatch && running; i++) {
+                pause(config.pollIntervalMs);
+                client.get(BATCH_PROGRESS, "/api/batch-runs/" + id + "/progress");
+            }
+            runningBatches.set(slot, 0);
+
+            client.post(BATCH_STOP, "/api/batch-runs/" + id + "/stop", null);
+        }
+    }
+
+    /**
+     * Fixed-rate poller like a dashboard; a slow response delays the next poll,
+     * which is accounted for by recording with the expected interval
+     */
+    private void monitor() {
+        long interval = TimeUnit.MILLISECONDS.toNanos(config.pollIntervalMs);
+        // Spread the monitors over the interval
+        long next = System.nanoTime() + ThreadLocalRandom.current().nextLong(interval);
+        for (long polls = 0; running; polls++) {
+            long delay = next - System.nanoTime();
+            if (delay > 0) {
+                pause(TimeUnit.NANOSECONDS.toMillis(delay));
+            }
+            next += interval;
+
+            if (polls % ALL_PROGRESS_EVERY == 0) {
+                client.get(BATCH_PROGRESS_ALL, "/api/batch-runs/progress", interval);
+            } else {
+                long id = runningBatches.get(ThreadLocalRandom.current().nextInt(runningBatches.length()));
+                if (id != 0) {
+                    client.get(BATCH_PROGRESS, "/api/batch-runs/" + id + "/progress", interval);
+                }
+            }
+        }
+    }
+
+    private void editor() {
+        while (running) {
+            String name = "Load test recipe " + runId + "-" + sequence.incrementAndGet();
+            JsonNode created = client.post(RECIPE_CREATE, "/api/recipes", recipeBody(name));
+            pause(config.editorThinkMs);
+            if (created != null) {
+                long id = created.get("id").asLong();
+                client.get(RECIPE_GET, "/api/recipes/" + id);
+                pause(config.editorThinkMs);
+                Map<String, Object> update = recipeBody(name);
+                update.put("description", "Updated by the load test");
+                client.put(RECIPE_UPDATE, "/api/recipes/" + id, update);
+                pause(config.editorThinkMs);
+            }
+            client.get(RECIPE_LIST, "/api/recipes?limit=50");
+            pause(config.editorThinkMs);
+        }
+    }
+
+    private static Map<String, Object> recipeBody(String name) {
+        List<Map<String, Object>> ingredients = new ArrayList<>(INGREDIENTS_PER_RECIPE);
+        for (int i = 0; i < INGREDIENTS_PER_RECIPE; i++) {
+            Map<String, Object> ingredient = new LinkedHashMap<>();
+            ingredient.put("name", "Ingredient " + i);
+            ingredient.put("quantity", 10.0 + i);
+            ingredient.put("unit", "kg");
+            ingredient.put("sequenceOrder", i + 1);
+            ingredients.add(ingredient);
+        }
+        Map<String, Object> recipe = new LinkedHashMap<>();
+        recipe.put("name", name);
+        recipe.put("description", "Created by the load test");
+        recipe.put("batchSize", 1000.0);
+        recipe.put("unit", "kg");
+        recipe.put("isActive", true);
+        recipe.put("ingredients", ingredients);
+        return recipe;
+    }
+
+    private void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private void report(double seconds) {
+        PrintStream out = System.out;
+        out.println();
+        out.printf("Load test %s: %.1f s measured%n", runId, seconds);
+        out.printf("%-20s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (EndpointStats stats : client.stats()) {
+            if (stats.requests() == 0) {
+                continue;
+            }
+            out.printf("%-20s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                    stats.name, stats.requests(), stats.errors(), stats.requests() / seconds,
+                    stats.percentileMs(50.0), stats.percentileMs(99.0), stats.percentileMs(99.9), stats.maxMs());
+        }
+        if (inFlight != null) {
+            out.printf("Peak requests handled at once: %d (Tomcat max threads: %s)%n", inFlight.peak(),
+                    config.tomcatMaxThreads > 0 ? Integer.toString(config.tomcatMaxThreads) : "default");
+        }
+        out.println();
+    }
+
+    private void writeDistributions() throws IOException {
+        Path dir = Path.of(config.reportDir);
+        Files.createDirectories(dir);
+        for (EndpointStats stats : client.stats()) {
+            if (stats.requests() > 0) {
+                try (PrintStream out = new PrintStream(Files.newOutputStream(dir.resolve(stats.name + ".hgrm")))) {
+                    stats.writeDistribution(out);
+                }
+            }
+        }
+        log.info("Latency distributions written to {}", dir.toAbsolutePath());
+    }
+
+    private boolean checkSlos(double seconds) {
+        List<String> breaches = new ArrayList<>();
+        for (LoadTestConfig.Slo slo : config.slos) {
+            for (EndpointStats stats : client.stats()) {
+                boolean applies = LoadTestConfig.Slo.ALL.equals(slo.endpoint)
+                        ? stats.requests() > 0
+                        : slo.endpoint.equals(stats.name);
+                if (applies) {
+                    String breach = slo.check(stats, seconds);
+                    if (breach != null) {
+                        breaches.add(breach);
+                    }
+                }
+            }
+            if (!LoadTestConfig.Slo.ALL.equals(slo.endpoint)
+                    && client.stats().stream().noneMatch(stats -> stats.name.equals(slo.endpoint))) {
+                breaches.add(slo.endpoint + ": no requests sent");
+            }
+        }
+
+        if (config.minPeakInFlight > 0) {
+            if (inFlight == null) {
+                breaches.add("min-peak-in-flight: only measured in-process, not against base-url");
+            } else if (inFlight.peak() < config.minPeakInFlight) {
+                breaches.add(String.format("peak requests handled at once = %d (limit %d)",
+                        inFlight.peak(), config.minPeakInFlight));
+            }
+        }
+
+        if (breaches.isEmpty()) {
+            log.info("All {} SLOs met", config.slos.size());
+            return true;
+        }
+        breaches.forEach(breach -> log.error("SLO breached: {}", breach));
+        return false;
+    }
+}
@@ -0,0 +1,121 @@
+package com.plc.recipe.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Blocking JSON client of the REST API shared by all virtual users
+ * Every call is timed into the {@link EndpointStats} of its endpoint name;
+ * non-2xx responses and transport errors count as errors and return null.
+ */
+@Slf4j
+class LoadTestClient {
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final Duration requestTimeout;
+
+    // Sorted by endpoint name for the report
+    private final Map<String, EndpointStats> stats = new ConcurrentSkipListMap<>();
+
+    LoadTestClient(String baseUrl, Duration requestTimeout) {
+        this.baseUrl = baseUrl;
+        this.requestTimeout = requestTimeout;
+        // HTTP/1.1 keep-alive like browsers and the UI; no h2c upgrade attempts
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(requestTimeout)
+                .build();
+    }
+
+    JsonNode get(String endpoint, String path) {
+        return send(endpoint, "GET", path, null, 0);
+    }
+
+    /**
+     * GET issued at a fixed rate; see {@link EndpointStats#record(long, long, boolean)}
+     */
+    JsonNode get(String endpoint, String path, long expectedIntervalNanos) {
+        return send(endpoint, "GET", path, null, expectedIntervalNanos);
+    }
+
+    JsonNode post(String endpoint, String path, Object body) {
+        return send(endpoint, "POST", path, body, 0);
+    }
+
+    JsonNode put(String endpoint, String path, Object body) {
+        return send(endpoint, "PUT", path, body, 0);
+    }
+
+    Collection<EndpointStats> stats() {
+        return stats.values();
+    }
+
+    private JsonNode send(String endpoint, String method, String path, Object body, long expectedIntervalNanos) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(requestTimeout)
+                .header("Accept", "application/json");
+        if (body != null) {
+            request.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(toJson(body)));
+        } else {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+
+        HttpResponse<byte[]> response = null;
+        long start = System.nanoTime();
+        try {
+            response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            log.debug("{} {} failed: {}", method, path, e.toString());
+        } catch (InterruptedException e) {
+            // Shutdown: not a sample
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        long latency = System.nanoTime() - start;
+
+        boolean success = response != null && response.statusCode() / 100 == 2;
+        EndpointStats endpointStats = stats.computeIfAbsent(endpoint, EndpointStats::new);
+        if (expectedIntervalNanos > 0) {
+            endpointStats.record(latency, expectedIntervalNanos, success);
+        } else {
+            endpointStats.record(latency, success);
+        }
+
+        if (!success) {
+            if (response != null) {
+                log.debug("{} {} returned {}", method, path, response.statusCode());
+            }
+            return null;
+        }
+        try {
+            return response.body().length > 0 ? objectMapper.readTree(response.body()) : NullNode.getInstance();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid JSON from " + method + " " + path, e);
+        }
+    }
+
+    private byte[] toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
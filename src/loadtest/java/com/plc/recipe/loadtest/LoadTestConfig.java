@@ -0,0 +1,176 @@
+package com.plc.recipe.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Load test settings
+ * Defaults come from loadtest.properties on the classpath, overridden by the
+ * preset loadtest-&lt;preset&gt;.properties if preset is set, then by
+ * -Dloadtest.&lt;key&gt;=value system properties, then by key=value program arguments.
+ *
+ * SLOs are slo.&lt;endpoint&gt;.&lt;metric&gt;=&lt;limit&gt; with metric p50-ms, p99-ms,
+ * p999-ms, min-rps or max-error-rate; endpoint "all" applies to every endpoint.
+ */
+class LoadTestConfig {
+
+    private static final String SYSTEM_PREFIX = "loadtest.";
+    private static final String SLO_PREFIX = "slo.";
+
+    final String baseUrl;
+    final int durationSeconds;
+    final int warmupSeconds;
+    final int monitors;
+    final int operators;
+    final int editors;
+    final long pollIntervalMs;
+    final int pollsPerBatch;
+    final long editorThinkMs;
+    final int recipes;
+    final long batchDurationMs;
+    final long seed;
+    final long requestTimeoutMs;
+    final String reportDir;
+    final String springProfiles;
+    final int tomcatMaxThreads;
+    final int minPeakInFlight;
+    final List<Slo> slos;
+
+    private LoadTestConfig(Properties properties) {
+        baseUrl = properties.getProperty("base-url", "").trim();
+        durationSeconds = intValue(properties, "duration-s");
+        warmupSeconds = intValue(properties, "warmup-s");
+        monitors = intValue(properties, "monitors");
+        operators = intValue(properties, "operators");
+        editors = intValue(properties, "editors");
+        pollIntervalMs = longValue(properties, "poll-interval-ms");
+        pollsPerBatch = intValue(properties, "polls-per-batch");
+        editorThinkMs = longValue(properties, "editor-think-ms");
+        recipes = intValue(properties, "recipes");
+        batchDurationMs = longValue(properties, "batch-duration-ms");
+        seed = longValue(properties, "seed");
+        requestTimeoutMs = longValue(properties, "request-timeout-ms");
+        reportDir = properties.getProperty("report-dir", "target/loadtest");
+        springProfiles = properties.getProperty("spring-profiles", "").trim();
+        tomcatMaxThreads = intValue(properties, "tomcat-max-threads");
+        minPeakInFlight = intValue(properties, "min-peak-in-flight");
+
+        slos = new ArrayList<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(SLO_PREFIX)) {
+                int metricStart = key.lastIndexOf('.');
+                if (metricStart <= SLO_PREFIX.length()) {
+                    throw new IllegalArgumentException("SLO must be slo.<endpoint>.<metric>: " + key);
+                }
+                slos.add(new Slo(key.substring(SLO_PREFIX.length(), metricStart), key.substring(metricStart + 1),
+                        Double.parseDouble(properties.getProperty(key).trim())));
+            }
+        }
+        slos.sort((a, b) -> (a.endpoint + a.metric).compareTo(b.endpoint + b.metric));
+    }
+
+    static LoadTestConfig load(String[] args) throws IOException {
+        Properties overrides = new Properties();
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith(SYSTEM_PREFIX)) {
+                overrides.setProperty(key.substring(SYSTEM_PREFIX.length()), System.getProperty(key));
+            }
+        }
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value argument: " + arg);
+            }
+            overrides.setProperty(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+
+        Properties properties = new Properties();
+        loadResource(properties, "/loadtest.properties", false);
+        String preset = overrides.getProperty("preset", "").trim();
+        if (!preset.isEmpty()) {
+            loadResource(properties, "/loadtest-" + preset + ".properties", true);
+        }
+        properties.putAll(overrides);
+        return new LoadTestConfig(properties);
+    }
+
+    private static void loadResource(Properties properties, String name, boolean required) throws IOException {
+        try (InputStream in = LoadTestConfig.class.getResourceAsStream(name)) {
+            if (in != null) {
+                properties.load(in);
+            } else if (required) {
+                throw new IllegalArgumentException("Unknown load test preset: " + name);
+            }
+        }
+    }
+
+    private static int intValue(Properties properties, String key) {
+        return (int) longValue(properties, key);
+    }
+
+    private static long longValue(Properties properties, String key) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Missing load test setting: " + key);
+        }
+        return Long.parseLong(value.trim());
+    }
+
+    /**
+     * Service level objective of one endpoint (or "all")
+     */
+    static class Slo {
+
+        static final String ALL = "all";
+
+        final String endpoint;
+        final String metric;
+        final double limit;
+
+        Slo(String endpoint, String metric, double limit) {
+            this.endpoint = endpoint;
+            this.metric = metric;
+            this.limit = limit;
+        }
+
+        /**
+         * Check the SLO against one endpoint's results
+         * @return the breach description, or null if the SLO holds
+         */
+        String check(EndpointStats stats, double seconds) {
+            if (stats.requests() == 0) {
+                return stats.name + ": no requests completed";
+            }
+            double value;
+            boolean breached;
+            switch (metric) {
+                case "p50-ms":
+                    value = stats.percentileMs(50.0);
+                    breached = value > limit;
+                    break;
+                case "p99-ms":
+                    value = stats.percentileMs(99.0);
+                    breached = value > limit;
+                    break;
+                case "p999-ms":
+                    value = stats.percentileMs(99.9);
+                    breached = value > limit;
+                    break;
+                case "min-rps":
+                    value = stats.requests() / seconds;
+                    breached = value < limit;
+                    break;
+                case "max-error-rate":
+                    value = (double) stats.errors() / stats.requests();
+                    breached = value > limit;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown SLO metric: " + metric);
+            }
+            return breached ? String.format("%s %s = %.3f (limit %.3f)", stats.name, metric, value, limit) : null;
+        }
+    }
+}
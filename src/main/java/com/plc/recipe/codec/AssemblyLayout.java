@@ -0,0 +1,117 @@
+package com.plc.recipe.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Byte layout of the batch assemblies exchanged with the PLC.
+ * All multi-byte fields are little-endian (CIP byte order).
+ *
+ * Assembly 100 - Input (PLC → Application), batch status:
+ * 0-3: RecipeID (int32)
+ * 4-7: BatchID (int32)
+ * 8: BatchStatus (uint8: 0=IDLE, 1=RUNNING, 2=COMPLETED, 3=FAILED, 4=STOPPED)
+ * 9: OperationMode (uint8)
+ * 10-13: ActualQuantity (float)
+ * 14-17: ProgressPercentage (float)
+ * 18-21: ElapsedTime (int32, seconds)
+ *
+ * Assembly 150 - Output (Application → PLC), batch command:
+ * 0-3: RecipeID (int32, 0 = keep loaded recipe)
+ * 4-7: BatchID (int32)
+ * 8: Command (uint8: 0=NONE, 1=START, 2=STOP, 3=LOAD_RECIPE)
+ * 9: OperationMode (uint8)
+ * 10-13: TargetQuantity (float)
+ *
+ * A PLC may host several batch units, each with its own pair of assemblies:
+ * unit n reports on instance 100 + n and is commanded on instance 150 + n.
+ * A batch is bound to unit BatchID mod unit count, so every component
+ * derives the same unit without shared state.
+ */
+public final class AssemblyLayout {
+
+    public static final int STATUS_ASSEMBLY = 100;
+    public static final int COMMAND_ASSEMBLY = 150;
+
+    // Assembly 100 offsets
+    public static final int STATUS_RECIPE_ID = 0;
+    public static final int STATUS_BATCH_ID = 4;
+    public static final int STATUS_BATCH_STATUS = 8;
+    public static final int STATUS_OPERATION_MODE = 9;
+    public static final int STATUS_ACTUAL_QUANTITY = 10;
+    public static final int STATUS_PROGRESS = 14;
+    public static final int STATUS_ELAPSED = 18;
+    public static final int STATUS_SIZE = 22;
+
+    // Assembly 150 offsets
+    public static final int COMMAND_RECIPE_ID = 0;
+    public static final int COMMAND_BATCH_ID = 4;
+    public static final int COMMAND_CODE = 8;
+    public static final int COMMAND_OPERATION_MODE = 9;
+    public static final int COMMAND_TARGET_QUANTITY = 10;
+    public static final int COMMAND_SIZE = 14;
+
+    // BatchStatus values
+    public static final int STATUS_IDLE = 0;
+    public static final int STATUS_RUNNING = 1;
+    public static final int STATUS_COMPLETED = 2;
+    public static final int STATUS_FAILED = 3;
+    public static final int STATUS_STOPPED = 4;
+
+    // Command values
+    public static final int COMMAND_NONE = 0;
+    public static final int COMMAND_START = 1;
+    public static final int COMMAND_STOP = 2;
+    public static final int COMMAND_LOAD_RECIPE = 3;
+
+    public static final int OPERATION_MODE_AUTO = 1;
+
+    public static final int MAX_BATCH_UNITS = COMMAND_ASSEMBLY - STATUS_ASSEMBLY;
+
+    private static final String[] STATUS_NAMES = {"IDLE", "RUNNING", "COMPLETED", "FAILED", "STOPPED"};
+
+    private AssemblyLayout() {
+    }
+
+    /**
+     * Status name as used by the REST API. Unknown codes are reported as FAILED.
+     * Returns a constant, so no allocation on the read path.
+     */
+    public static String statusName(int status) {
+        return status >= 0 && status < STATUS_NAMES.length ? STATUS_NAMES[status] : "FAILED";
+    }
+
+    /**
+     * Inverse of {@link #statusName(int)}.
+     */
+    public static int statusCode(String statusName) {
+        for (int i = 0; i < STATUS_NAMES.length; i++) {
+            if (STATUS_NAMES[i].equals(statusName)) {
+                return i;
+            }
+        }
+        return STATUS_FAILED;
+    }
+
+    /**
+     * Batch unit a batch runs on, for a PLC with {@code unitCount} units
+     */
+    public static int unitFor(int batchId, int unitCount) {
+        return Math.floorMod(batchId, Math.max(1, Math.min(unitCount, MAX_BATCH_UNITS)));
+    }
+
+    public static int statusInstance(int unit) {
+        return STATUS_ASSEMBLY + unit;
+    }
+
+    public static int commandInstance(int unit) {
+        return COMMAND_ASSEMBLY + unit;
+    }
+
+    /**
+     * Allocate a direct buffer sized for one Assembly 100 image.
+     * Callers keep it for their lifetime and re-use it on every read.
+     */
+    public static ByteBuffer allocateStatusImage() {
+        return ByteBuffer.allocateDirect(STATUS_SIZE);
+    }
+}
@@ -0,0 +1,79 @@
+package com.plc.recipe.codec;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.ByteBuffer;
+
+import static com.plc.recipe.codec.AssemblyLayout.*;
+
+/**
+ * Flyweight over an Assembly 150 (batch command) image.
+ */
+public class BatchCommandFlyweight extends Flyweight {
+
+    public BatchCommandFlyweight wrap(ByteBuffer buffer, int offset) {
+        wrapBuffer(buffer, offset, COMMAND_SIZE);
+        return this;
+    }
+
+    public BatchCommandFlyweight wrap(ByteBuf buffer, int offset) {
+        wrapBuffer(buffer, offset, COMMAND_SIZE);
+        return this;
+    }
+
+    /**
+     * Reserve {@link AssemblyLayout#COMMAND_SIZE} bytes at the writer index of
+     * the buffer, advance the writer index and wrap the reserved region.
+     */
+    public BatchCommandFlyweight append(ByteBuf buffer) {
+        int offset = buffer.writerIndex();
+        buffer.ensureWritable(COMMAND_SIZE);
+        buffer.writerIndex(offset + COMMAND_SIZE);
+        return wrap(buffer, offset);
+    }
+
+    public int recipeId() {
+        return getInt(COMMAND_RECIPE_ID);
+    }
+
+    public BatchCommandFlyweight recipeId(int value) {
+        putInt(COMMAND_RECIPE_ID, value);
+        return this;
+    }
+
+    public int batchId() {
+        return getInt(COMMAND_BATCH_ID);
+    }
+
+    public BatchCommandFlyweight batchId(int value) {
+        putInt(COMMAND_BATCH_ID, value);
+        return this;
+    }
+
+    public int command() {
+        return getUnsignedByte(COMMAND_CODE);
+    }
+
+    public BatchCommandFlyweight command(int value) {
+        putByte(COMMAND_CODE, value);
+        return this;
+    }
+
+    public int operationMode() {
+        return getUnsignedByte(COMMAND_OPERATION_MODE);
+    }
+
+    public BatchCommandFlyweight operationMode(int value) {
+        putByte(COMMAND_OPERATION_MODE, value);
+        return this;
+    }
+
+    public float targetQuantity() {
+        return getFloat(COMMAND_TARGET_QUANTITY);
+    }
+
+    public BatchCommandFlyweight targetQuantity(float value) {
+        putFloat(COMMAND_TARGET_QUANTITY, value);
+        return this;
+    }
+}
@@ -0,0 +1,87 @@
+package com.plc.recipe.codec;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.ByteBuffer;
+
+import static com.plc.recipe.codec.AssemblyLayout.*;
+
+/**
+ * Flyweight over an Assembly 100 (batch status) image.
+ * Getters return primitives; nothing is allocated per read.
+ */
+public class BatchStatusFlyweight extends Flyweight {
+
+    public BatchStatusFlyweight wrap(ByteBuffer buffer, int offset) {
+        wrapBuffer(buffer, offset, STATUS_SIZE);
+        return this;
+    }
+
+    public BatchStatusFlyweight wrap(ByteBuf buffer, int offset) {
+        wrapBuffer(buffer, offset, STATUS_SIZE);
+        return this;
+    }
+
+    public int recipeId() {
+        return getInt(STATUS_RECIPE_ID);
+    }
+
+    public BatchStatusFlyweight recipeId(int value) {
+        putInt(STATUS_RECIPE_ID, value);
+        return this;
+    }
+
+    public int batchId() {
+        return getInt(STATUS_BATCH_ID);
+    }
+
+    public BatchStatusFlyweight batchId(int value) {
+        putInt(STATUS_BATCH_ID, value);
+        return this;
+    }
+
+    public int status() {
+        return getUnsignedByte(STATUS_BATCH_STATUS);
+    }
+
+    public BatchStatusFlyweight status(int value) {
+        putByte(STATUS_BATCH_STATUS, value);
+        return this;
+    }
+
+    public int operationMode() {
+        return getUnsignedByte(STATUS_OPERATION_MODE);
+    }
+
+    public BatchStatusFlyweight operationMode(int value) {
+        putByte(STATUS_OPERATION_MODE, value);
+        return this;
+    }
+
+    public float actualQuantity() {
+        return getFloat(STATUS_ACTUAL_QUANTITY);
+    }
+
+    public BatchStatusFlyweight actualQuantity(float value) {
+        putFloat(STATUS_ACTUAL_QUANTITY, value);
+        return this;
+    }
+
+    public float progressPercentage() {
+        return getFloat(STATUS_PROGRESS);
+    }
+
+    public BatchStatusFlyweight progressPercentage(float value) {
+        putFloat(STATUS_PROGRESS, value);
+        return this;
+    }
+
+    public int elapsedSeconds() {
+        return getInt(STATUS_ELAPSED);
+    }
+
+    public BatchStatusFlyweight elapsedSeconds(int value) {
+        putInt(STATUS_ELAPSED, value);
+        return this;
+    }
+}
@@ -0,0 +1,93 @@
+package com.plc.recipe.codec;
+
+import io.netty.buffer.ByteBuf;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Base for allocation-free views over an assembly image.
+ *
+ * A flyweight is wrapped around either a NIO {@link ByteBuffer} (heap or direct)
+ * or a Netty {@link ByteBuf} at a given offset and reads/writes fields in place
+ * using absolute little-endian access. The backing buffer's position, limit,
+ * byte order and reader/writer indexes are never modified.
+ *
+ * Instances are mutable and not thread-safe; keep one per thread or per call.
+ */
+abstract class Flyweight {
+
+    private static final VarHandle INT_LE =
+            MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle FLOAT_LE =
+            MethodHandles.byteBufferViewVarHandle(float[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private ByteBuffer nioBuffer;
+    private ByteBuf nettyBuffer;
+    private int offset;
+
+    protected void wrapBuffer(ByteBuffer buffer, int offset, int size) {
+        checkBounds(offset, size, buffer.capacity());
+        this.nioBuffer = buffer;
+        this.nettyBuffer = null;
+        this.offset = offset;
+    }
+
+    protected void wrapBuffer(ByteBuf buffer, int offset, int size) {
+        checkBounds(offset, size, buffer.capacity());
+        this.nettyBuffer = buffer;
+        this.nioBuffer = null;
+        this.offset = offset;
+    }
+
+    protected int getInt(int field) {
+        return nioBuffer != null
+                ? (int) INT_LE.get(nioBuffer, offset + field)
+                : nettyBuffer.getIntLE(offset + field);
+    }
+
+    protected void putInt(int field, int value) {
+        if (nioBuffer != null) {
+            INT_LE.set(nioBuffer, offset + field, value);
+        } else {
+            nettyBuffer.setIntLE(offset + field, value);
+        }
+    }
+
+    protected float getFloat(int field) {
+        return nioBuffer != null
+                ? (float) FLOAT_LE.get(nioBuffer, offset + field)
+                : nettyBuffer.getFloatLE(offset + field);
+    }
+
+    protected void putFloat(int field, float value) {
+        if (nioBuffer != null) {
+            FLOAT_LE.set(nioBuffer, offset + field, value);
+        } else {
+            nettyBuffer.setFloatLE(offset + field, value);
+        }
+    }
+
+    protected int getUnsignedByte(int field) {
+        return nioBuffer != null
+                ? nioBuffer.get(offset + field) & 0xFF
+                : nettyBuffer.getUnsignedByte(offset + field);
+    }
+
+    protected void putByte(int field, int value) {
+        if (nioBuffer != null) {
+            nioBuffer.put(offset + field, (byte) value);
+        } else {
+            nettyBuffer.setByte(offset + field, value);
+        }
+    }
+
+    private static void checkBounds(int offset, int size, int capacity) {
+        if (offset < 0 || offset + size > capacity) {
+            throw new IndexOutOfBoundsException(
+                    "Assembly image of " + size + " bytes at offset " + offset + " exceeds capacity " + capacity);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.plc.recipe.config;
+
+import com.plc.recipe.controller.BatchProgressWebSocketHandler;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final BatchProgressWebSocketHandler progressHandler;
+
+    public WebSocketConfig(BatchProgressWebSocketHandler progressHandler) {
+        this.progressHandler = progressHandler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(progressHandler, "/api/batch-runs/ws");
+    }
+}
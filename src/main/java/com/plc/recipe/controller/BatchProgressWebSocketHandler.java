@@ -0,0 +1,35 @@
+package com.plc.recipe.controller;
+
+import com.plc.recipe.service.BatchProgressBroadcaster;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+/**
+ * WebSocket variant of the batch progress stream (/api/batch-runs/ws).
+ * Messages have the same JSON shape as the SSE "progress" events.
+ */
+@Component
+@Slf4j
+public class BatchProgressWebSocketHandler extends TextWebSocketHandler {
+
+    private final BatchProgressBroadcaster broadcaster;
+
+    public BatchProgressWebSocketHandler(BatchProgressBroadcaster broadcaster) {
+        this.broadcaster = broadcaster;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        log.info("WebSocket progress stream opened: {}", session.getId());
+        broadcaster.subscribeWebSocket(session);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        log.info("WebSocket progress stream closed: {} ({})", session.getId(), status);
+        broadcaster.unsubscribeWebSocket(session);
+    }
+}
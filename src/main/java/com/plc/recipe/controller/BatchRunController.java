@@ -1,30 +1,60 @@
 package com.plc.recipe.controller;
 
+import com.plc.recipe.dto.BatchHistoryPointDTO;
+import com.plc.recipe.dto.BatchProgressDTO;
 import com.plc.recipe.dto.BatchRunDTO;
+import com.plc.recipe.dto.BatchRunFilter;
+import com.plc.recipe.dto.BulkBatchRunRequest;
+import com.plc.recipe.dto.CursorPageDTO;
+import com.plc.recipe.exception.BatchStateConflictException;
+import com.plc.recipe.service.BatchHistorian;
+import com.plc.recipe.service.BatchProgressBroadcaster;
+import com.plc.recipe.service.BatchProgressCache;
 import com.plc.recipe.service.BatchRunService;
 import com.plc.recipe.service.EthernetIPService;
 import com.plc.recipe.service.RecipeEtherNetIPService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.validation.Valid;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/batch-runs")
 @Slf4j
 public class BatchRunController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final BatchRunService batchRunService;
     private final EthernetIPService ethernetIPService;
 
     @Autowired
     private RecipeEtherNetIPService recipeEtherNetIPService;
 
+    @Autowired
+    private BatchProgressCache progressCache;
+
+    @Autowired
+    private BatchProgressBroadcaster progressBroadcaster;
+
+    @Autowired
+    private BatchHistorian historian;
+
     public BatchRunController(BatchRunService batchRunService, EthernetIPService ethernetIPService) {
         this.batchRunService = batchRunService;
         this.ethernetIPService = ethernetIPService;
@@ -37,6 +67,40 @@ public class BatchRunController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdBatchRun);
     }
 
+    /**
+     * Create many batch runs at once, e.g. the plan of a shift
+     * All or nothing: a duplicate batch number or unknown recipe rejects the whole request.
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<List<BatchRunDTO>> createBatchRuns(@Valid @RequestBody BulkBatchRunRequest request) {
+        log.info("REST request to create {} batch runs", request.getBatchRuns().size());
+        List<BatchRunDTO> createdBatchRuns = batchRunService.createBatchRuns(request.getBatchRuns());
+        return ResponseEntity.status(HttpStatus.CREATED).body(createdBatchRuns);
+    }
+
+    /**
+     * Start many batch runs at once; body {"ids": [...]}
+     * PLC commands go out in parallel. Returns one result per batch run: its new status,
+     * or a message if it could not be started; other batch runs are not affected.
+     * An Idempotency-Key header covers the whole request.
+     */
+    @PostMapping("/bulk/start")
+    public CompletableFuture<ResponseEntity<List<Map<String, Object>>>> startBatchRuns(
+            @RequestBody Map<String, List<Long>> body,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        List<Long> ids = body.get("ids");
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("At least one batch run id is required");
+        }
+        log.info("REST request to start {} batch runs", ids.size());
+
+        Map<Long, CompletableFuture<BatchRunDTO>> starts = batchRunService.startBatchRunsAsync(ids, idempotencyKey);
+        return CompletableFuture.allOf(starts.values().toArray(new CompletableFuture[0]))
+                .handle((ignored, e) -> ResponseEntity.ok(starts.entrySet().stream()
+                        .map(start -> startResult(start.getKey(), start.getValue()))
+                        .collect(Collectors.toList())));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<BatchRunDTO> getBatchRunById(@PathVariable Long id) {
         log.info("REST request to get batch run by ID: {}", id);
@@ -44,11 +108,18 @@ public class BatchRunController {
         return ResponseEntity.ok(batchRun);
     }
 
+    /**
+     * Get batch runs page by page, newest first
+     * Filters: status, recipeId, operatorName, from/to (startedAt, ISO date-time).
+     * Pass the returned nextCursor as cursor for the next page.
+     */
     @GetMapping
-    public ResponseEntity<List<BatchRunDTO>> getAllBatchRuns() {
-        log.info("REST request to get all batch runs");
-        List<BatchRunDTO> batchRuns = batchRunService.getAllBatchRuns();
-        return ResponseEntity.ok(batchRuns);
+    public ResponseEntity<CursorPageDTO<BatchRunDTO>> getBatchRuns(
+            BatchRunFilter filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        log.info("REST request to get batch runs page");
+        return ResponseEntity.ok(batchRunService.getBatchRunPage(filter, cursor, limit));
     }
 
     @GetMapping("/recipe/{recipeId}")
@@ -85,68 +156,102 @@ public class BatchRunController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Start a batch; the servlet thread is released while the PLC is written
+     * Retries with the same Idempotency-Key header return the current state and do not
+     * send a second start command; starting a batch that is not PENDING returns 409.
+     */
     @PostMapping("/{id}/start")
-    public ResponseEntity<Map<String, Object>> startBatch(@PathVariable Long id) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> startBatch(
+            @PathVariable Long id,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
         log.info("REST request to start batch run: {}", id);
 
-        try {
-            BatchRunDTO updatedBatchRun = batchRunService.startBatchRun(id);
-            
-            return ResponseEntity.ok(Map.of(
-                    "message", "Batch started successfully",
-                    "batchNumber", updatedBatchRun.getBatchNumber(),
-                    "status", updatedBatchRun.getStatus(),
-                    "id", updatedBatchRun.getId()
-            ));
-        } catch (Exception e) {
-            log.error("Error starting batch", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("message", "Failed to start batch: " + e.getMessage()));
-        }
+        return async(() -> batchRunService.startBatchRunAsync(id, idempotencyKey))
+                .thenApply(updatedBatchRun -> ResponseEntity.ok(Map.<String, Object>of(
+                        "message", "Batch started successfully",
+                        "batchNumber", updatedBatchRun.getBatchNumber(),
+                        "status", updatedBatchRun.getStatus(),
+                        "id", updatedBatchRun.getId()
+                )))
+                .exceptionally(e -> failure("Error starting batch", "Failed to start batch: ", e));
     }
 
+    /**
+     * Stop a batch; the servlet thread is released while the PLC is written
+     * Idempotent like start; stopping a batch that is not RUNNING returns 409.
+     */
     @PostMapping("/{id}/stop")
-    public ResponseEntity<Map<String, Object>> stopBatch(@PathVariable Long id) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> stopBatch(
+            @PathVariable Long id,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
         log.info("REST request to stop batch run: {}", id);
 
-        try {
-            BatchRunDTO updatedBatchRun = batchRunService.stopBatchRun(id);
-            
-            return ResponseEntity.ok(Map.of(
-                    "message", "Batch stopped successfully",
-                    "batchNumber", updatedBatchRun.getBatchNumber(),
-                    "status", updatedBatchRun.getStatus(),
-                    "id", updatedBatchRun.getId()
-            ));
-        } catch (Exception e) {
-            log.error("Error stopping batch", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("message", "Failed to stop batch: " + e.getMessage()));
-        }
+        return async(() -> batchRunService.stopBatchRunAsync(id, idempotencyKey))
+                .thenApply(updatedBatchRun -> ResponseEntity.ok(Map.<String, Object>of(
+                        "message", "Batch stopped successfully",
+                        "batchNumber", updatedBatchRun.getBatchNumber(),
+                        "status", updatedBatchRun.getStatus(),
+                        "id", updatedBatchRun.getId()
+                )))
+                .exceptionally(e -> failure("Error stopping batch", "Failed to stop batch: ", e));
     }
 
+    /**
+     * Get batch progress
+     * Served from the poller cache, the only reader of the PLC; does not read the PLC.
+     */
     @GetMapping("/{id}/progress")
-    public ResponseEntity<Map<String, Object>> getBatchProgress(@PathVariable Long id) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getBatchProgress(@PathVariable Long id) {
         log.info("REST request to get batch progress: {}", id);
 
-        try {
-            BatchRunDTO batchRun = batchRunService.getBatchRunById(id);
-            BatchRunService.BatchProgress progress = batchRunService.getBatchProgress(id);
+        return async(() -> CompletableFuture.completedFuture(batchRunService.getLatestProgress(id)))
+                .thenApply(progress -> ResponseEntity.ok(Map.<String, Object>of(
+                        "id", progress.getId(),
+                        "batchNumber", progress.getBatchNumber(),
+                        "targetQuantity", progress.getTargetQuantity(),
+                        "currentQuantity", progress.getCurrentQuantity() != null ? progress.getCurrentQuantity() : 0.0,
+                        "status", progress.getStatus(),
+                        "progressPercentage", progress.getProgressPercentage(),
+                        "elapsedSeconds", progress.getElapsedSeconds()
+                )))
+                .exceptionally(e -> failure("Error getting batch progress", "Failed to get batch progress: ", e));
+    }
 
-            return ResponseEntity.ok(Map.of(
-                    "id", batchRun.getId(),
-                    "batchNumber", batchRun.getBatchNumber(),
-                    "targetQuantity", batchRun.getTargetQuantity(),
-                    "currentQuantity", progress.currentQuantity,
-                    "status", progress.status,
-                    "progressPercentage", progress.progressPercentage,
-                    "elapsedSeconds", progress.elapsedSeconds
-            ));
-        } catch (Exception e) {
-            log.error("Error getting batch progress", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("message", "Failed to get batch progress: " + e.getMessage()));
-        }
+    /**
+     * Get progress of all running batches in one response
+     * Served from the poller cache; does not read the PLC
+     */
+    @GetMapping("/progress")
+    public ResponseEntity<Collection<BatchProgressDTO>> getRunningBatchProgress() {
+        log.info("REST request to get progress of running batches");
+        return ResponseEntity.ok(progressCache.getAll());
+    }
+
+    /**
+     * Stream progress changes of running batches (Server-Sent Events)
+     * Sends a full snapshot on connect, then "progress" events with deltas.
+     * A WebSocket variant with the same messages is served at /api/batch-runs/ws.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBatchProgress() {
+        log.info("REST request to stream batch progress");
+        return progressBroadcaster.subscribeSse();
+    }
+
+    /**
+     * Get recorded progress history of a batch
+     * Defaults to the whole batch run; step (ms) sets the downsampling window,
+     * e.g. /api/batch-runs/1/history?from=2024-01-01T08:00:00&to=2024-01-01T09:00:00&step=10000
+     */
+    @GetMapping("/{id}/history")
+    public ResponseEntity<List<BatchHistoryPointDTO>> getBatchHistory(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long step) {
+        log.info("REST request to get batch history: {}", id);
+        return ResponseEntity.ok(historian.getHistory(id, from, to, step));
     }
 
     /**
@@ -210,4 +315,44 @@ public class BatchRunController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("message", "Failed to set PLC mode: " + e.getMessage()));
         }
-    }}
\ No newline at end of file
+    }
+
+    /**
+     * Run a future-returning call, turning a synchronous throw into a failed future
+     */
+    private static <T> CompletableFuture<T> async(Supplier<CompletableFuture<T>> call) {
+        try {
+            return call.get();
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static Map<String, Object> startResult(Long id, CompletableFuture<BatchRunDTO> start) {
+        try {
+            BatchRunDTO batchRun = start.join();
+            return Map.of(
+                    "id", id,
+                    "batchNumber", batchRun.getBatchNumber(),
+                    "status", batchRun.getStatus());
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.warn("Batch run {} not started: {}", id, cause.getMessage());
+            return Map.of(
+                    "id", id,
+                    "message", "Failed to start batch: " + cause.getMessage());
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> failure(String logMessage, String prefix, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof BatchStateConflictException || cause instanceof OptimisticLockingFailureException) {
+            log.warn("{}: {}", logMessage, cause.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("message", prefix + cause.getMessage()));
+        }
+        log.error(logMessage, cause);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", prefix + cause.getMessage()));
+    }
+}
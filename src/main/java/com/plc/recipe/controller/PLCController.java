@@ -1,11 +1,15 @@
 package com.plc.recipe.controller;
 
+import com.plc.recipe.plc.PlcLineRegistry;
 import com.plc.recipe.service.EthernetIPService;
+import com.plc.recipe.simulator.BatchSimulator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/plc")
@@ -13,9 +17,14 @@ import java.util.Map;
 public class PLCController {
 
     private final EthernetIPService ethernetIPService;
+    private final PlcLineRegistry lineRegistry;
+    private final BatchSimulator simulator;
 
-    public PLCController(EthernetIPService ethernetIPService) {
+    public PLCController(EthernetIPService ethernetIPService, PlcLineRegistry lineRegistry,
+                         BatchSimulator simulator) {
         this.ethernetIPService = ethernetIPService;
+        this.lineRegistry = lineRegistry;
+        this.simulator = simulator;
     }
 
     @GetMapping("/status")
@@ -32,6 +41,25 @@ public class PLCController {
         ));
     }
 
+    /**
+     * Production lines and the connection state of each line's PLC
+     */
+    @GetMapping("/lines")
+    public ResponseEntity<List<Map<String, Object>>> getLines() {
+        log.info("REST request to get production lines");
+
+        return ResponseEntity.ok(lineRegistry.getLines().stream()
+                .map(line -> Map.<String, Object>of(
+                        "name", line.getName(),
+                        "endpoint", line.getEndpoint().toString(),
+                        "batchUnits", line.getBatchUnits(),
+                        "default", line == lineRegistry.getDefaultLine(),
+                        "connected", ethernetIPService.isPLCConnected(line.getName()),
+                        "circuit", ethernetIPService.getCircuitState(line.getName()).name()
+                ))
+                .collect(Collectors.toList()));
+    }
+
     @PostMapping("/mode/offline")
     public ResponseEntity<Map<String, Object>> enableOfflineMode() {
         log.info("REST request to enable offline mode");
@@ -55,4 +83,46 @@ public class PLCController {
                 "offlineMode", false
         ));
     }
+
+    /**
+     * Offline simulator state; the seed repeats a run when set as plc.simulator.seed
+     */
+    @GetMapping("/simulator")
+    public ResponseEntity<Map<String, Object>> getSimulator() {
+        log.info("REST request to get simulator state");
+
+        return ResponseEntity.ok(Map.of(
+                "offlineMode", ethernetIPService.isOfflineMode(),
+                "seed", simulator.getSeed(),
+                "batches", simulator.getBatchCount()
+        ));
+    }
+
+    /**
+     * Inject a fault (STALL, FAIL, COMMS_LOSS) into a simulated batch
+     */
+    @PostMapping("/simulator/faults")
+    public ResponseEntity<Map<String, Object>> injectFault(
+            @RequestParam(required = false) String line,
+            @RequestParam String batchNumber,
+            @RequestParam String type,
+            @RequestParam(defaultValue = "5000") long durationMs) {
+        log.info("REST request to inject simulator fault {} into batch {}", type, batchNumber);
+
+        BatchSimulator.Fault fault;
+        try {
+            fault = BatchSimulator.Fault.valueOf(type.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown fault type: " + type);
+        }
+        if (!simulator.injectFault(lineRegistry.resolve(line).getName(), batchNumber, fault, durationMs)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        return ResponseEntity.ok(Map.of(
+                "message", "Fault injected",
+                "batchNumber", batchNumber,
+                "type", fault.name()
+        ));
+    }
 }
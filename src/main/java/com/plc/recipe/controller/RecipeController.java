@@ -1,5 +1,6 @@
 package com.plc.recipe.controller;
 
+import com.plc.recipe.dto.CursorPageDTO;
 import com.plc.recipe.dto.RecipeDTO;
 import com.plc.recipe.service.RecipeService;
 import lombok.extern.slf4j.Slf4j;
@@ -35,11 +36,18 @@ public class RecipeController {
         return ResponseEntity.ok(recipe);
     }
 
+    /**
+     * Get recipes page by page, ordered by name
+     * Optional filters: active, name (substring). Pass the returned nextCursor as cursor.
+     */
     @GetMapping
-    public ResponseEntity<List<RecipeDTO>> getAllRecipes() {
-        log.info("REST request to get all recipes");
-        List<RecipeDTO> recipes = recipeService.getAllRecipes();
-        return ResponseEntity.ok(recipes);
+    public ResponseEntity<CursorPageDTO<RecipeDTO>> getRecipes(
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        log.info("REST request to get recipes page");
+        return ResponseEntity.ok(recipeService.getRecipePage(active, name, cursor, limit));
     }
 
     @GetMapping("/active")
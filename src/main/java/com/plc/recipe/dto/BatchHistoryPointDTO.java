@@ -0,0 +1,25 @@
+package com.plc.recipe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchHistoryPointDTO {
+
+    private LocalDateTime timestamp;
+
+    private Double currentQuantity;
+
+    private Double progressPercentage;
+
+    private Integer elapsedSeconds;
+
+    private String status;
+}
@@ -0,0 +1,29 @@
+package com.plc.recipe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchProgressDTO {
+
+    private Long id;
+
+    private String batchNumber;
+
+    private String line;
+
+    private Double targetQuantity;
+
+    private Double currentQuantity;
+
+    private String status;
+
+    private Double progressPercentage;
+
+    private Integer elapsedSeconds;
+}
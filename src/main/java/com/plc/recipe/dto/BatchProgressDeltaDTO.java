@@ -0,0 +1,23 @@
+package com.plc.recipe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Change set pushed to progress stream clients: snapshots that changed since
+ * the previous message and IDs of batches that are no longer running.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchProgressDeltaDTO {
+
+    private List<BatchProgressDTO> updated;
+
+    private List<Long> removed;
+}
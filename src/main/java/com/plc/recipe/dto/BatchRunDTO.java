@@ -39,4 +39,6 @@ public class BatchRunDTO {
     private String notes;
 
     private String operatorName;
+
+    private String line;
 }
@@ -0,0 +1,34 @@
+package com.plc.recipe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional filters of the batch run listing, bound from query parameters.
+ * {@code from} is inclusive, {@code to} exclusive, both on startedAt.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchRunFilter {
+
+    private String status;
+
+    private Long recipeId;
+
+    private String operatorName;
+
+    private String line;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+}
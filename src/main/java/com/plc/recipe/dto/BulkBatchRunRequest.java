@@ -0,0 +1,24 @@
+package com.plc.recipe.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Batch runs to create in one request, e.g. the plan of a shift
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkBatchRunRequest {
+
+    @NotEmpty(message = "At least one batch run is required")
+    @Valid
+    private List<BatchRunDTO> batchRuns;
+}
@@ -0,0 +1,24 @@
+package com.plc.recipe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing.
+ * Pass {@code nextCursor} as the {@code cursor} parameter to get the next page;
+ * it is null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPageDTO<T> {
+
+    private List<T> items;
+
+    private String nextCursor;
+}
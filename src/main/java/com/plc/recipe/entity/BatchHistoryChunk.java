@@ -0,0 +1,41 @@
+package com.plc.recipe.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One compressed, append-only block of progress samples of a batch.
+ * A block never spans two time partitions; see {@link com.plc.recipe.historian.ChunkEncoder}.
+ */
+@Entity
+@Table(name = "batch_history_chunks",
+        indexes = @Index(name = "idx_history_batch_start", columnList = "batch_run_id, start_time"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchHistoryChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "batch_run_id", nullable = false)
+    private Long batchRunId;
+
+    @Column(name = "start_time", nullable = false)
+    private Long startTime; // epoch ms of first sample
+
+    @Column(name = "end_time", nullable = false)
+    private Long endTime; // epoch ms of last sample
+
+    @Column(nullable = false)
+    private Integer sampleCount;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] data;
+}
@@ -5,19 +5,30 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "batch_runs")
+@Table(name = "batch_runs", indexes = {
+        @Index(name = "ux_batch_runs_batch_number", columnList = "batch_number", unique = true),
+        @Index(name = "idx_batch_runs_recipe_started", columnList = "recipe_id, started_at DESC"),
+        @Index(name = "idx_batch_runs_status_started", columnList = "status, started_at DESC"),
+        @Index(name = "idx_batch_runs_line_status", columnList = "line, status")
+})
+// Only changed columns are written, so a status change does not overwrite
+// quantities flushed meanwhile by the progress write-behind
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class BatchRun {
 
+    // Pooled sequence: ids are assigned without an insert, so inserts can be JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "batch_runs_seq")
+    @SequenceGenerator(name = "batch_runs_seq", sequenceName = "batch_runs_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -35,7 +46,7 @@ public class BatchRun {
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
-    private BatchStatus status; // PENDING, RUNNING, COMPLETED, FAILED
+    private BatchStatus status; // PENDING, RUNNING, COMPLETED, FAILED, STOPPED
 
     @Column(nullable = false, updatable = false)
     private LocalDateTime startedAt;
@@ -49,13 +60,47 @@ public class BatchRun {
     @Column
     private String operatorName;
 
+    // Production line (PLC) the batch runs on; null is the default line
+    @Column(length = 64)
+    private String line;
+
+    // Idempotency keys of the accepted start and stop requests; set before the PLC command is sent
+    @Column(length = 64)
+    private String startRequestKey;
+
+    @Column(length = 64)
+    private String stopRequestKey;
+
+    // Also incremented by the status transitions written over JDBC (BatchProgressWriteBehind)
+    @Version
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         startedAt = LocalDateTime.now();
         status = BatchStatus.PENDING;
     }
 
+    /**
+     * Batch lifecycle: PENDING -> RUNNING -> COMPLETED, FAILED or STOPPED.
+     * A batch whose start command fails goes from PENDING to FAILED.
+     */
     public enum BatchStatus {
-        PENDING, RUNNING, COMPLETED, FAILED
+        PENDING, RUNNING, COMPLETED, FAILED, STOPPED;
+
+        public boolean canTransitionTo(BatchStatus target) {
+            switch (this) {
+                case PENDING:
+                    return target == RUNNING || target == FAILED;
+                case RUNNING:
+                    return target == COMPLETED || target == FAILED || target == STOPPED;
+                default:
+                    return false;
+            }
+        }
+
+        public boolean isTerminal() {
+            return this == COMPLETED || this == FAILED || this == STOPPED;
+        }
     }
 }
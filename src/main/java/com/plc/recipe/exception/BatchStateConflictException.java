@@ -0,0 +1,12 @@
+package com.plc.recipe.exception;
+
+/**
+ * Thrown when a batch run cannot make the requested status transition
+ * (not allowed from its current status, or the command was already requested).
+ */
+public class BatchStateConflictException extends RuntimeException {
+
+    public BatchStateConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package com.plc.recipe.exception;
+
+/**
+ * Thrown when a request to a PLC cannot be completed
+ * (connection refused, session lost, timeout or CIP error status).
+ */
+public class PlcCommunicationException extends RuntimeException {
+
+    public PlcCommunicationException(String message) {
+        super(message);
+    }
+
+    public PlcCommunicationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,28 @@
+package com.plc.recipe.historian;
+
+/**
+ * Reader for streams written by {@link BitWriter}.
+ */
+class BitReader {
+
+    private final byte[] bytes;
+    private int position;
+
+    BitReader(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    boolean readBit() {
+        boolean bit = (bytes[position >>> 3] & (0x80 >>> (position & 7))) != 0;
+        position++;
+        return bit;
+    }
+
+    long readBits(int count) {
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            value = (value << 1) | (readBit() ? 1L : 0L);
+        }
+        return value;
+    }
+}
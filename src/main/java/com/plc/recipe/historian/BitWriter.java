@@ -0,0 +1,56 @@
+package com.plc.recipe.historian;
+
+import java.util.Arrays;
+
+/**
+ * Append-only bit stream, most significant bit first.
+ */
+class BitWriter {
+
+    private byte[] bytes;
+    private int bitCount;
+
+    BitWriter(int initialCapacity) {
+        this.bytes = new byte[Math.max(16, initialCapacity)];
+    }
+
+    void writeBit(boolean bit) {
+        ensureCapacity(1);
+        if (bit) {
+            bytes[bitCount >>> 3] |= (byte) (0x80 >>> (bitCount & 7));
+        }
+        bitCount++;
+    }
+
+    /**
+     * Write the low {@code count} bits of {@code value} (0..64).
+     */
+    void writeBits(long value, int count) {
+        ensureCapacity(count);
+        for (int i = count - 1; i >= 0; i--) {
+            if (((value >>> i) & 1L) != 0) {
+                bytes[bitCount >>> 3] |= (byte) (0x80 >>> (bitCount & 7));
+            }
+            bitCount++;
+        }
+    }
+
+    int bitCount() {
+        return bitCount;
+    }
+
+    int byteCount() {
+        return (bitCount + 7) >>> 3;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, byteCount());
+    }
+
+    private void ensureCapacity(int bits) {
+        int required = (bitCount + bits + 7) >>> 3;
+        if (required > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(required, bytes.length * 2));
+        }
+    }
+}
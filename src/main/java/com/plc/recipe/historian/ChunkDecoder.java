@@ -0,0 +1,98 @@
+package com.plc.recipe.historian;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decoder for chunks written by {@link ChunkEncoder}.
+ */
+public final class ChunkDecoder {
+
+    private ChunkDecoder() {
+    }
+
+    public static List<HistorySample> decode(byte[] data, int sampleCount) {
+        List<HistorySample> samples = new ArrayList<>(sampleCount);
+        if (sampleCount == 0) {
+            return samples;
+        }
+
+        BitReader in = new BitReader(data);
+        DeltaOfDelta timestamps = new DeltaOfDelta(in.readBits(64));
+        DeltaOfDelta elapsed = new DeltaOfDelta((int) in.readBits(32));
+        Xor quantities = new Xor(in.readBits(64));
+        Xor percentages = new Xor(in.readBits(64));
+        int status = (int) in.readBits(ChunkEncoder.STATUS_BITS);
+        samples.add(new HistorySample(timestamps.value, quantities.value(), percentages.value(), (int) elapsed.value, status));
+
+        for (int i = 1; i < sampleCount; i++) {
+            long timestamp = timestamps.next(in);
+            int elapsedSeconds = (int) elapsed.next(in);
+            double quantity = quantities.next(in);
+            double percentage = percentages.next(in);
+            if (in.readBit()) {
+                status = (int) in.readBits(ChunkEncoder.STATUS_BITS);
+            }
+            samples.add(new HistorySample(timestamp, quantity, percentage, elapsedSeconds, status));
+        }
+        return samples;
+    }
+
+    private static long signExtend(long value, int bits) {
+        int shift = 64 - bits;
+        return (value << shift) >> shift;
+    }
+
+    private static class DeltaOfDelta {
+        long value;
+        long delta;
+
+        DeltaOfDelta(long first) {
+            this.value = first;
+        }
+
+        long next(BitReader in) {
+            long dod;
+            if (!in.readBit()) {
+                dod = 0;
+            } else if (!in.readBit()) {
+                dod = signExtend(in.readBits(7), 7);
+            } else if (!in.readBit()) {
+                dod = signExtend(in.readBits(9), 9);
+            } else if (!in.readBit()) {
+                dod = signExtend(in.readBits(12), 12);
+            } else {
+                dod = in.readBits(64);
+            }
+            delta += dod;
+            value += delta;
+            return value;
+        }
+    }
+
+    private static class Xor {
+        long bits;
+        int leading;
+        int trailing;
+
+        Xor(long first) {
+            this.bits = first;
+        }
+
+        double value() {
+            return Double.longBitsToDouble(bits);
+        }
+
+        double next(BitReader in) {
+            if (in.readBit()) {
+                if (in.readBit()) {
+                    leading = (int) in.readBits(5);
+                    int length = (int) in.readBits(6) + 1;
+                    trailing = 64 - leading - length;
+                }
+                bits ^= in.readBits(64 - leading - trailing) << trailing;
+            }
+            return value();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.plc.recipe.historian;
+
+/**
+ * Gorilla-style compressor for one chunk of progress samples.
+ *
+ * Each sample is appended to a single bit stream, column by column:
+ * - timestamp (ms) and elapsed seconds: delta-of-delta, variable-length
+ *   buckets; a steady sample rate costs 1 bit
+ * - quantity and percentage: XOR with the previous value, storing only the
+ *   meaningful bits; an unchanged value costs 1 bit
+ * - status: 1 bit if unchanged, otherwise 1 + 3 bits
+ *
+ * The first sample stores timestamp and floats raw (64 bits each).
+ * Not thread-safe; callers synchronize per chunk.
+ */
+public class ChunkEncoder {
+
+    static final int STATUS_BITS = 3;
+
+    private final BitWriter out;
+    private final DeltaOfDelta timestamps = new DeltaOfDelta();
+    private final DeltaOfDelta elapsed = new DeltaOfDelta();
+    private final Xor quantities = new Xor();
+    private final Xor percentages = new Xor();
+    private int previousStatus;
+
+    private int sampleCount;
+    private long firstTimestamp;
+    private long lastTimestamp;
+
+    public ChunkEncoder(int initialCapacity) {
+        this.out = new BitWriter(initialCapacity);
+    }
+
+    public void append(long timestampMillis, double quantity, double percentage, int elapsedSeconds, int status) {
+        if (sampleCount == 0) {
+            firstTimestamp = timestampMillis;
+            out.writeBits(timestampMillis, 64);
+            timestamps.first(timestampMillis);
+            out.writeBits(elapsedSeconds, 32);
+            elapsed.first(elapsedSeconds);
+            quantities.first(out, quantity);
+            percentages.first(out, percentage);
+            out.writeBits(status, STATUS_BITS);
+        } else {
+            timestamps.append(out, timestampMillis);
+            elapsed.append(out, elapsedSeconds);
+            quantities.append(out, quantity);
+            percentages.append(out, percentage);
+            if (status == previousStatus) {
+                out.writeBit(false);
+            } else {
+                out.writeBit(true);
+                out.writeBits(status, STATUS_BITS);
+            }
+        }
+        previousStatus = status;
+        lastTimestamp = timestampMillis;
+        sampleCount++;
+    }
+
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    public long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    public long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public int sizeInBytes() {
+        return out.byteCount();
+    }
+
+    public byte[] toByteArray() {
+        return out.toByteArray();
+    }
+
+    /**
+     * Delta-of-delta column. Bucket widths follow the Gorilla paper,
+     * with the last bucket widened to 64 bits so any gap round-trips.
+     */
+    private static class DeltaOfDelta {
+        private long previous;
+        private long previousDelta;
+
+        void first(long value) {
+            previous = value;
+            previousDelta = 0;
+        }
+
+        void append(BitWriter out, long value) {
+            long delta = value - previous;
+            long dod = delta - previousDelta;
+
+            if (dod == 0) {
+                out.writeBit(false);
+            } else if (dod >= -64 && dod <= 63) {
+                out.writeBits(0b10, 2);
+                out.writeBits(dod, 7);
+            } else if (dod >= -256 && dod <= 255) {
+                out.writeBits(0b110, 3);
+                out.writeBits(dod, 9);
+            } else if (dod >= -2048 && dod <= 2047) {
+                out.writeBits(0b1110, 4);
+                out.writeBits(dod, 12);
+            } else {
+                out.writeBits(0b1111, 4);
+                out.writeBits(dod, 64);
+            }
+
+            previous = value;
+            previousDelta = delta;
+        }
+    }
+
+    /**
+     * XOR float column: control bit '0' reuses the previous leading/trailing
+     * window, '1' stores 5 bits of leading zeros and 6 bits of length.
+     */
+    private static class Xor {
+        private long previousBits;
+        private int previousLeading = Integer.MAX_VALUE;
+        private int previousTrailing;
+
+        void first(BitWriter out, double value) {
+            previousBits = Double.doubleToRawLongBits(value);
+            out.writeBits(previousBits, 64);
+        }
+
+        void append(BitWriter out, double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            long xor = bits ^ previousBits;
+            previousBits = bits;
+
+            if (xor == 0) {
+                out.writeBit(false);
+                return;
+            }
+            out.writeBit(true);
+
+            int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int trailing = Long.numberOfTrailingZeros(xor);
+
+            if (leading >= previousLeading && trailing >= previousTrailing) {
+                out.writeBit(false);
+                out.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            } else {
+                int length = 64 - leading - trailing;
+                out.writeBit(true);
+                out.writeBits(leading, 5);
+                out.writeBits(length - 1, 6);
+                out.writeBits(xor >>> trailing, length);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+    }
+}
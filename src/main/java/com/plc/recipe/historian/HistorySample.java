@@ -0,0 +1,20 @@
+package com.plc.recipe.historian;
+
+/**
+ * One decoded progress sample of a batch.
+ */
+public class HistorySample {
+    public final long timestampMillis;
+    public final double quantity;
+    public final double percentage;
+    public final int elapsedSeconds;
+    public final int status;
+
+    public HistorySample(long timestampMillis, double quantity, double percentage, int elapsedSeconds, int status) {
+        this.timestampMillis = timestampMillis;
+        this.quantity = quantity;
+        this.percentage = percentage;
+        this.elapsedSeconds = elapsedSeconds;
+        this.status = status;
+    }
+}
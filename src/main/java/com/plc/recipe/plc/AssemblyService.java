@@ -0,0 +1,88 @@
+package com.plc.recipe.plc;
+
+import com.digitalpetri.enip.cip.CipResponseException;
+import com.digitalpetri.enip.cip.services.CipService;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Base class for explicit CIP requests addressed to the data attribute
+ * of an Assembly object instance (class 0x04, attribute 3).
+ *
+ * Encodes the Message Router request header and validates the reply
+ * header; subclasses only deal with the attribute data.
+ */
+public abstract class AssemblyService<T> implements CipService<T> {
+
+    public static final int ASSEMBLY_CLASS = 0x04;
+    public static final int DATA_ATTRIBUTE = 0x03;
+
+    private final int serviceCode;
+    private final int instance;
+
+    protected AssemblyService(int serviceCode, int instance) {
+        this.serviceCode = serviceCode;
+        this.instance = instance;
+    }
+
+    public int getInstance() {
+        return instance;
+    }
+
+    @Override
+    public void encodeRequest(ByteBuf buffer) {
+        buffer.writeByte(serviceCode);
+        encodeRequestPath(buffer, instance);
+        encodeRequestData(buffer);
+    }
+
+    @Override
+    public T decodeResponse(ByteBuf buffer) throws CipResponseException {
+        checkReplyHeader(buffer, serviceCode);
+        return decodeResponseData(buffer);
+    }
+
+    protected abstract void encodeRequestData(ByteBuf buffer);
+
+    protected abstract T decodeResponseData(ByteBuf buffer);
+
+    /**
+     * Write the path size (in 16-bit words) followed by the padded logical
+     * segments class 0x04 / instance / attribute 3.
+     */
+    static void encodeRequestPath(ByteBuf buffer, int instance) {
+        if (instance <= 0xFF) {
+            buffer.writeByte(3);
+            buffer.writeByte(0x20).writeByte(ASSEMBLY_CLASS);
+            buffer.writeByte(0x24).writeByte(instance);
+        } else {
+            buffer.writeByte(4);
+            buffer.writeByte(0x20).writeByte(ASSEMBLY_CLASS);
+            buffer.writeByte(0x25).writeByte(0x00).writeShortLE(instance);
+        }
+        buffer.writeByte(0x30).writeByte(DATA_ATTRIBUTE);
+    }
+
+    /**
+     * Consume the Message Router reply header, leaving the reader index on the
+     * first byte of response data. Non-zero general status is raised as a
+     * {@link CipResponseException}.
+     */
+    static void checkReplyHeader(ByteBuf buffer, int serviceCode) throws CipResponseException {
+        int replyService = buffer.readUnsignedByte();
+        buffer.skipBytes(1); // reserved
+        int generalStatus = buffer.readUnsignedByte();
+        int additionalStatusSize = buffer.readUnsignedByte();
+        int[] additionalStatus = new int[additionalStatusSize];
+        for (int i = 0; i < additionalStatusSize; i++) {
+            additionalStatus[i] = buffer.readUnsignedShortLE();
+        }
+
+        if (replyService != (serviceCode | 0x80)) {
+            throw new IllegalStateException(String.format(
+                    "Unexpected reply service 0x%02X for request 0x%02X", replyService, serviceCode));
+        }
+        if (generalStatus != 0x00) {
+            throw new CipResponseException(generalStatus, additionalStatus);
+        }
+    }
+}
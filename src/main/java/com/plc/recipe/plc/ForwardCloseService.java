@@ -0,0 +1,54 @@
+package com.plc.recipe.plc;
+
+import com.digitalpetri.enip.cip.CipResponseException;
+import com.digitalpetri.enip.cip.services.CipService;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Forward_Close (0x4E) for a connection opened by {@link ForwardOpenService}.
+ * The connection is identified by serial, vendor and originator serial.
+ */
+public class ForwardCloseService implements CipService<Void> {
+
+    public static final int SERVICE_CODE = 0x4E;
+
+    private final int connectionSerial;
+    private final int originatorSerial;
+    private final int configInstance;
+    private final int heartbeatInstance;
+    private final int inputInstance;
+
+    public ForwardCloseService(int connectionSerial, int originatorSerial,
+                               int configInstance, int heartbeatInstance, int inputInstance) {
+        this.connectionSerial = connectionSerial;
+        this.originatorSerial = originatorSerial;
+        this.configInstance = configInstance;
+        this.heartbeatInstance = heartbeatInstance;
+        this.inputInstance = inputInstance;
+    }
+
+    @Override
+    public void encodeRequest(ByteBuf buffer) {
+        buffer.writeByte(SERVICE_CODE);
+        ForwardOpenService.encodeConnectionManagerPath(buffer);
+
+        buffer.writeByte(ForwardOpenService.PRIORITY_TIME_TICK);
+        buffer.writeByte(ForwardOpenService.TIMEOUT_TICKS);
+        buffer.writeShortLE(connectionSerial);
+        buffer.writeShortLE(ForwardOpenService.VENDOR_ID);
+        buffer.writeIntLE(originatorSerial);
+
+        buffer.writeByte(4);
+        buffer.writeByte(0); // reserved
+        buffer.writeByte(0x20).writeByte(AssemblyService.ASSEMBLY_CLASS);
+        buffer.writeByte(0x24).writeByte(configInstance);
+        buffer.writeByte(0x2C).writeByte(heartbeatInstance);
+        buffer.writeByte(0x2C).writeByte(inputInstance);
+    }
+
+    @Override
+    public Void decodeResponse(ByteBuf buffer) throws CipResponseException {
+        AssemblyService.checkReplyHeader(buffer, SERVICE_CODE);
+        return null;
+    }
+}
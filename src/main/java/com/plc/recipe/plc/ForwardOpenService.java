@@ -0,0 +1,117 @@
+package com.plc.recipe.plc;
+
+import com.digitalpetri.enip.cip.CipResponseException;
+import com.digitalpetri.enip.cip.services.CipService;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Forward_Open (0x54) to the Connection Manager for a Class 1 cyclic
+ * input-only I/O connection.
+ *
+ * The connection path addresses the Assembly object: configuration instance,
+ * O→T heartbeat instance and T→O input instance. The target produces the
+ * input assembly as UDP datagrams every RPI.
+ */
+public class ForwardOpenService implements CipService<ForwardOpenService.Reply> {
+
+    public static final int SERVICE_CODE = 0x54;
+
+    static final int CONNECTION_MANAGER_CLASS = 0x06;
+    static final int PRIORITY_TIME_TICK = 0x0A;
+    static final int TIMEOUT_TICKS = 0x0E;
+    static final int VENDOR_ID = 0x0000;
+
+    private static final int POINT_TO_POINT = 0x4000;
+    private static final int PRIORITY_HIGH = 0x0400;
+    private static final int TRANSPORT_CLASS_1_CYCLIC = 0x01;
+
+    private final int toConnectionId;
+    private final int connectionSerial;
+    private final int originatorSerial;
+    private final int timeoutMultiplier;
+    private final int rpiMicros;
+    private final int configInstance;
+    private final int heartbeatInstance;
+    private final int inputInstance;
+    private final int inputSize;
+
+    public ForwardOpenService(int toConnectionId, int connectionSerial, int originatorSerial,
+                              int timeoutMultiplier, int rpiMicros,
+                              int configInstance, int heartbeatInstance, int inputInstance, int inputSize) {
+        this.toConnectionId = toConnectionId;
+        this.connectionSerial = connectionSerial;
+        this.originatorSerial = originatorSerial;
+        this.timeoutMultiplier = timeoutMultiplier;
+        this.rpiMicros = rpiMicros;
+        this.configInstance = configInstance;
+        this.heartbeatInstance = heartbeatInstance;
+        this.inputInstance = inputInstance;
+        this.inputSize = inputSize;
+    }
+
+    @Override
+    public void encodeRequest(ByteBuf buffer) {
+        buffer.writeByte(SERVICE_CODE);
+        encodeConnectionManagerPath(buffer);
+
+        buffer.writeByte(PRIORITY_TIME_TICK);
+        buffer.writeByte(TIMEOUT_TICKS);
+        buffer.writeIntLE(0);                  // O→T connection id, chosen by target
+        buffer.writeIntLE(toConnectionId);     // T→O connection id, chosen by us
+        buffer.writeShortLE(connectionSerial);
+        buffer.writeShortLE(VENDOR_ID);
+        buffer.writeIntLE(originatorSerial);
+        buffer.writeByte(timeoutMultiplier);
+        buffer.writeZero(3);
+
+        // O→T heartbeat: sequence count + 32-bit run/idle header, no data
+        buffer.writeIntLE(rpiMicros);
+        buffer.writeShortLE(POINT_TO_POINT | PRIORITY_HIGH | (2 + 4));
+        // T→O input: sequence count + assembly data
+        buffer.writeIntLE(rpiMicros);
+        buffer.writeShortLE(POINT_TO_POINT | PRIORITY_HIGH | (2 + inputSize));
+        buffer.writeByte(TRANSPORT_CLASS_1_CYCLIC);
+
+        buffer.writeByte(4);
+        buffer.writeByte(0x20).writeByte(AssemblyService.ASSEMBLY_CLASS);
+        buffer.writeByte(0x24).writeByte(configInstance);
+        buffer.writeByte(0x2C).writeByte(heartbeatInstance);
+        buffer.writeByte(0x2C).writeByte(inputInstance);
+    }
+
+    @Override
+    public Reply decodeResponse(ByteBuf buffer) throws CipResponseException {
+        AssemblyService.checkReplyHeader(buffer, SERVICE_CODE);
+
+        int otConnectionId = buffer.readIntLE();
+        int toConnectionId = buffer.readIntLE();
+        buffer.skipBytes(2 + 2 + 4); // serial, vendor, originator serial
+        int otApiMicros = buffer.readIntLE();
+        int toApiMicros = buffer.readIntLE();
+
+        return new Reply(otConnectionId, toConnectionId, otApiMicros, toApiMicros);
+    }
+
+    static void encodeConnectionManagerPath(ByteBuf buffer) {
+        buffer.writeByte(2);
+        buffer.writeByte(0x20).writeByte(CONNECTION_MANAGER_CLASS);
+        buffer.writeByte(0x24).writeByte(0x01);
+    }
+
+    /**
+     * Connection ids and actual packet intervals granted by the target
+     */
+    public static class Reply {
+        public final int otConnectionId;
+        public final int toConnectionId;
+        public final int otApiMicros;
+        public final int toApiMicros;
+
+        public Reply(int otConnectionId, int toConnectionId, int otApiMicros, int toApiMicros) {
+            this.otConnectionId = otConnectionId;
+            this.toConnectionId = toConnectionId;
+            this.otApiMicros = otApiMicros;
+            this.toApiMicros = toApiMicros;
+        }
+    }
+}
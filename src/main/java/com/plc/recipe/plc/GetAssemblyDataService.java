@@ -0,0 +1,33 @@
+package com.plc.recipe.plc;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.function.Function;
+
+/**
+ * Get_Attribute_Single (0x0E) on an Assembly data attribute.
+ *
+ * The reply data is handed to the decoder while the receive buffer is still
+ * valid, so callers parse in place instead of copying the image.
+ */
+public class GetAssemblyDataService<T> extends AssemblyService<T> {
+
+    public static final int SERVICE_CODE = 0x0E;
+
+    private final Function<ByteBuf, T> decoder;
+
+    public GetAssemblyDataService(int instance, Function<ByteBuf, T> decoder) {
+        super(SERVICE_CODE, instance);
+        this.decoder = decoder;
+    }
+
+    @Override
+    protected void encodeRequestData(ByteBuf buffer) {
+        // Get_Attribute_Single carries no request data
+    }
+
+    @Override
+    protected T decodeResponseData(ByteBuf buffer) {
+        return decoder.apply(buffer);
+    }
+}
@@ -0,0 +1,33 @@
+package com.plc.recipe.plc;
+
+import com.digitalpetri.enip.cip.CipResponseException;
+import com.digitalpetri.enip.cip.services.CipService;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Get_Attribute_Single (0x0E) of the Vendor ID of Identity object instance 1.
+ *
+ * Every CIP device implements it, so it is the cheapest request that proves a
+ * session reaches the PLC's Message Router (used by circuit probes).
+ */
+public class IdentityService implements CipService<Integer> {
+
+    public static final int SERVICE_CODE = 0x0E;
+    public static final int IDENTITY_CLASS = 0x01;
+    public static final int VENDOR_ID_ATTRIBUTE = 0x01;
+
+    @Override
+    public void encodeRequest(ByteBuf buffer) {
+        buffer.writeByte(SERVICE_CODE);
+        buffer.writeByte(3);
+        buffer.writeByte(0x20).writeByte(IDENTITY_CLASS);
+        buffer.writeByte(0x24).writeByte(1);
+        buffer.writeByte(0x30).writeByte(VENDOR_ID_ATTRIBUTE);
+    }
+
+    @Override
+    public Integer decodeResponse(ByteBuf buffer) throws CipResponseException {
+        AssemblyService.checkReplyHeader(buffer, SERVICE_CODE);
+        return buffer.readUnsignedShortLE();
+    }
+}
@@ -0,0 +1,119 @@
+package com.plc.recipe.plc;
+
+import com.plc.recipe.codec.AssemblyLayout;
+import com.plc.recipe.codec.BatchStatusFlyweight;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.DatagramChannel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local stand-in for a PLC producing Assembly 100 as Class 1 I/O datagrams.
+ *
+ * Sends every published image to the target address once per RPI, the way
+ * an adapter would after Forward_Open. Used to exercise {@link ImplicitIoService}
+ * without hardware (run with plc.implicit-io.forward-open=false).
+ *
+ * Usage: java ... ImplicitIoProducer [host] [port] [rpiMs] [batchNumber...]
+ */
+@Slf4j
+public class ImplicitIoProducer implements AutoCloseable {
+
+    private final InetSocketAddress target;
+    private final int connectionId;
+    private final long rpiMs;
+    private final DatagramChannel channel;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "implicit-io-producer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<Integer, ByteBuffer> images = new ConcurrentHashMap<>();
+    private final ByteBuffer frame = ByteBuffer.allocateDirect(IoFrame.HEADER_SIZE + AssemblyLayout.STATUS_SIZE);
+    private int sequence;
+
+    public ImplicitIoProducer(InetSocketAddress target, int connectionId, long rpiMs) throws IOException {
+        this.target = target;
+        this.connectionId = connectionId;
+        this.rpiMs = rpiMs;
+        this.channel = DatagramChannel.open();
+    }
+
+    /**
+     * Set the image produced for the batch id contained in it.
+     * The content is copied; later changes to {@code image} are not seen.
+     */
+    public void publish(ByteBuffer image) {
+        int batchId = new BatchStatusFlyweight().wrap(image, 0).batchId();
+        ByteBuffer copy = ByteBuffer.allocate(AssemblyLayout.STATUS_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        copy.put(0, image, 0, AssemblyLayout.STATUS_SIZE);
+        images.put(batchId, copy);
+    }
+
+    public void remove(int batchId) {
+        images.remove(batchId);
+    }
+
+    public ImplicitIoProducer start() {
+        scheduler.scheduleAtFixedRate(this::produce, 0, rpiMs, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    private void produce() {
+        for (ByteBuffer image : images.values()) {
+            try {
+                IoFrame.encode(frame, connectionId, ++sequence, image);
+                channel.send(frame, target);
+            } catch (IOException e) {
+                log.warn("Failed to produce I/O datagram to {}: {}", target, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdownNow();
+        channel.close();
+    }
+
+    /**
+     * Produce linearly progressing RUNNING batches until interrupted.
+     */
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : IoFrame.DEFAULT_PORT;
+        long rpi = args.length > 2 ? Long.parseLong(args[2]) : 100;
+        String[] batchNumbers = args.length > 3
+                ? java.util.Arrays.copyOfRange(args, 3, args.length)
+                : new String[]{"BATCH-001"};
+
+        try (ImplicitIoProducer producer = new ImplicitIoProducer(new InetSocketAddress(host, port), 0, rpi).start()) {
+            ByteBuffer image = AssemblyLayout.allocateStatusImage();
+            BatchStatusFlyweight status = new BatchStatusFlyweight().wrap(image, 0);
+            long started = System.currentTimeMillis();
+
+            while (!Thread.currentThread().isInterrupted()) {
+                int elapsed = (int) ((System.currentTimeMillis() - started) / 1000);
+                float progress = Math.min(100.0f, elapsed * 100.0f / 60.0f);
+                for (String batchNumber : batchNumbers) {
+                    status.batchId(batchNumber.hashCode() & 0x7FFFFFFF)
+                            .status(progress >= 100.0f ? AssemblyLayout.STATUS_COMPLETED : AssemblyLayout.STATUS_RUNNING)
+                            .operationMode(AssemblyLayout.OPERATION_MODE_AUTO)
+                            .actualQuantity(progress)
+                            .progressPercentage(progress)
+                            .elapsedSeconds(elapsed);
+                    producer.publish(image);
+                }
+                Thread.sleep(rpi);
+            }
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.plc.recipe.plc;
+
+import com.plc.recipe.codec.AssemblyLayout;
+import com.plc.recipe.codec.BatchStatusFlyweight;
+import com.plc.recipe.exception.PlcCommunicationException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Class 1 implicit (cyclic UDP) I/O for Assembly 100.
+ *
+ * When enabled, a Forward_Open asks the PLC to produce its input assembly
+ * every RPI to our UDP port. A single receiver thread decodes each datagram
+ * in place and stores the image in {@link StatusSnapshots}, so progress reads
+ * are a memory copy and never touch the network.
+ *
+ * - plc.implicit-io.forward-open=false skips Forward_Open and just listens,
+ *   for adapters configured to produce unsolicited or for {@link ImplicitIoProducer};
+ *   the connection id is then plc.implicit-io.connection-id
+ * - Only datagrams sent by the PLC's host with the connection's T->O
+ *   connection id are accepted; anything else on the UDP port is dropped
+ * - Snapshots older than 4 x RPI are treated as missing; callers fall back
+ *   to an explicit read
+ * - One connection, to the default production line's PLC; reads for other
+ *   endpoints always miss and are polled explicitly
+ */
+@Component
+@Slf4j
+public class ImplicitIoService {
+
+    @Value("${plc.implicit-io.enabled:false}")
+    private boolean enabled;
+
+    @Value("${plc.implicit-io.rpi-ms:100}")
+    private int rpiMs;
+
+    @Value("${plc.implicit-io.local-port:2222}")
+    private int localPort;
+
+    @Value("${plc.implicit-io.forward-open:true}")
+    private boolean forwardOpen;
+
+    @Value("${plc.implicit-io.connection-id:0}")
+    private int producedConnectionId;
+
+    @Value("${plc.implicit-io.config-instance:151}")
+    private int configInstance;
+
+    @Value("${plc.implicit-io.heartbeat-instance:153}")
+    private int heartbeatInstance;
+
+    @Autowired
+    private PlcSessionPool sessionPool;
+
+    private static final int TIMEOUT_MULTIPLIER = 0; // x4 RPI
+    private static final int STALE_RPI_COUNT = 4;
+    private static final long EVICT_AFTER_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final StatusSnapshots snapshots = new StatusSnapshots();
+
+    // Open/close do blocking I/O (Forward_Open); ReentrantLock does not pin virtual threads
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile Connection connection;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isOpen() {
+        return connection != null;
+    }
+
+    /**
+     * True if the connection is open and its images come from {@code endpoint}
+     */
+    public boolean isOpen(PlcEndpoint endpoint) {
+        Connection current = connection;
+        return current != null && current.endpoint.equals(endpoint);
+    }
+
+    /**
+     * Open the I/O connection to the endpoint if it is not open yet.
+     */
+    public void open(PlcEndpoint endpoint) {
+        if (!enabled) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            if (connection != null) {
+                return;
+            }
+            InetAddress source;
+            try {
+                source = InetAddress.getByName(endpoint.getHost());
+            } catch (UnknownHostException e) {
+                throw new PlcCommunicationException("Unable to resolve PLC host " + endpoint.getHost(), e);
+            }
+
+            DatagramChannel channel = null;
+            Connection opened = null;
+            boolean started = false;
+            try {
+                channel = DatagramChannel.open();
+                channel.setOption(StandardSocketOptions.SO_REUSEADDR, true)
+                        .bind(new InetSocketAddress(localPort));
+
+                opened = new Connection(endpoint, source, channel);
+                if (forwardOpen) {
+                    opened.forwardOpen();
+                }
+                opened.start();
+                connection = opened;
+                started = true;
+            } catch (IOException e) {
+                throw new PlcCommunicationException("Unable to open UDP port " + localPort, e);
+            } finally {
+                // Forward_Open rejected or unreachable: release the port and the heartbeat thread
+                if (!started) {
+                    if (opened != null) {
+                        opened.close();
+                    } else {
+                        closeQuietly(channel);
+                    }
+                }
+            }
+            log.info("Implicit I/O connection to {} open, RPI {} ms, listening on UDP {}", endpoint, rpiMs, localPort);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Copy the latest cyclic image for the batch into {@code image}.
+     *
+     * @return false if no connection to the endpoint is open or no fresh image exists
+     */
+    public boolean copyLatest(PlcEndpoint endpoint, int batchId, ByteBuffer image) {
+        return isOpen(endpoint)
+                && snapshots.copyLatest(batchId, image, TimeUnit.MILLISECONDS.toNanos((long) rpiMs * STALE_RPI_COUNT));
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            Connection current = connection;
+            connection = null;
+            if (current != null) {
+                current.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void closeQuietly(DatagramChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Error closing UDP channel", e);
+            }
+        }
+    }
+
+    /**
+     * One open I/O connection: UDP channel, receiver thread and heartbeat.
+     */
+    private class Connection {
+
+        private final PlcEndpoint endpoint;
+        // Host the PLC's datagrams come from; the source port is the PLC's choice
+        private final InetAddress source;
+        private final DatagramChannel channel;
+        private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "implicit-io-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        private final int connectionSerial = ThreadLocalRandom.current().nextInt(1, 0xFFFF);
+        private final int originatorSerial = ThreadLocalRandom.current().nextInt();
+        private final int requestedToConnectionId = ThreadLocalRandom.current().nextInt();
+
+        private volatile int otConnectionId;
+        private volatile int toConnectionId = producedConnectionId;
+        private volatile boolean running = true;
+        private volatile boolean forwardOpened;
+
+        Connection(PlcEndpoint endpoint, InetAddress source, DatagramChannel channel) {
+            this.endpoint = endpoint;
+            this.source = source;
+            this.channel = channel;
+        }
+
+        void forwardOpen() {
+            ForwardOpenService.Reply reply = sessionPool.invoke(endpoint, new ForwardOpenService(
+                    requestedToConnectionId, connectionSerial, originatorSerial, TIMEOUT_MULTIPLIER,
+                    rpiMs * 1000, configInstance, heartbeatInstance,
+                    AssemblyLayout.STATUS_ASSEMBLY, AssemblyLayout.STATUS_SIZE));
+            otConnectionId = reply.otConnectionId;
+            toConnectionId = reply.toConnectionId;
+            forwardOpened = true;
+            log.info("Forward_Open accepted by {}: O->T 0x{}, T->O 0x{}, API {} us",
+                    endpoint, Integer.toHexString(otConnectionId), Integer.toHexString(toConnectionId), reply.toApiMicros);
+        }
+
+        void start() {
+            Thread receiver = new Thread(this::receive, "implicit-io-receiver");
+            receiver.setDaemon(true);
+            receiver.start();
+
+            if (forwardOpen) {
+                heartbeat.scheduleAtFixedRate(this::sendHeartbeat, rpiMs, rpiMs, TimeUnit.MILLISECONDS);
+            }
+            heartbeat.scheduleAtFixedRate(() -> snapshots.evictOlderThan(EVICT_AFTER_NANOS), 1, 1, TimeUnit.MINUTES);
+        }
+
+        private void receive() {
+            ByteBuffer frame = ByteBuffer.allocateDirect(1500).order(ByteOrder.LITTLE_ENDIAN);
+            BatchStatusFlyweight status = new BatchStatusFlyweight();
+
+            while (running) {
+                try {
+                    frame.clear();
+                    SocketAddress sender = channel.receive(frame);
+                    frame.flip();
+
+                    // Any host can reach the port; only the PLC's own connection is published
+                    if (!(sender instanceof InetSocketAddress) || !source.equals(((InetSocketAddress) sender).getAddress())) {
+                        continue;
+                    }
+                    int offset = IoFrame.dataOffset(frame);
+                    if (offset < 0 || IoFrame.dataLength(frame) < AssemblyLayout.STATUS_SIZE) {
+                        continue;
+                    }
+                    if (IoFrame.connectionId(frame) != toConnectionId) {
+                        continue;
+                    }
+
+                    status.wrap(frame, offset);
+                    snapshots.publish(status.batchId(), frame, offset, System.nanoTime());
+                } catch (ClosedChannelException e) {
+                    return;
+                } catch (IOException e) {
+                    log.warn("Implicit I/O receive failed: {}", e.getMessage());
+                }
+            }
+        }
+
+        private int heartbeatSequence;
+        private final ByteBuffer heartbeatFrame = ByteBuffer.allocateDirect(IoFrame.HEADER_SIZE + 4);
+        private final ByteBuffer runHeader = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, 1);
+
+        private void sendHeartbeat() {
+            try {
+                heartbeatSequence++;
+                IoFrame.encode(heartbeatFrame, otConnectionId, heartbeatSequence, runHeader);
+                channel.send(heartbeatFrame, new InetSocketAddress(endpoint.getHost(), IoFrame.DEFAULT_PORT));
+            } catch (IOException e) {
+                log.warn("Implicit I/O heartbeat to {} failed: {}", endpoint, e.getMessage());
+            }
+        }
+
+        void close() {
+            running = false;
+            heartbeat.shutdownNow();
+            if (forwardOpened) {
+                try {
+                    sessionPool.invoke(endpoint, new ForwardCloseService(connectionSerial, originatorSerial,
+                            configInstance, heartbeatInstance, AssemblyLayout.STATUS_ASSEMBLY));
+                } catch (PlcCommunicationException e) {
+                    log.warn("Forward_Close to {} failed: {}", endpoint, e.getMessage());
+                }
+            }
+            closeQuietly(channel);
+            log.info("Implicit I/O connection to {} closed", endpoint);
+        }
+    }
+}
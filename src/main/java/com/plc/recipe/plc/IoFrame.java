@@ -0,0 +1,68 @@
+package com.plc.recipe.plc;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Common Packet Format of a Class 1 I/O datagram (UDP port 2222):
+ *
+ * 0-1: item count (2)
+ * 2-3: Sequenced Address item type (0x8002), 4-5: length (8)
+ * 6-9: connection id, 10-13: encapsulation sequence number
+ * 14-15: Connected Data item type (0x00B1), 16-17: length
+ * 18-19: CIP sequence count, 20-: connection data
+ *
+ * Buffers passed in must be little-endian.
+ */
+public final class IoFrame {
+
+    public static final int DEFAULT_PORT = 2222;
+    public static final int HEADER_SIZE = 20;
+    public static final int CONNECTION_ID = 6;
+    public static final int DATA_ITEM_LENGTH = 16;
+
+    private static final int SEQUENCED_ADDRESS_ITEM = 0x8002;
+    private static final int CONNECTED_DATA_ITEM = 0x00B1;
+
+    private IoFrame() {
+    }
+
+    /**
+     * Encode a frame carrying {@code data} (position to limit, not consumed).
+     * The output buffer is cleared and flipped ready to send.
+     */
+    public static void encode(ByteBuffer out, int connectionId, int sequence, ByteBuffer data) {
+        int length = data.remaining();
+        out.clear().order(ByteOrder.LITTLE_ENDIAN);
+        out.putShort((short) 2);
+        out.putShort((short) SEQUENCED_ADDRESS_ITEM).putShort((short) 8);
+        out.putInt(connectionId).putInt(sequence);
+        out.putShort((short) CONNECTED_DATA_ITEM).putShort((short) (2 + length));
+        out.putShort((short) sequence);
+        out.put(data.duplicate());
+        out.flip();
+    }
+
+    /**
+     * Validate a received frame (position 0 to limit).
+     * Returns the offset of the connection data, or -1 if malformed.
+     */
+    public static int dataOffset(ByteBuffer frame) {
+        if (frame.limit() < HEADER_SIZE
+                || frame.getShort(0) != 2
+                || (frame.getShort(2) & 0xFFFF) != SEQUENCED_ADDRESS_ITEM
+                || (frame.getShort(14) & 0xFFFF) != CONNECTED_DATA_ITEM) {
+            return -1;
+        }
+        int length = frame.getShort(DATA_ITEM_LENGTH) & 0xFFFF;
+        return HEADER_SIZE - 2 + length <= frame.limit() ? HEADER_SIZE : -1;
+    }
+
+    public static int connectionId(ByteBuffer frame) {
+        return frame.getInt(CONNECTION_ID);
+    }
+
+    public static int dataLength(ByteBuffer frame) {
+        return (frame.getShort(DATA_ITEM_LENGTH) & 0xFFFF) - 2;
+    }
+}
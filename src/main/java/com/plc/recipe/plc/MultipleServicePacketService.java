@@ -0,0 +1,94 @@
+package com.plc.recipe.plc;
+
+import com.digitalpetri.enip.cip.CipResponseException;
+import com.digitalpetri.enip.cip.services.CipService;
+import io.netty.buffer.ByteBuf;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Multiple_Service_Packet (0x0A) to the Message Router, carrying several
+ * assembly requests in one round trip.
+ *
+ * Request data: service count (uint16), offset table (uint16 per service,
+ * relative to the count field), embedded requests. The reply has the same
+ * shape. An embedded service that fails yields {@code null} in the result
+ * list instead of failing the whole packet.
+ */
+public class MultipleServicePacketService<T> implements CipService<List<T>> {
+
+    public static final int SERVICE_CODE = 0x0A;
+
+    private static final int MESSAGE_ROUTER_CLASS = 0x02;
+    private static final int EMBEDDED_SERVICE_ERROR = 0x1E;
+
+    /** Reply header (4) + service count (2) */
+    public static final int REPLY_OVERHEAD = 6;
+    /** Offset table entry (2) + embedded reply header without additional status (4) */
+    public static final int REPLY_ITEM_OVERHEAD = 6;
+
+    private final List<? extends AssemblyService<T>> services;
+
+    public MultipleServicePacketService(List<? extends AssemblyService<T>> services) {
+        this.services = services;
+    }
+
+    @Override
+    public void encodeRequest(ByteBuf buffer) {
+        buffer.writeByte(SERVICE_CODE);
+        buffer.writeByte(2);
+        buffer.writeByte(0x20).writeByte(MESSAGE_ROUTER_CLASS);
+        buffer.writeByte(0x24).writeByte(0x01);
+
+        int countIndex = buffer.writerIndex();
+        int count = services.size();
+        buffer.writeShortLE(count);
+        int offsetTableIndex = buffer.writerIndex();
+        buffer.writeZero(2 * count);
+
+        for (int i = 0; i < count; i++) {
+            buffer.setShortLE(offsetTableIndex + 2 * i, buffer.writerIndex() - countIndex);
+            services.get(i).encodeRequest(buffer);
+        }
+    }
+
+    @Override
+    public List<T> decodeResponse(ByteBuf buffer) throws CipResponseException {
+        int replyService = buffer.readUnsignedByte();
+        buffer.skipBytes(1);
+        int generalStatus = buffer.readUnsignedByte();
+        int additionalStatusSize = buffer.readUnsignedByte();
+        buffer.skipBytes(2 * additionalStatusSize);
+
+        if (replyService != (SERVICE_CODE | 0x80)) {
+            throw new IllegalStateException(String.format("Unexpected reply service 0x%02X", replyService));
+        }
+        if (generalStatus != 0x00 && generalStatus != EMBEDDED_SERVICE_ERROR) {
+            throw new CipResponseException(generalStatus, new int[0]);
+        }
+
+        int countIndex = buffer.readerIndex();
+        int count = buffer.readUnsignedShortLE();
+        if (count != services.size()) {
+            throw new IllegalStateException("Expected " + services.size() + " replies, got " + count);
+        }
+
+        int end = buffer.writerIndex();
+        int[] offsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = countIndex + buffer.readUnsignedShortLE();
+        }
+
+        List<T> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = (i + 1 < count ? offsets[i + 1] : end) - offsets[i];
+            try {
+                results.add(services.get(i).decodeResponse(buffer.slice(offsets[i], length)));
+            } catch (CipResponseException e) {
+                results.add(null);
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,92 @@
+package com.plc.recipe.plc;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Circuit breaker state of one PLC endpoint.
+ *
+ * - CLOSED: requests flow; consecutive transport failures are counted
+ * - OPEN: requests fail at once; a reconnect probe is scheduled with
+ *   jittered exponential backoff
+ * - HALF_OPEN: one probe is in flight; other requests still fail at once
+ *
+ * CIP error replies prove the PLC is reachable and count as successes.
+ */
+public class PlcCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long backoffInitialMs;
+    private final long backoffMaxMs;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicInteger failedProbes = new AtomicInteger();
+
+    public PlcCircuitBreaker(int failureThreshold, long backoffInitialMs, long backoffMaxMs) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.backoffInitialMs = Math.max(1, backoffInitialMs);
+        this.backoffMaxMs = Math.max(this.backoffInitialMs, backoffMaxMs);
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * True if a request may be sent to the PLC
+     */
+    public boolean allowRequest() {
+        return state.get() == State.CLOSED;
+    }
+
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+    }
+
+    /**
+     * Count a transport failure.
+     *
+     * @return true if this failure opened the circuit; the caller schedules the first probe
+     */
+    public boolean onFailure() {
+        return consecutiveFailures.incrementAndGet() >= failureThreshold
+                && state.compareAndSet(State.CLOSED, State.OPEN);
+    }
+
+    /**
+     * Move OPEN to HALF_OPEN for a probe.
+     *
+     * @return false if the circuit is not open (closed meanwhile or a probe is running)
+     */
+    public boolean startProbe() {
+        return state.compareAndSet(State.OPEN, State.HALF_OPEN);
+    }
+
+    public void probeSucceeded() {
+        consecutiveFailures.set(0);
+        failedProbes.set(0);
+        state.set(State.CLOSED);
+    }
+
+    public void probeFailed() {
+        failedProbes.incrementAndGet();
+        state.set(State.OPEN);
+    }
+
+    /**
+     * Delay before the next probe: initial x 2^failedProbes, capped, with
+     * "equal jitter" (uniform in [delay/2, delay]) so many lines do not
+     * reconnect in lockstep.
+     */
+    public long nextBackoffMs() {
+        int exponent = Math.min(failedProbes.get(), 30);
+        long delay = Math.min(backoffMaxMs, backoffInitialMs << exponent);
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+}
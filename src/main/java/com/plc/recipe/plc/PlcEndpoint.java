@@ -0,0 +1,19 @@
+package com.plc.recipe.plc;
+
+import lombok.Value;
+
+/**
+ * Network address of an EtherNet/IP target (host and TCP port).
+ * Used as the key for pooled sessions.
+ */
+@Value
+public class PlcEndpoint {
+
+    String host;
+    int port;
+
+    @Override
+    public String toString() {
+        return host + ":" + port;
+    }
+}
@@ -0,0 +1,21 @@
+package com.plc.recipe.plc;
+
+import lombok.Value;
+
+/**
+ * Production line served by one PLC.
+ * Batches are assigned to a line by name (BatchRun.line).
+ */
+@Value
+public class PlcLine {
+
+    String name;
+    PlcEndpoint endpoint;
+    // Batch units hosted by the PLC (unit n uses Assemblies 100+n / 150+n)
+    int batchUnits;
+
+    @Override
+    public String toString() {
+        return name + "@" + endpoint;
+    }
+}
@@ -0,0 +1,26 @@
+package com.plc.recipe.plc;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Production lines from plc.lines.&lt;name&gt;.host / .port / .batch-units
+ */
+@Component
+@ConfigurationProperties(prefix = "plc")
+@Data
+public class PlcLineProperties {
+
+    private Map<String, Line> lines = new LinkedHashMap<>();
+
+    @Data
+    public static class Line {
+        private String host;
+        private int port = 44818;
+        private int batchUnits = 1;
+    }
+}
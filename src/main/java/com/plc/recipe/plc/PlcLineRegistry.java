@@ -0,0 +1,101 @@
+package com.plc.recipe.plc;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Registry of production lines and the PLC serving each.
+ *
+ * - Lines are configured as plc.lines.&lt;name&gt;.host / .port / .batch-units
+ * - Without any plc.lines entries a single "default" line is built from
+ *   plc.host / plc.port / plc.batch-units
+ * - Batches without a line run on plc.default-line (the first line if unset)
+ */
+@Component
+@Slf4j
+public class PlcLineRegistry {
+
+    public static final String DEFAULT_LINE = "default";
+
+    @Value("${plc.host:localhost}")
+    private String plcHost;
+
+    @Value("${plc.port:44818}")
+    private int plcPort;
+
+    @Value("${plc.batch-units:1}")
+    private int batchUnits;
+
+    @Value("${plc.default-line:}")
+    private String defaultLineName;
+
+    private final PlcLineProperties properties;
+
+    private Map<String, PlcLine> lines;
+    private PlcLine defaultLine;
+
+    public PlcLineRegistry(PlcLineProperties properties) {
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    void init() {
+        Map<String, PlcLine> configured = new LinkedHashMap<>();
+        properties.getLines().forEach((name, line) -> {
+            if (line.getHost() == null || line.getHost().isBlank()) {
+                throw new IllegalStateException("plc.lines." + name + ".host is required");
+            }
+            configured.put(name, new PlcLine(name, new PlcEndpoint(line.getHost(), line.getPort()),
+                    Math.max(1, line.getBatchUnits())));
+        });
+        if (configured.isEmpty()) {
+            configured.put(DEFAULT_LINE, new PlcLine(DEFAULT_LINE, new PlcEndpoint(plcHost, plcPort), Math.max(1, batchUnits)));
+        }
+        lines = Collections.unmodifiableMap(configured);
+
+        if (defaultLineName == null || defaultLineName.isBlank()) {
+            defaultLine = lines.values().iterator().next();
+        } else {
+            defaultLine = lines.get(defaultLineName);
+            if (defaultLine == null) {
+                throw new IllegalStateException("plc.default-line '" + defaultLineName + "' is not a configured line");
+            }
+        }
+        log.info("Production lines: {} (default: {})", lines.values(), defaultLine.getName());
+    }
+
+    /**
+     * Line by name; null or blank is the default line
+     *
+     * @throws IllegalArgumentException if no such line is configured
+     */
+    public PlcLine resolve(String name) {
+        if (name == null || name.isBlank()) {
+            return defaultLine;
+        }
+        PlcLine line = lines.get(name);
+        if (line == null) {
+            throw new IllegalArgumentException("Unknown production line: " + name);
+        }
+        return line;
+    }
+
+    public PlcLine getDefaultLine() {
+        return defaultLine;
+    }
+
+    public boolean isDefault(String name) {
+        return resolve(name) == defaultLine;
+    }
+
+    public Collection<PlcLine> getLines() {
+        return lines.values();
+    }
+}
@@ -0,0 +1,88 @@
+package com.plc.recipe.plc;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters of the PLC communication layer (GET /actuator/metrics/&lt;name&gt;).
+ *
+ * - plc.requests: timer with percentile histogram per CIP operation
+ *   (start, stop, recipe-write, progress-read, progress-read-multiple),
+ *   production line and outcome
+ * - plc.failures: failed requests per endpoint and cause
+ *   (timeout, transport, cip-error, circuit-open)
+ * - plc.reconnects: sessions registered after the pool's slots were first
+ *   filled, per endpoint and outcome
+ * - plc.circuit.trips: circuit breaker openings per endpoint
+ */
+@Component
+public class PlcMetrics {
+
+    public static final String START = "start";
+    public static final String STOP = "stop";
+    public static final String RECIPE_WRITE = "recipe-write";
+    public static final String PROGRESS_READ = "progress-read";
+    public static final String PROGRESS_READ_MULTIPLE = "progress-read-multiple";
+
+    private final MeterRegistry registry;
+
+    // Timers are looked up per request; the registry lookup allocates the meter id
+    private final ConcurrentHashMap<String, Timer> requestTimers = new ConcurrentHashMap<>();
+
+    public PlcMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Time an asynchronous PLC request from the moment it is issued until it
+     * completes; exceptional completion is a failure
+     */
+    public <T> CompletableFuture<T> timeRequest(String operation, String line, Supplier<CompletableFuture<T>> request) {
+        Timer.Sample sample = Timer.start(registry);
+        return request.get().whenComplete((result, ex) -> sample.stop(requestTimer(operation, line, ex == null)));
+    }
+
+    /**
+     * Time a blocking PLC request; a thrown exception is a failure
+     */
+    public <T> T time(String operation, String line, Supplier<T> request) {
+        Timer.Sample sample = Timer.start(registry);
+        boolean success = false;
+        try {
+            T result = request.get();
+            success = true;
+            return result;
+        } finally {
+            sample.stop(requestTimer(operation, line, success));
+        }
+    }
+
+    public void requestFailed(PlcEndpoint endpoint, String cause) {
+        registry.counter("plc.failures", "endpoint", endpoint.toString(), "cause", cause).increment();
+    }
+
+    public void reconnected(PlcEndpoint endpoint, boolean success) {
+        registry.counter("plc.reconnects", "endpoint", endpoint.toString(),
+                "outcome", success ? "success" : "failure").increment();
+    }
+
+    public void circuitTripped(PlcEndpoint endpoint) {
+        registry.counter("plc.circuit.trips", "endpoint", endpoint.toString()).increment();
+    }
+
+    private Timer requestTimer(String operation, String line, boolean success) {
+        String outcome = success ? "success" : "failure";
+        return requestTimers.computeIfAbsent(operation + '/' + line + '/' + outcome, key -> Timer.builder("plc.requests")
+                .description("CIP round trip to a PLC")
+                .tag("operation", operation)
+                .tag("line", line)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+}
@@ -0,0 +1,435 @@
+package com.plc.recipe.plc;
+
+import com.digitalpetri.enip.EtherNetIpClientConfig;
+import com.digitalpetri.enip.cip.CipClient;
+import com.digitalpetri.enip.cip.CipResponseException;
+import com.digitalpetri.enip.cip.epath.EPath.PaddedEPath;
+import com.digitalpetri.enip.cip.epath.PortSegment;
+import com.digitalpetri.enip.cip.services.CipService;
+import com.plc.recipe.exception.PlcCommunicationException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Pool of registered EtherNet/IP sessions, kept open per PLC endpoint.
+ *
+ * - Each endpoint owns a fixed number of session slots, filled lazily
+ * - A slot holds a CipClient that has completed TCP connect and RegisterSession
+ * - Requests are spread round-robin over the slots; enip-core pipelines
+ *   concurrent requests on one session, so a slot is never "checked out"
+ * - A slot whose session fails (I/O error, timeout) is dropped and
+ *   reconnected by the next caller that lands on it
+ *
+ * - Each endpoint has a {@link PlcCircuitBreaker}: after
+ *   plc.circuit.failure-threshold consecutive transport failures requests
+ *   fail at once, and a background probe reads the PLC's identity (registering
+ *   a session if needed) with jittered exponential backoff until the PLC answers again
+ * - A request that fails on a broken session (not a timeout, not a CIP
+ *   error reply) is retried on another session, up to plc.retry.max-attempts
+ *
+ * Failures, reconnects and circuit trips are counted in {@link PlcMetrics}.
+ * Session listeners are told about every registration, so state kept about a
+ * PLC (e.g. the recipes loaded on it) can be dropped when it may have restarted.
+ *
+ * The steady-state cost of a PLC request is one CIP round trip; during an
+ * outage it is a failed future, not a connection timeout.
+ */
+@Component
+@Slf4j
+public class PlcSessionPool {
+
+    @Value("${plc.session-pool-size:2}")
+    private int poolSize;
+
+    @Value("${plc.connection-timeout:5000}")
+    private long connectionTimeoutMs;
+
+    @Value("${plc.backplane-slot:0}")
+    private int backplaneSlot;
+
+    @Value("${plc.retry.max-attempts:2}")
+    private int maxAttempts;
+
+    @Value("${plc.circuit.failure-threshold:3}")
+    private int failureThreshold;
+
+    @Value("${plc.circuit.backoff-initial-ms:500}")
+    private long backoffInitialMs;
+
+    @Value("${plc.circuit.backoff-max-ms:30000}")
+    private long backoffMaxMs;
+
+    @Autowired
+    private PlcMetrics metrics;
+
+    private final ConcurrentHashMap<PlcEndpoint, EndpointSessions> endpoints = new ConcurrentHashMap<>();
+
+    private final List<Consumer<PlcEndpoint>> sessionListeners = new CopyOnWriteArrayList<>();
+
+    // Schedules reconnect probes; probes are asynchronous, so one thread serves all endpoints
+    private final ScheduledExecutorService reconnector = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "plc-reconnect");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Invoke an unconnected CIP service on a pooled session.
+     * Transport failures invalidate the session; CIP error replies do not.
+     */
+    public <T> T invoke(PlcEndpoint endpoint, CipService<T> service) {
+        return join(invokeAsync(endpoint, service), endpoint);
+    }
+
+    /**
+     * Non-blocking variant of {@link #invoke}. The future completes on an
+     * I/O thread, exceptionally with a {@link PlcCommunicationException};
+     * callers must not block in dependent stages. While the endpoint's
+     * circuit is open the returned future has already failed.
+     */
+    public <T> CompletableFuture<T> invokeAsync(PlcEndpoint endpoint, CipService<T> service) {
+        EndpointSessions sessions = endpoints.computeIfAbsent(endpoint, EndpointSessions::new);
+        if (!sessions.breaker.allowRequest()) {
+            metrics.requestFailed(endpoint, "circuit-open");
+            return CompletableFuture.failedFuture(circuitOpen(endpoint));
+        }
+        return invokeAsync(sessions, service, Math.max(1, maxAttempts));
+    }
+
+    /**
+     * Make sure at least one session to the endpoint is registered.
+     * Fails at once while the endpoint's circuit is open.
+     */
+    public void connect(PlcEndpoint endpoint) {
+        EndpointSessions sessions = endpoints.computeIfAbsent(endpoint, EndpointSessions::new);
+        if (!sessions.breaker.allowRequest()) {
+            throw circuitOpen(endpoint);
+        }
+        join(sessions.acquire(), endpoint);
+    }
+
+    /**
+     * Call the listener with the endpoint each time a session to it is registered,
+     * whether by a caller, a reconnect or a circuit probe. Called on an I/O thread
+     * before the session is handed out.
+     */
+    public void addSessionListener(Consumer<PlcEndpoint> listener) {
+        sessionListeners.add(listener);
+    }
+
+    /**
+     * Circuit breaker state of the endpoint; CLOSED if it was never used.
+     */
+    public PlcCircuitBreaker.State getCircuitState(PlcEndpoint endpoint) {
+        EndpointSessions sessions = endpoints.get(endpoint);
+        return sessions != null ? sessions.breaker.getState() : PlcCircuitBreaker.State.CLOSED;
+    }
+
+    /**
+     * True if the endpoint has at least one registered session.
+     */
+    public boolean isConnected(PlcEndpoint endpoint) {
+        EndpointSessions sessions = endpoints.get(endpoint);
+        return sessions != null && sessions.hasOpenSession();
+    }
+
+    /**
+     * Unregister and close all sessions to the endpoint.
+     */
+    public void close(PlcEndpoint endpoint) {
+        EndpointSessions sessions = endpoints.remove(endpoint);
+        if (sessions != null) {
+            log.info("Closing EtherNet/IP sessions to {}", endpoint);
+            sessions.closeAll();
+        }
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        reconnector.shutdownNow();
+        endpoints.keySet().forEach(this::close);
+    }
+
+    private <T> CompletableFuture<T> invokeAsync(EndpointSessions sessions, CipService<T> service, int attemptsLeft) {
+        PlcEndpoint endpoint = sessions.endpoint;
+
+        CompletableFuture<T> attempt = sessions.acquire().thenCompose(client -> client.invokeUnconnected(service)
+                .orTimeout(connectionTimeoutMs, TimeUnit.MILLISECONDS)
+                .handle((result, ex) -> {
+                    if (ex == null) {
+                        sessions.breaker.onSuccess();
+                        return result;
+                    }
+                    Throwable cause = unwrap(ex);
+                    if (cause instanceof CipResponseException) {
+                        // The PLC answered; the session and the circuit are fine
+                        sessions.breaker.onSuccess();
+                        metrics.requestFailed(endpoint, "cip-error");
+                        throw new PlcCommunicationException("CIP error from " + endpoint + ": " + cause.getMessage(), cause);
+                    }
+                    sessions.invalidate(client);
+                    sessions.recordFailure();
+                    if (cause instanceof TimeoutException) {
+                        metrics.requestFailed(endpoint, "timeout");
+                        throw new PlcCommunicationException("Request to " + endpoint + " timed out after " + connectionTimeoutMs + " ms", cause);
+                    }
+                    metrics.requestFailed(endpoint, "transport");
+                    throw new PlcCommunicationException("Request to " + endpoint + " failed", cause);
+                }));
+
+        if (attemptsLeft <= 1) {
+            return attempt;
+        }
+        return attempt.exceptionallyCompose(ex -> {
+            Throwable cause = unwrap(ex);
+            if (isRetryable(cause) && sessions.breaker.allowRequest()) {
+                log.debug("Retrying request to {} on another session: {}", endpoint, cause.getMessage());
+                return invokeAsync(sessions, service, attemptsLeft - 1);
+            }
+            return CompletableFuture.failedFuture(cause);
+        });
+    }
+
+    /**
+     * Only broken-session failures are retried: a timeout has used the
+     * caller's budget, and a CIP error reply would be answered the same again.
+     */
+    private static boolean isRetryable(Throwable failure) {
+        Throwable cause = failure.getCause();
+        return failure instanceof PlcCommunicationException
+                && cause != null
+                && !(cause instanceof CipResponseException)
+                && !(cause instanceof TimeoutException)
+                && !(cause instanceof PlcCommunicationException);
+    }
+
+    private void notifySessionListeners(PlcEndpoint endpoint) {
+        for (Consumer<PlcEndpoint> listener : sessionListeners) {
+            try {
+                listener.accept(endpoint);
+            } catch (RuntimeException e) {
+                log.error("Session listener failed for {}", endpoint, e);
+            }
+        }
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    private static PlcCommunicationException circuitOpen(PlcEndpoint endpoint) {
+        return new PlcCommunicationException("Circuit open for " + endpoint + ", PLC unreachable");
+    }
+
+    private static <T> T join(CompletableFuture<T> future, PlcEndpoint endpoint) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof PlcCommunicationException) {
+                throw (PlcCommunicationException) e.getCause();
+            }
+            throw new PlcCommunicationException("Request to " + endpoint + " failed", e.getCause());
+        }
+    }
+
+    private CipClient createClient(PlcEndpoint endpoint) {
+        EtherNetIpClientConfig config = EtherNetIpClientConfig.builder(endpoint.getHost())
+                .setPort(endpoint.getPort())
+                .setVendorId(0)
+                .setSerialNumber(0)
+                .setTimeout(Duration.ofMillis(connectionTimeoutMs))
+                .build();
+
+        PaddedEPath connectionPath = new PaddedEPath(
+                new PortSegment(1, new byte[]{(byte) backplaneSlot}));
+
+        return new CipClient(config, connectionPath);
+    }
+
+    /**
+     * Session slots for one endpoint. Slots hold the connect future so that
+     * concurrent callers share one RegisterSession instead of racing.
+     */
+    private class EndpointSessions {
+
+        private final PlcEndpoint endpoint;
+        private final AtomicReferenceArray<CompletableFuture<CipClient>> slots;
+        private final AtomicInteger next = new AtomicInteger();
+        // Sessions registered so far; beyond the slot count they are reconnects
+        private final AtomicInteger registrations = new AtomicInteger();
+        private final PlcCircuitBreaker breaker = new PlcCircuitBreaker(failureThreshold, backoffInitialMs, backoffMaxMs);
+
+        EndpointSessions(PlcEndpoint endpoint) {
+            this.endpoint = endpoint;
+            this.slots = new AtomicReferenceArray<>(Math.max(1, poolSize));
+        }
+
+        void recordFailure() {
+            if (breaker.onFailure()) {
+                metrics.circuitTripped(endpoint);
+                log.warn("Circuit to {} opened after repeated failures; requests fail fast until it answers again", endpoint);
+                scheduleProbe();
+            }
+        }
+
+        private void scheduleProbe() {
+            long delayMs = breaker.nextBackoffMs();
+            log.debug("Probing {} in {} ms", endpoint, delayMs);
+            try {
+                reconnector.schedule(this::probe, delayMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                log.debug("Reconnect probing stopped, pool is shutting down");
+            }
+        }
+
+        /**
+         * Half-open probe: read the PLC's identity on a session, registering one if
+         * the slot has none, and close the circuit only if the PLC answers. A slot may
+         * still hold a session registered before the outage, so a session alone does
+         * not prove the PLC is reachable; a session that does not answer is dropped.
+         */
+        private void probe() {
+            if (!breaker.startProbe()) {
+                return;
+            }
+            acquire().thenCompose(client -> client.invokeUnconnected(new IdentityService())
+                            .orTimeout(connectionTimeoutMs, TimeUnit.MILLISECONDS)
+                            .handle((vendorId, ex) -> {
+                                if (ex != null && !(unwrap(ex) instanceof CipResponseException)) {
+                                    invalidate(client);
+                                    throw new PlcCommunicationException("Probe of " + endpoint + " failed", unwrap(ex));
+                                }
+                                // Any reply, even a CIP error, is a round trip to the PLC
+                                return client;
+                            }))
+                    .whenComplete((client, ex) -> {
+                        if (ex == null) {
+                            breaker.probeSucceeded();
+                            log.info("Circuit to {} closed, PLC reachable again", endpoint);
+                        } else {
+                            log.debug("Probe of {} failed: {}", endpoint, unwrap(ex).getMessage());
+                            breaker.probeFailed();
+                            scheduleProbe();
+                        }
+                    });
+        }
+
+        /**
+         * Session of the next slot, registering it first if needed.
+         * Completes exceptionally with a {@link PlcCommunicationException}.
+         */
+        CompletableFuture<CipClient> acquire() {
+            int index = Math.floorMod(next.getAndIncrement(), slots.length());
+            CompletableFuture<CipClient> session = slots.get(index);
+
+            if (session == null || session.isCompletedExceptionally()) {
+                CompletableFuture<CipClient> fresh = new CompletableFuture<>();
+                if (slots.compareAndSet(index, session, fresh)) {
+                    open(index, fresh);
+                    session = fresh;
+                } else {
+                    session = slots.get(index);
+                    if (session == null) {
+                        return acquire();
+                    }
+                }
+            }
+
+            CompletableFuture<CipClient> registering = session;
+            if (registering.isDone() && !registering.isCompletedExceptionally()) {
+                return registering;
+            }
+            // Time out this caller only; the shared slot future is left to the connect attempt
+            return registering.copy()
+                    .orTimeout(connectionTimeoutMs, TimeUnit.MILLISECONDS)
+                    .handle((client, ex) -> {
+                        if (ex == null) {
+                            return client;
+                        }
+                        if (slots.compareAndSet(index, registering, null)) {
+                            // Should the registration still succeed, its session is not in the pool
+                            registering.thenAccept(client -> client.disconnect());
+                        }
+                        if (breaker.getState() == PlcCircuitBreaker.State.CLOSED) {
+                            recordFailure();
+                        }
+                        throw new PlcCommunicationException("Unable to register session with " + endpoint, ex);
+                    });
+        }
+
+        boolean hasOpenSession() {
+            for (int i = 0; i < slots.length(); i++) {
+                CompletableFuture<CipClient> session = slots.get(i);
+                if (session != null && session.isDone() && !session.isCompletedExceptionally()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void invalidate(CipClient client) {
+            for (int i = 0; i < slots.length(); i++) {
+                CompletableFuture<CipClient> session = slots.get(i);
+                if (session != null && session.isDone() && !session.isCompletedExceptionally()
+                        && session.join() == client && slots.compareAndSet(i, session, null)) {
+                    log.warn("Dropping EtherNet/IP session {} to {}", i, endpoint);
+                    client.disconnect();
+                }
+            }
+        }
+
+        void closeAll() {
+            for (int i = 0; i < slots.length(); i++) {
+                CompletableFuture<CipClient> session = slots.getAndSet(i, null);
+                if (session != null) {
+                    session.thenAccept(client -> client.disconnect());
+                }
+            }
+        }
+
+        private void open(int index, CompletableFuture<CipClient> future) {
+            log.info("Registering EtherNet/IP session with {}", endpoint);
+            CipClient client = createClient(endpoint);
+
+            boolean reconnect = registrations.getAndIncrement() >= slots.length();
+            client.connect().whenComplete((connected, ex) -> {
+                if (reconnect) {
+                    metrics.reconnected(endpoint, ex == null);
+                }
+                if (ex != null) {
+                    log.warn("RegisterSession with {} failed: {}", endpoint, ex.getMessage());
+                    client.disconnect();
+                    future.completeExceptionally(ex);
+                } else if (slots.get(index) != future) {
+                    // The registration wait timed out or the pool was closed meanwhile
+                    log.info("EtherNet/IP session with {} registered after it was given up, disconnecting", endpoint);
+                    client.disconnect();
+                    future.completeExceptionally(new PlcCommunicationException(
+                            "Session with " + endpoint + " registered after it was given up"));
+                } else {
+                    log.info("EtherNet/IP session registered with {}", endpoint);
+                    notifySessionListeners(endpoint);
+                    future.complete(client);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.plc.recipe.plc;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Runs asynchronous PLC commands one after another per key, and commands of
+ * different keys concurrently.
+ *
+ * - A command is issued when the previous command of its key has completed,
+ *   successfully or not; no thread waits in between
+ * - Commands of one key are issued in submission order
+ * - Only keys with commands in flight are kept: the map holds the tail of each
+ *   key's chain and the tail removes itself when it completes
+ */
+public class SerialCommandQueue<K> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<?>> tails = new ConcurrentHashMap<>();
+
+    /**
+     * Queue a command behind the commands already submitted for its key
+     *
+     * @param command issues the request; called once, on the submitting thread if the
+     *                key is idle, else on the thread that completed the previous command
+     * @return completes with the command's result
+     */
+    public <T> CompletableFuture<T> submit(K key, Supplier<CompletableFuture<T>> command) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        CompletableFuture<?> previous = tails.put(key, result);
+
+        if (previous == null) {
+            issue(command, result);
+        } else {
+            previous.whenComplete((ignored, ex) -> issue(command, result));
+        }
+        result.whenComplete((ignored, ex) -> tails.remove(key, result));
+        return result;
+    }
+
+    /**
+     * Number of keys with commands queued or in flight
+     */
+    public int activeKeys() {
+        return tails.size();
+    }
+
+    private static <T> void issue(Supplier<CompletableFuture<T>> command, CompletableFuture<T> result) {
+        CompletableFuture<T> request;
+        try {
+            request = command.get();
+        } catch (RuntimeException e) {
+            request = CompletableFuture.failedFuture(e);
+        }
+        request.whenComplete((value, ex) -> {
+            if (ex != null) {
+                result.completeExceptionally(ex);
+            } else {
+                result.complete(value);
+            }
+        });
+    }
+}
@@ -0,0 +1,31 @@
+package com.plc.recipe.plc;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.function.Consumer;
+
+/**
+ * Set_Attribute_Single (0x10) on an Assembly data attribute.
+ * The encoder writes the complete assembly image.
+ */
+public class SetAssemblyDataService extends AssemblyService<Void> {
+
+    public static final int SERVICE_CODE = 0x10;
+
+    private final Consumer<ByteBuf> encoder;
+
+    public SetAssemblyDataService(int instance, Consumer<ByteBuf> encoder) {
+        super(SERVICE_CODE, instance);
+        this.encoder = encoder;
+    }
+
+    @Override
+    protected void encodeRequestData(ByteBuf buffer) {
+        encoder.accept(buffer);
+    }
+
+    @Override
+    protected Void decodeResponseData(ByteBuf buffer) {
+        return null;
+    }
+}
@@ -0,0 +1,78 @@
+package com.plc.recipe.plc;
+
+import com.plc.recipe.codec.AssemblyLayout;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latest Assembly 100 image per batch, fed by a single writer thread.
+ *
+ * Each batch owns a fixed slot guarded by a sequence lock: the writer bumps
+ * the sequence to odd, copies the image, bumps it to even; readers copy and
+ * retry if the sequence moved. Readers never block and, once a batch has a
+ * slot, neither side allocates.
+ */
+public class StatusSnapshots {
+
+    private final ConcurrentHashMap<Integer, Slot> slots = new ConcurrentHashMap<>();
+
+    /**
+     * Store an image. Must only be called from one thread.
+     */
+    public void publish(int batchId, ByteBuffer source, int offset, long nanoTime) {
+        Slot slot = slots.computeIfAbsent(batchId, id -> new Slot());
+        long sequence = slot.sequence;
+        slot.sequence = sequence + 1;
+        VarHandle.storeStoreFence();
+        source.get(offset, slot.image);
+        slot.updatedAt = nanoTime;
+        slot.sequence = sequence + 2;
+    }
+
+    /**
+     * Copy the latest image of the batch into {@code target} (offset 0).
+     *
+     * @return false if there is no image, or it is older than maxAgeNanos
+     */
+    public boolean copyLatest(int batchId, ByteBuffer target, long maxAgeNanos) {
+        Slot slot = slots.get(batchId);
+        if (slot == null) {
+            return false;
+        }
+
+        while (true) {
+            long before = slot.sequence;
+            if ((before & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            long updatedAt = slot.updatedAt;
+            target.put(0, slot.image);
+            VarHandle.loadLoadFence();
+            if (slot.sequence == before) {
+                return System.nanoTime() - updatedAt <= maxAgeNanos;
+            }
+        }
+    }
+
+    /**
+     * Drop slots that have not been updated within maxAgeNanos
+     * (batches no longer reported by any connection).
+     */
+    public void evictOlderThan(long maxAgeNanos) {
+        long now = System.nanoTime();
+        slots.values().removeIf(slot -> now - slot.updatedAt > maxAgeNanos);
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    private static final class Slot {
+        volatile long sequence;
+        volatile long updatedAt;
+        final byte[] image = new byte[AssemblyLayout.STATUS_SIZE];
+    }
+}
@@ -0,0 +1,24 @@
+package com.plc.recipe.repository;
+
+import com.plc.recipe.entity.BatchHistoryChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BatchHistoryChunkRepository extends JpaRepository<BatchHistoryChunk, Long> {
+
+    @Query("SELECT c FROM BatchHistoryChunk c WHERE c.batchRunId = :batchRunId " +
+            "AND c.endTime >= :from AND c.startTime <= :to ORDER BY c.startTime")
+    List<BatchHistoryChunk> findOverlapping(@Param("batchRunId") Long batchRunId,
+                                            @Param("from") long from,
+                                            @Param("to") long to);
+
+    @Modifying
+    @Query("DELETE FROM BatchHistoryChunk c WHERE c.batchRunId = :batchRunId")
+    void deleteByBatchRunId(@Param("batchRunId") Long batchRunId);
+}
@@ -2,17 +2,36 @@ package com.plc.recipe.repository;
 
 import com.plc.recipe.entity.BatchRun;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface BatchRunRepository extends JpaRepository<BatchRun, Long> {
+public interface BatchRunRepository extends JpaRepository<BatchRun, Long>, BatchRunRepositoryCustom {
 
     Optional<BatchRun> findByBatchNumber(String batchNumber);
 
+    /**
+     * The given batch numbers that are already taken, in one query
+     */
+    @Query("SELECT b.batchNumber FROM BatchRun b WHERE b.batchNumber IN :batchNumbers")
+    List<String> findExistingBatchNumbers(@Param("batchNumbers") Collection<String> batchNumbers);
+
     List<BatchRun> findByRecipeIdOrderByStartedAtDesc(Long recipeId);
 
-    List<BatchRun> findByStatusOrderByStartedAtDesc(String status);
+    List<BatchRun> findByStatusOrderByStartedAtDesc(BatchRun.BatchStatus status);
+
+    /**
+     * Batches with the status on a line; {@code includeUnassigned} also
+     * matches batches without a line (they run on the default line).
+     */
+    @Query("SELECT b FROM BatchRun b WHERE b.status = :status " +
+            "AND (b.line = :line OR (:includeUnassigned = true AND b.line IS NULL))")
+    List<BatchRun> findByStatusAndLine(@Param("status") BatchRun.BatchStatus status,
+                                       @Param("line") String line,
+                                       @Param("includeUnassigned") boolean includeUnassigned);
 }
@@ -0,0 +1,18 @@
+package com.plc.recipe.repository;
+
+import com.plc.recipe.entity.BatchRun;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BatchRunRepositoryCustom {
+
+    /**
+     * Keyset page of batch runs, newest first. Null filters are left out of the
+     * query; a null {@code afterStartedAt} starts at the first page.
+     * At most {@code limit} rows are read; no count query is run.
+     */
+    List<BatchRun> findPage(BatchRun.BatchStatus status, Long recipeId, String operatorName, String line,
+                            LocalDateTime from, LocalDateTime to,
+                            LocalDateTime afterStartedAt, Long afterId, int limit);
+}
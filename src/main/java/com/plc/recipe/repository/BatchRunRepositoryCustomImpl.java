@@ -0,0 +1,68 @@
+package com.plc.recipe.repository;
+
+import com.plc.recipe.entity.BatchRun;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the page query from the filters that are set, so each filter is a plain
+ * predicate the planner can match to an index: (status, started_at), (recipe_id,
+ * started_at) or (line, status). "(:x IS NULL OR ...)" predicates in a fixed
+ * query hide the indexed columns from it.
+ */
+class BatchRunRepositoryCustomImpl implements BatchRunRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<BatchRun> findPage(BatchRun.BatchStatus status, Long recipeId, String operatorName, String line,
+                                   LocalDateTime from, LocalDateTime to,
+                                   LocalDateTime afterStartedAt, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BatchRun> query = cb.createQuery(BatchRun.class);
+        Root<BatchRun> b = query.from(BatchRun.class);
+
+        List<Predicate> where = new ArrayList<>();
+        if (status != null) {
+            where.add(cb.equal(b.get("status"), status));
+        }
+        if (recipeId != null) {
+            where.add(cb.equal(b.get("recipe").get("id"), recipeId));
+        }
+        if (operatorName != null) {
+            where.add(cb.equal(b.get("operatorName"), operatorName));
+        }
+        if (line != null) {
+            where.add(cb.equal(b.get("line"), line));
+        }
+        if (from != null) {
+            where.add(cb.greaterThanOrEqualTo(b.<LocalDateTime>get("startedAt"), from));
+        }
+        if (to != null) {
+            where.add(cb.lessThan(b.<LocalDateTime>get("startedAt"), to));
+        }
+        if (afterStartedAt != null) {
+            // startedAt <= after bounds the index range scan; the OR only breaks ties on id
+            where.add(cb.lessThanOrEqualTo(b.<LocalDateTime>get("startedAt"), afterStartedAt));
+            where.add(cb.or(
+                    cb.lessThan(b.<LocalDateTime>get("startedAt"), afterStartedAt),
+                    cb.lessThan(b.<Long>get("id"), afterId)));
+        }
+
+        query.select(b)
+                .where(where.toArray(new Predicate[0]))
+                .orderBy(cb.desc(b.get("startedAt")), cb.desc(b.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
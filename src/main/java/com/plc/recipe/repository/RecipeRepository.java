@@ -1,6 +1,7 @@
 package com.plc.recipe.repository;
 
 import com.plc.recipe.entity.Recipe;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -8,11 +9,15 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface RecipeRepository extends JpaRepository<Recipe, Long> {
+public interface RecipeRepository extends JpaRepository<Recipe, Long>, RecipeRepositoryCustom {
 
     Optional<Recipe> findByName(String name);
 
     List<Recipe> findByIsActiveTrue();
 
+    @EntityGraph(attributePaths = "ingredients")
     List<Recipe> findByIsActiveTrueOrderByNameAsc();
+
+    @EntityGraph(attributePaths = "ingredients")
+    Optional<Recipe> findWithIngredientsById(Long id);
 }
@@ -0,0 +1,16 @@
+package com.plc.recipe.repository;
+
+import com.plc.recipe.entity.Recipe;
+
+import java.util.List;
+
+public interface RecipeRepositoryCustom {
+
+    /**
+     * Keyset page of recipes by name. Null filters are left out of the query;
+     * a null {@code afterName} starts at the first page. Ingredients are not
+     * fetch-joined here (that would paginate in memory); they load through the
+     * batch fetch size. At most {@code limit} rows are read; no count query is run.
+     */
+    List<Recipe> findPage(Boolean active, String name, String afterName, Long afterId, int limit);
+}
@@ -0,0 +1,52 @@
+package com.plc.recipe.repository;
+
+import com.plc.recipe.entity.Recipe;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the page query from the filters that are set, like
+ * {@link BatchRunRepositoryCustomImpl}, so a later page seeks on the unique
+ * name index instead of evaluating "(:x IS NULL OR ...)" on every row.
+ */
+class RecipeRepositoryCustomImpl implements RecipeRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Recipe> findPage(Boolean active, String name, String afterName, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Recipe> query = cb.createQuery(Recipe.class);
+        Root<Recipe> r = query.from(Recipe.class);
+
+        List<Predicate> where = new ArrayList<>();
+        if (active != null) {
+            where.add(cb.equal(r.get("isActive"), active));
+        }
+        if (name != null) {
+            where.add(cb.like(cb.lower(r.get("name")), "%" + name.toLowerCase() + "%"));
+        }
+        if (afterName != null) {
+            // name >= after bounds the index range scan; the OR only breaks ties on id
+            where.add(cb.greaterThanOrEqualTo(r.<String>get("name"), afterName));
+            where.add(cb.or(
+                    cb.greaterThan(r.<String>get("name"), afterName),
+                    cb.greaterThan(r.<Long>get("id"), afterId)));
+        }
+
+        query.select(r)
+                .where(where.toArray(new Predicate[0]))
+                .orderBy(cb.asc(r.get("name")), cb.asc(r.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
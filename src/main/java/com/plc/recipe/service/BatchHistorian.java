@@ -0,0 +1,272 @@
+package com.plc.recipe.service;
+
+import com.plc.recipe.codec.AssemblyLayout;
+import com.plc.recipe.dto.BatchHistoryPointDTO;
+import com.plc.recipe.dto.BatchProgressDTO;
+import com.plc.recipe.entity.BatchHistoryChunk;
+import com.plc.recipe.entity.BatchRun;
+import com.plc.recipe.historian.ChunkDecoder;
+import com.plc.recipe.historian.ChunkEncoder;
+import com.plc.recipe.historian.HistorySample;
+import com.plc.recipe.repository.BatchHistoryChunkRepository;
+import com.plc.recipe.repository.BatchRunRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Progress historian: keeps every polled progress sample per batch.
+ *
+ * - Samples go into an in-memory compressed chunk per batch
+ *   ({@link ChunkEncoder}: delta-of-delta timestamps, XOR floats)
+ * - A chunk is sealed when it crosses a time partition boundary or the batch
+ *   is no longer running; sealed chunks are inserted append-only in one
+ *   JDBC batch per flush
+ * - Range queries decode the overlapping chunks and downsample on read
+ *
+ * The sample rate follows app.progress.poll-interval-ms; with implicit I/O
+ * enabled a 100 ms poll is a memory copy per batch.
+ */
+@Service
+@Slf4j
+public class BatchHistorian {
+
+    @Value("${app.historian.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.historian.partition-ms:600000}")
+    private long partitionMs;
+
+    @Value("${app.historian.max-points:1000}")
+    private int maxPoints;
+
+    private static final int INITIAL_CHUNK_BYTES = 256;
+    private static final String INSERT_CHUNK =
+            "INSERT INTO batch_history_chunks (batch_run_id, start_time, end_time, sample_count, data) VALUES (?, ?, ?, ?, ?)";
+
+    private final BatchHistoryChunkRepository chunkRepository;
+    private final BatchRunRepository batchRunRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentHashMap<Long, OpenChunk> openChunks = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<BatchHistoryChunk> sealedChunks = new ConcurrentLinkedQueue<>();
+
+    public BatchHistorian(BatchHistoryChunkRepository chunkRepository, BatchRunRepository batchRunRepository,
+                          JdbcTemplate jdbcTemplate) {
+        this.chunkRepository = chunkRepository;
+        this.batchRunRepository = batchRunRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Record one poll of all running batches. Open chunks of batches missing
+     * from {@code progress} are sealed.
+     */
+    public void record(Collection<BatchProgressDTO> progress, long timestampMillis) {
+        if (!enabled) {
+            return;
+        }
+
+        long partition = timestampMillis / partitionMs;
+        Set<Long> polled = new HashSet<>();
+
+        for (BatchProgressDTO sample : progress) {
+            polled.add(sample.getId());
+            openChunks.compute(sample.getId(), (id, chunk) -> {
+                if (chunk != null && chunk.partition != partition) {
+                    seal(chunk);
+                    chunk = null;
+                }
+                if (chunk == null) {
+                    chunk = new OpenChunk(id, partition);
+                }
+                chunk.append(timestampMillis, sample);
+                return chunk;
+            });
+        }
+
+        openChunks.keySet().removeIf(id -> {
+            if (polled.contains(id)) {
+                return false;
+            }
+            OpenChunk chunk = openChunks.get(id);
+            if (chunk != null) {
+                seal(chunk);
+            }
+            return true;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.historian.flush-interval-ms:5000}")
+    public void flush() {
+        List<BatchHistoryChunk> batch = new ArrayList<>();
+        BatchHistoryChunk chunk;
+        while ((chunk = sealedChunks.poll()) != null) {
+            batch.add(chunk);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(INSERT_CHUNK, batch, batch.size(), (ps, c) -> {
+                ps.setLong(1, c.getBatchRunId());
+                ps.setLong(2, c.getStartTime());
+                ps.setLong(3, c.getEndTime());
+                ps.setInt(4, c.getSampleCount());
+                ps.setBytes(5, c.getData());
+            });
+            log.debug("Flushed {} history chunks", batch.size());
+        } catch (Exception e) {
+            log.error("Failed to flush history chunks, will retry", e);
+            sealedChunks.addAll(batch);
+        }
+    }
+
+    /**
+     * Progress history of a batch between {@code from} and {@code to}.
+     * Each returned point is the last sample in its {@code stepMillis} window;
+     * without a step the range is split into at most app.historian.max-points windows.
+     */
+    @Transactional(readOnly = true)
+    public List<BatchHistoryPointDTO> getHistory(Long batchRunId, LocalDateTime from, LocalDateTime to, Long stepMillis) {
+        BatchRun batchRun = batchRunRepository.findById(batchRunId)
+                .orElseThrow(() -> new IllegalArgumentException("Batch run not found with ID: " + batchRunId));
+
+        long fromMillis = toMillis(from != null ? from : batchRun.getStartedAt());
+        long toMillis = to != null ? toMillis(to)
+                : batchRun.getCompletedAt() != null ? toMillis(batchRun.getCompletedAt()) : System.currentTimeMillis();
+        if (toMillis < fromMillis) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        long step = stepMillis != null && stepMillis > 0
+                ? stepMillis : Math.max(1, (toMillis - fromMillis) / Math.max(1, maxPoints) + 1);
+
+        List<HistorySample> samples = new ArrayList<>();
+        for (BatchHistoryChunk chunk : chunkRepository.findOverlapping(batchRunId, fromMillis, toMillis)) {
+            samples.addAll(ChunkDecoder.decode(chunk.getData(), chunk.getSampleCount()));
+        }
+        for (BatchHistoryChunk chunk : sealedChunks) {
+            if (chunk.getBatchRunId().equals(batchRunId)) {
+                samples.addAll(ChunkDecoder.decode(chunk.getData(), chunk.getSampleCount()));
+            }
+        }
+        OpenChunk open = openChunks.get(batchRunId);
+        if (open != null) {
+            samples.addAll(open.decode());
+        }
+        samples.sort(Comparator.comparingLong(s -> s.timestampMillis));
+
+        List<BatchHistoryPointDTO> points = new ArrayList<>();
+        long lastBucket = -1;
+        long lastTimestamp = Long.MIN_VALUE;
+        for (HistorySample sample : samples) {
+            if (sample.timestampMillis < fromMillis || sample.timestampMillis > toMillis
+                    || sample.timestampMillis == lastTimestamp) {
+                continue;
+            }
+            long bucket = (sample.timestampMillis - fromMillis) / step;
+            if (bucket == lastBucket) {
+                points.set(points.size() - 1, toPoint(sample));
+            } else {
+                points.add(toPoint(sample));
+                lastBucket = bucket;
+            }
+            lastTimestamp = sample.timestampMillis;
+        }
+        return points;
+    }
+
+    /**
+     * Drop the history of a deleted batch.
+     */
+    @Transactional
+    public void delete(Long batchRunId) {
+        openChunks.remove(batchRunId);
+        sealedChunks.removeIf(chunk -> chunk.getBatchRunId().equals(batchRunId));
+        chunkRepository.deleteByBatchRunId(batchRunId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        openChunks.values().forEach(this::seal);
+        openChunks.clear();
+        flush();
+    }
+
+    private void seal(OpenChunk chunk) {
+        BatchHistoryChunk sealed = chunk.toEntity();
+        if (sealed != null) {
+            sealedChunks.add(sealed);
+        }
+    }
+
+    private static BatchHistoryPointDTO toPoint(HistorySample sample) {
+        return BatchHistoryPointDTO.builder()
+                .timestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(sample.timestampMillis), ZoneId.systemDefault()))
+                .currentQuantity(sample.quantity)
+                .progressPercentage(sample.percentage)
+                .elapsedSeconds(sample.elapsedSeconds)
+                .status(AssemblyLayout.statusName(sample.status))
+                .build();
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Chunk still receiving samples; encoder access is synchronized on the chunk.
+     */
+    private static class OpenChunk {
+        private final Long batchRunId;
+        private final long partition;
+        private final ChunkEncoder encoder = new ChunkEncoder(INITIAL_CHUNK_BYTES);
+
+        OpenChunk(Long batchRunId, long partition) {
+            this.batchRunId = batchRunId;
+            this.partition = partition;
+        }
+
+        synchronized void append(long timestampMillis, BatchProgressDTO sample) {
+            encoder.append(timestampMillis,
+                    sample.getCurrentQuantity() != null ? sample.getCurrentQuantity() : 0.0,
+                    sample.getProgressPercentage() != null ? sample.getProgressPercentage() : 0.0,
+                    sample.getElapsedSeconds() != null ? sample.getElapsedSeconds() : 0,
+                    AssemblyLayout.statusCode(sample.getStatus()));
+        }
+
+        synchronized List<HistorySample> decode() {
+            return ChunkDecoder.decode(encoder.toByteArray(), encoder.getSampleCount());
+        }
+
+        synchronized BatchHistoryChunk toEntity() {
+            if (encoder.getSampleCount() == 0) {
+                return null;
+            }
+            return BatchHistoryChunk.builder()
+                    .batchRunId(batchRunId)
+                    .startTime(encoder.getFirstTimestamp())
+                    .endTime(encoder.getLastTimestamp())
+                    .sampleCount(encoder.getSampleCount())
+                    .data(encoder.toByteArray())
+                    .build();
+        }
+    }
+}
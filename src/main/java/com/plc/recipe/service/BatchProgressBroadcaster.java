@@ -0,0 +1,322 @@
+package com.plc.recipe.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.plc.recipe.dto.BatchProgressDTO;
+import com.plc.recipe.dto.BatchProgressDeltaDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shared fan-out of batch progress changes to SSE and WebSocket clients.
+ *
+ * - The poller publishes each poll; only changed snapshots and removed
+ *   batches are sent, serialized once for all clients
+ * - Each client has a bounded queue drained by a small shared dispatcher
+ *   pool, so no servlet thread is held per client
+ * - A client whose queue overflows is disconnected (slow-consumer drop);
+ *   it can reconnect and receives a full snapshot on subscribe
+ * - Sends are blocking writes, so a client that has not accepted a message
+ *   within app.progress.stream.send-time-limit-ms is disconnected too; closing
+ *   its connection fails the stuck write and frees the dispatcher thread
+ */
+@Component
+@Slf4j
+public class BatchProgressBroadcaster {
+
+    @Value("${app.progress.stream.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Value("${app.progress.stream.max-clients:1000}")
+    private int maxClients;
+
+    @Value("${app.progress.stream.timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${app.progress.stream.send-time-limit-ms:5000}")
+    private int sendTimeLimitMs;
+
+    private static final int WEBSOCKET_BUFFER_LIMIT = 256 * 1024;
+
+    private final ObjectMapper objectMapper;
+    private final BatchProgressCache progressCache;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService dispatcher = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2), r -> {
+                Thread thread = new Thread(r, "progress-stream");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    // Last snapshot sent per batch; only touched by the publishing (poller) thread
+    private final Map<Long, BatchProgressDTO> lastPublished = new HashMap<>();
+
+    // Orders a new client's snapshot against deltas: a lock rather than synchronized
+    // so a waiting virtual thread does not pin its carrier thread
+    private final ReentrantLock fanOutLock = new ReentrantLock();
+
+    public BatchProgressBroadcaster(ObjectMapper objectMapper, BatchProgressCache progressCache) {
+        this.objectMapper = objectMapper;
+        this.progressCache = progressCache;
+    }
+
+    /**
+     * Register an SSE client. The emitter is returned to Spring MVC, which
+     * completes the request asynchronously.
+     */
+    public SseEmitter subscribeSse() {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        SseSubscriber subscriber = new SseSubscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> drop(subscriber, "timeout"));
+        emitter.onError(e -> drop(subscriber, "error"));
+        register(subscriber);
+        return emitter;
+    }
+
+    public void subscribeWebSocket(WebSocketSession session) {
+        register(new WebSocketSubscriber(session));
+    }
+
+    public void unsubscribeWebSocket(WebSocketSession session) {
+        subscribers.removeIf(s -> s instanceof WebSocketSubscriber && ((WebSocketSubscriber) s).id.equals(session.getId()));
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Publish the result of one poll to all clients as a delta.
+     */
+    public void publish(Collection<BatchProgressDTO> progress) {
+        List<BatchProgressDTO> updated = new ArrayList<>();
+        Set<Long> current = new HashSet<>();
+
+        for (BatchProgressDTO snapshot : progress) {
+            current.add(snapshot.getId());
+            if (!Objects.equals(lastPublished.put(snapshot.getId(), snapshot), snapshot)) {
+                updated.add(snapshot);
+            }
+        }
+
+        List<Long> removed = new ArrayList<>();
+        lastPublished.keySet().removeIf(id -> {
+            if (!current.contains(id)) {
+                removed.add(id);
+                return true;
+            }
+            return false;
+        });
+
+        if ((updated.isEmpty() && removed.isEmpty()) || subscribers.isEmpty()) {
+            return;
+        }
+
+        String message = serialize(new BatchProgressDeltaDTO(updated, removed));
+        if (message != null) {
+            fanOutLock.lock();
+            try {
+                subscribers.forEach(subscriber -> enqueue(subscriber, message));
+            } finally {
+                fanOutLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Keep idle SSE connections alive through proxies and detect dead clients.
+     */
+    @Scheduled(fixedRateString = "${app.progress.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscribers.forEach(subscriber -> {
+            if (subscriber instanceof SseSubscriber) {
+                enqueue(subscriber, null);
+            }
+        });
+    }
+
+    /**
+     * Disconnect clients stuck in one send for longer than the send time limit.
+     * The dispatcher threads are shared, so a few unresponsive clients would
+     * otherwise hold up delivery to everyone.
+     */
+    @Scheduled(fixedRateString = "${app.progress.stream.send-check-ms:1000}")
+    public void checkSendTimeLimit() {
+        long now = System.nanoTime();
+        long limit = TimeUnit.MILLISECONDS.toNanos(sendTimeLimitMs);
+        subscribers.forEach(subscriber -> {
+            long startedAt = subscriber.sendStartedAt;
+            if (startedAt != 0 && now - startedAt > limit) {
+                drop(subscriber, "send time limit exceeded");
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(Subscriber::close);
+        subscribers.clear();
+        dispatcher.shutdownNow();
+    }
+
+    private void register(Subscriber subscriber) {
+        if (subscribers.size() >= maxClients) {
+            log.warn("Progress stream client limit ({}) reached, rejecting client", maxClients);
+            subscriber.close();
+            return;
+        }
+
+        // The snapshot is queued before the client can receive deltas, and no delta is
+        // fanned out between reading the cache and adding the client
+        fanOutLock.lock();
+        try {
+            String snapshot = serialize(new BatchProgressDeltaDTO(progressCache.getAll(), List.of()));
+            if (snapshot != null) {
+                enqueue(subscriber, snapshot);
+            }
+            subscribers.add(subscriber);
+        } finally {
+            fanOutLock.unlock();
+        }
+        log.info("Progress stream client connected ({} total)", subscribers.size());
+    }
+
+    private void enqueue(Subscriber subscriber, String message) {
+        if (!subscriber.queue.offer(message != null ? message : Subscriber.HEARTBEAT)) {
+            drop(subscriber, "slow consumer");
+            return;
+        }
+        if (subscriber.draining.compareAndSet(false, true)) {
+            dispatcher.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            String message;
+            while ((message = subscriber.queue.poll()) != null) {
+                subscriber.sendStartedAt = System.nanoTime();
+                subscriber.send(message);
+                subscriber.sendStartedAt = 0;
+            }
+        } catch (Exception e) {
+            drop(subscriber, e.getMessage());
+            return;
+        } finally {
+            subscriber.sendStartedAt = 0;
+            subscriber.draining.set(false);
+        }
+
+        // A message may have been queued after the last poll but before the flag was cleared
+        if (!subscriber.queue.isEmpty() && subscriber.draining.compareAndSet(false, true)) {
+            dispatcher.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drop(Subscriber subscriber, String reason) {
+        if (subscribers.remove(subscriber)) {
+            log.info("Progress stream client dropped: {}", reason);
+            subscriber.queue.clear();
+            subscriber.close();
+        }
+    }
+
+    private String serialize(BatchProgressDeltaDTO delta) {
+        try {
+            return objectMapper.writeValueAsString(delta);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize progress delta", e);
+            return null;
+        }
+    }
+
+    private abstract class Subscriber {
+        static final String HEARTBEAT = "";
+
+        final ArrayBlockingQueue<String> queue = new ArrayBlockingQueue<>(queueCapacity);
+        final AtomicBoolean draining = new AtomicBoolean();
+        // System.nanoTime() when the send in progress started, 0 if none
+        volatile long sendStartedAt;
+
+        abstract void send(String message) throws IOException;
+
+        abstract void close();
+    }
+
+    private class SseSubscriber extends Subscriber {
+        private final SseEmitter emitter;
+
+        SseSubscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        void send(String message) throws IOException {
+            if (message.isEmpty()) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } else {
+                emitter.send(SseEmitter.event().name("progress").data(message, MediaType.APPLICATION_JSON));
+            }
+        }
+
+        @Override
+        void close() {
+            // Also ends a send blocked on the client: completing closes the response
+            emitter.complete();
+        }
+    }
+
+    private class WebSocketSubscriber extends Subscriber {
+        private final String id;
+        private final WebSocketSession session;
+
+        WebSocketSubscriber(WebSocketSession session) {
+            this.id = session.getId();
+            this.session = new ConcurrentWebSocketSessionDecorator(
+                    session, sendTimeLimitMs, WEBSOCKET_BUFFER_LIMIT,
+                    ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE);
+        }
+
+        @Override
+        void send(String message) throws IOException {
+            session.sendMessage(new TextMessage(message));
+        }
+
+        @Override
+        void close() {
+            try {
+                session.close(CloseStatus.POLICY_VIOLATION.withReason("Slow consumer"));
+            } catch (IOException e) {
+                log.debug("Error closing WebSocket session", e);
+            }
+        }
+    }
+}
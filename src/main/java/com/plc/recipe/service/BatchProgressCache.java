@@ -0,0 +1,220 @@
+package com.plc.recipe.service;
+
+import com.plc.recipe.codec.AssemblyLayout;
+import com.plc.recipe.codec.BatchStatusFlyweight;
+import com.plc.recipe.dto.BatchProgressDTO;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latest progress of every RUNNING batch, keyed by batch run ID.
+ *
+ * Each batch owns a fixed {@link Slot} of primitive fields that PLC reads are
+ * decoded into, so a poll allocates nothing per batch once the batch has a slot.
+ * Slots are written only by {@link BatchProgressPoller}; readers get a
+ * {@link BatchProgressDTO} built from a consistent copy of the slot.
+ */
+@Component
+public class BatchProgressCache {
+
+    private final ConcurrentHashMap<Long, Slot> slots = new ConcurrentHashMap<>();
+    private final AtomicLong polls = new AtomicLong();
+
+    private volatile long lastUpdatedMillis;
+
+    public BatchProgressDTO get(Long batchRunId) {
+        Slot slot = slots.get(batchRunId);
+        return slot != null ? slot.toDTO() : null;
+    }
+
+    public List<BatchProgressDTO> getAll() {
+        List<BatchProgressDTO> progress = new ArrayList<>(slots.size());
+        slots.values().forEach(slot -> progress.add(slot.toDTO()));
+        return progress;
+    }
+
+    /**
+     * Slot of a batch, or null if it has none
+     */
+    public Slot slot(Long batchRunId) {
+        return slots.get(batchRunId);
+    }
+
+    /**
+     * Add a slot unless the batch already has one
+     * @return the batch's slot
+     */
+    public Slot add(Slot slot) {
+        Slot existing = slots.putIfAbsent(slot.id, slot);
+        return existing != null ? existing : slot;
+    }
+
+    /**
+     * Number identifying one poll of a line; see {@link #retainPolled}
+     */
+    public long nextPoll() {
+        return polls.incrementAndGet();
+    }
+
+    /**
+     * Drop the slots of a line that the given poll did not include
+     * (batches that are no longer running).
+     */
+    public void retainPolled(String line, long poll) {
+        slots.values().removeIf(slot -> Objects.equals(slot.pollLine, line) && slot.poll != poll);
+        lastUpdatedMillis = System.currentTimeMillis();
+    }
+
+    public void remove(Long batchRunId) {
+        slots.remove(batchRunId);
+    }
+
+    public long getLastUpdatedMillis() {
+        return lastUpdatedMillis;
+    }
+
+    /**
+     * Progress of one batch as primitives.
+     *
+     * A single writer at a time (the poll of the batch's line) updates the values
+     * under a sequence lock, like {@link com.plc.recipe.plc.StatusSnapshots}:
+     * readers copy and retry if the sequence moved, and never block the writer.
+     * Unknown quantities are NaN.
+     */
+    public static final class Slot {
+
+        /** Outcome of the latest read: not read (failed or PLC unreachable) */
+        public static final int NOT_READ = 0;
+        /** Outcome of the latest read: the batch's values were read */
+        public static final int READ = 1;
+        /** Outcome of the latest read: the batch's unit reports another BatchID */
+        public static final int OTHER_BATCH = 2;
+
+        private final Long id;
+        private final String batchNumber;
+        private final String line;
+        private final Double targetQuantity;
+        // Line polled for the batch (the default line's name for batches without a line)
+        private final String pollLine;
+
+        private volatile long sequence;
+        private double currentQuantity = Double.NaN;
+        private int status;
+        private double progressPercentage;
+        private int elapsedSeconds;
+
+        // Only accessed by the poll of the line
+        private long poll;
+        private int outcome;
+
+        public Slot(Long id, String batchNumber, String line, Double targetQuantity, String pollLine) {
+            this.id = id;
+            this.batchNumber = batchNumber;
+            this.line = line;
+            this.targetQuantity = targetQuantity;
+            this.pollLine = pollLine;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getBatchNumber() {
+            return batchNumber;
+        }
+
+        public Double getTargetQuantity() {
+            return targetQuantity;
+        }
+
+        public double currentQuantity() {
+            return currentQuantity;
+        }
+
+        /**
+         * Status code, see {@link AssemblyLayout#statusName(int)}
+         */
+        public int status() {
+            return status;
+        }
+
+        public double progressPercentage() {
+            return progressPercentage;
+        }
+
+        public int elapsedSeconds() {
+            return elapsedSeconds;
+        }
+
+        public int outcome() {
+            return outcome;
+        }
+
+        /**
+         * Include the slot in a poll of its line; its outcome is NOT_READ until a read sets it
+         */
+        public void beginRead(long poll) {
+            this.poll = poll;
+            this.outcome = NOT_READ;
+        }
+
+        /**
+         * Copy the values of an Assembly 100 image reported for this batch
+         */
+        public void read(BatchStatusFlyweight image) {
+            update(image.actualQuantity(), image.status(), image.progressPercentage(), image.elapsedSeconds());
+            outcome = READ;
+        }
+
+        public void otherBatch() {
+            outcome = OTHER_BATCH;
+        }
+
+        /**
+         * Set the values without a read, e.g. from the database
+         */
+        public void update(double currentQuantity, int status, double progressPercentage, int elapsedSeconds) {
+            long before = sequence;
+            sequence = before + 1;
+            VarHandle.storeStoreFence();
+            this.currentQuantity = currentQuantity;
+            this.status = status;
+            this.progressPercentage = progressPercentage;
+            this.elapsedSeconds = elapsedSeconds;
+            sequence = before + 2;
+        }
+
+        BatchProgressDTO toDTO() {
+            while (true) {
+                long before = sequence;
+                if ((before & 1) != 0) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                double quantity = currentQuantity;
+                int statusCode = status;
+                double progress = progressPercentage;
+                int elapsed = elapsedSeconds;
+                VarHandle.loadLoadFence();
+                if (sequence == before) {
+                    return BatchProgressDTO.builder()
+                            .id(id)
+                            .batchNumber(batchNumber)
+                            .line(line)
+                            .targetQuantity(targetQuantity)
+                            .currentQuantity(Double.isNaN(quantity) ? null : quantity)
+                            .status(AssemblyLayout.statusName(statusCode))
+                            .progressPercentage(progress)
+                            .elapsedSeconds(elapsed)
+                            .build();
+                }
+            }
+        }
+    }
+}
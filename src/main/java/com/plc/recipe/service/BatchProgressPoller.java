@@ -0,0 +1,144 @@
+package com.plc.recipe.service;
+
+import com.plc.recipe.dto.BatchProgressDTO;
+import com.plc.recipe.plc.PlcLine;
+import com.plc.recipe.plc.PlcLineRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Single owner of PLC progress reads for RUNNING batches.
+ *
+ * Polls all running batches at a fixed rate (one batched PLC read per line
+ * per tick), decoding into the slots of {@link BatchProgressCache}, then publishes
+ * the cache to the push stream ({@link BatchProgressBroadcaster}) and the
+ * {@link BatchHistorian}. Progress endpoints serve the cache, so PLC traffic does
+ * not depend on the number of clients watching.
+ *
+ * Lines are polled independently: a line whose previous read is still in
+ * flight is skipped, and a tick waits at most app.progress.line-wait-ms for
+ * its reads. A slow or unreachable line keeps its last progress while the
+ * other lines are published on time.
+ *
+ * Gauges per line: batches.running (RUNNING batches at the last read) and
+ * batch.poller.lag (milliseconds since the line was last read).
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "app.progress.poller-enabled", havingValue = "true", matchIfMissing = true)
+public class BatchProgressPoller {
+
+    @Value("${app.progress.line-wait-ms:500}")
+    private long lineWaitMs;
+
+    private final BatchRunService batchRunService;
+    private final BatchProgressCache progressCache;
+    private final BatchProgressBroadcaster broadcaster;
+    private final BatchHistorian historian;
+    private final PlcLineRegistry lineRegistry;
+
+    // RUNNING batches per line at its latest completed read
+    private final ConcurrentHashMap<String, Integer> runningBatches = new ConcurrentHashMap<>();
+    // Lines with a read in flight
+    private final Set<String> polling = ConcurrentHashMap.newKeySet();
+    // Completion time of the latest successful read per line
+    private final ConcurrentHashMap<String, Long> lastReadAt = new ConcurrentHashMap<>();
+
+    public BatchProgressPoller(BatchRunService batchRunService, BatchProgressCache progressCache,
+                               BatchProgressBroadcaster broadcaster, BatchHistorian historian,
+                               PlcLineRegistry lineRegistry, MeterRegistry meterRegistry) {
+        this.batchRunService = batchRunService;
+        this.progressCache = progressCache;
+        this.broadcaster = broadcaster;
+        this.historian = historian;
+        this.lineRegistry = lineRegistry;
+
+        for (PlcLine line : lineRegistry.getLines()) {
+            String name = line.getName();
+            Gauge.builder("batches.running", runningBatches, running -> running.getOrDefault(name, 0))
+                    .description("RUNNING batches of the line at its last progress read")
+                    .tag("line", name)
+                    .register(meterRegistry);
+            Gauge.builder("batch.poller.lag", lastReadAt, readAt -> {
+                        Long at = readAt.get(name);
+                        return at != null ? System.currentTimeMillis() - at : Double.NaN;
+                    })
+                    .description("Time since the line's progress was last read")
+                    .baseUnit("milliseconds")
+                    .tag("line", name)
+                    .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.progress.poll-interval-ms:1000}")
+    public void poll() {
+        try {
+            long polledAt = System.currentTimeMillis();
+            List<CompletableFuture<?>> reads = new ArrayList<>();
+            for (PlcLine line : lineRegistry.getLines()) {
+                CompletableFuture<?> read = pollLine(line.getName());
+                if (read != null) {
+                    reads.add(read);
+                }
+            }
+            awaitReads(reads);
+
+            List<BatchProgressDTO> progress = progressCache.getAll();
+            historian.record(progress, polledAt);
+            broadcaster.publish(progress);
+            log.debug("Polled progress of {} running batches on {} lines", progress.size(), reads.size());
+        } catch (Exception e) {
+            log.error("Error polling batch progress", e);
+        }
+    }
+
+    /**
+     * Start a read of the line unless its previous one is still in flight
+     */
+    private CompletableFuture<?> pollLine(String line) {
+        if (!polling.add(line)) {
+            log.debug("Line {} still busy with the previous poll, keeping its last progress", line);
+            return null;
+        }
+
+        try {
+            return batchRunService.pollRunningBatchesAsync(line).whenComplete((running, ex) -> {
+                if (ex != null) {
+                    log.error("Error polling batch progress of line {}", line, ex);
+                } else {
+                    runningBatches.put(line, running);
+                    lastReadAt.put(line, System.currentTimeMillis());
+                }
+                polling.remove(line);
+            });
+        } catch (Exception e) {
+            polling.remove(line);
+            log.error("Error polling batch progress of line {}", line, e);
+            return null;
+        }
+    }
+
+    private void awaitReads(List<CompletableFuture<?>> reads) throws InterruptedException {
+        try {
+            CompletableFuture.allOf(reads.toArray(new CompletableFuture[0])).get(lineWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Progress of some lines not read within {} ms, publishing their last progress", lineWaitMs);
+        } catch (ExecutionException e) {
+            // Failed lines are logged by pollLine and keep their last progress
+        }
+    }
+}
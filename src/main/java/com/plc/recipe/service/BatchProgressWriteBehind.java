@@ -0,0 +1,186 @@
+package com.plc.recipe.service;
+
+import com.plc.recipe.entity.BatchRun;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer for PLC progress values on batch_runs.
+ *
+ * - Progress updates are coalesced per batch in memory; only the latest
+ *   value survives until the next flush, and recording it allocates nothing
+ * - A timer flushes all pending quantities in one JDBC batch, skipping
+ *   batches whose quantity has not changed since the last flush
+ * - Final statuses reported by the PLC (COMPLETED, FAILED, STOPPED) are
+ *   written immediately
+ * - Both only touch RUNNING batches: a late PLC value never overwrites an
+ *   operator's stop or completion. Transitions bump the row version
+ *   (BatchRun is optimistically locked); quantity updates do not
+ * - A batch is forgotten once it is no longer RUNNING: by its transition,
+ *   by discard, or when a flush finds its row finished
+ *
+ * Database writes are O(batches x flush intervals) instead of O(polls).
+ */
+@Component
+@Slf4j
+public class BatchProgressWriteBehind {
+
+    private static final String UPDATE_QUANTITY =
+            "UPDATE batch_runs SET actual_quantity = ? WHERE id = ? AND status = 'RUNNING'";
+    private static final String UPDATE_TRANSITION =
+            "UPDATE batch_runs SET actual_quantity = ?, status = ?, completed_at = ?, version = version + 1 " +
+            "WHERE id = ? AND status = 'RUNNING'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentHashMap<Long, Quantity> quantities = new ConcurrentHashMap<>();
+
+    public BatchProgressWriteBehind(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Latest and last flushed quantity of one batch. Recording a value
+     * allocates nothing once the batch has an entry.
+     */
+    private static final class Quantity {
+        volatile double latest = Double.NaN;
+        volatile boolean pending;
+        volatile double flushed = Double.NaN;
+
+        void record(double value) {
+            latest = value;
+            pending = true;
+        }
+
+        /**
+         * The latest value if it still has to be written, else NaN
+         */
+        double takeUnflushed() {
+            if (!pending) {
+                return Double.NaN;
+            }
+            pending = false;
+            double value = latest;
+            return value != flushed ? value : Double.NaN;
+        }
+    }
+
+    /**
+     * Buffer the latest quantity of a running batch; NaN (not known) is ignored.
+     */
+    public void record(Long batchRunId, double actualQuantity) {
+        if (Double.isNaN(actualQuantity)) {
+            return;
+        }
+        Quantity quantity = quantities.get(batchRunId);
+        if (quantity == null) {
+            quantity = quantities.computeIfAbsent(batchRunId, id -> new Quantity());
+        }
+        quantity.record(actualQuantity);
+    }
+
+    /**
+     * Write a final status reported by the PLC now, together with the
+     * final quantity. Joins the caller's transaction if there is one.
+     * @return false if the batch was no longer RUNNING (e.g. stopped by an operator)
+     */
+    public boolean recordTransition(Long batchRunId, Double actualQuantity, BatchRun.BatchStatus status) {
+        quantities.remove(batchRunId);
+        int updated = jdbcTemplate.update(UPDATE_TRANSITION, actualQuantity, status.name(),
+                Timestamp.valueOf(LocalDateTime.now()), batchRunId);
+        if (updated == 0) {
+            log.debug("Batch run {} no longer RUNNING, PLC status {} ignored", batchRunId, status);
+            return false;
+        }
+        log.info("Batch run {} transitioned to {} (quantity {})", batchRunId, status, actualQuantity);
+        return true;
+    }
+
+    /**
+     * Write the pending quantity of one batch now, e.g. before an operator
+     * command reads and rewrites the row.
+     */
+    public void flush(Long batchRunId) {
+        Quantity quantity = quantities.get(batchRunId);
+        if (quantity == null) {
+            return;
+        }
+        double value = quantity.takeUnflushed();
+        if (!Double.isNaN(value)) {
+            if (jdbcTemplate.update(UPDATE_QUANTITY, value, batchRunId) > 0) {
+                quantity.flushed = value;
+            } else {
+                quantities.remove(batchRunId, quantity);
+            }
+        }
+    }
+
+    /**
+     * Drop buffered values for a batch whose row is being rewritten or deleted.
+     */
+    public void discard(Long batchRunId) {
+        quantities.remove(batchRunId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.progress.flush-interval-ms:10000}")
+    public void flushAll() {
+        if (quantities.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> batch = new ArrayList<>();
+        List<Quantity> flushed = new ArrayList<>();
+        for (Map.Entry<Long, Quantity> entry : quantities.entrySet()) {
+            Quantity quantity = entry.getValue();
+            // A value recorded after this point stays pending for the next flush
+            double value = quantity.takeUnflushed();
+            if (!Double.isNaN(value)) {
+                quantity.flushed = value;
+                batch.add(new Object[]{value, entry.getKey()});
+                flushed.add(quantity);
+            }
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            int[] updated = jdbcTemplate.batchUpdate(UPDATE_QUANTITY, batch);
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    // Finished since the value was recorded; no later value will come
+                    quantities.remove((Long) batch.get(i)[1], flushed.get(i));
+                }
+            }
+            log.debug("Flushed progress of {} batch runs", batch.size());
+        } catch (Exception e) {
+            log.error("Failed to flush batch progress, will retry", e);
+            // The latest value is at least as recent as the one that failed
+            flushed.forEach(quantity -> {
+                quantity.flushed = Double.NaN;
+                quantity.pending = true;
+            });
+        }
+    }
+
+    public int getPendingCount() {
+        return (int) quantities.values().stream().filter(quantity -> quantity.pending).count();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushAll();
+    }
+}
@@ -1,17 +1,46 @@
 package com.plc.recipe.service;
 
+import com.plc.recipe.codec.AssemblyLayout;
+import com.plc.recipe.dto.BatchProgressDTO;
 import com.plc.recipe.dto.BatchRunDTO;
+import com.plc.recipe.dto.BatchRunFilter;
+import com.plc.recipe.dto.CursorPageDTO;
 import com.plc.recipe.entity.BatchRun;
 import com.plc.recipe.entity.Recipe;
+import com.plc.recipe.exception.BatchStateConflictException;
+import com.plc.recipe.plc.PlcLineRegistry;
 import com.plc.recipe.repository.BatchRunRepository;
 import com.plc.recipe.repository.RecipeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,9 +57,55 @@ public class BatchRunService {
     @Autowired
     private RecipeEtherNetIPService recipeEtherNetIPService;
 
-    public BatchRunService(BatchRunRepository batchRunRepository, RecipeRepository recipeRepository) {
+    @Autowired
+    private BatchProgressCache progressCache;
+
+    @Autowired
+    private BatchProgressWriteBehind progressWriteBehind;
+
+    @Autowired
+    private BatchHistorian historian;
+
+    @Autowired
+    private RecipeSnapshotCache recipeSnapshotCache;
+
+    @Autowired
+    private PlcLineRegistry lineRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.pagination.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${app.pagination.max-page-size:200}")
+    private int maxPageSize;
+
+    @Value("${app.bulk.max-size:200}")
+    private int bulkMaxSize;
+
+    @Value("${app.progress.replaced-after-polls:5}")
+    private int replacedAfterPolls;
+
+    // Runs the database part of async operations once the PLC has answered
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor completionExecutor;
+
+    private final TransactionTemplate transactionTemplate;
+
+    // Polls in a row on which a RUNNING batch's unit reported another batch
+    private final ConcurrentHashMap<Long, Integer> replacedReads = new ConcurrentHashMap<>();
+
+    // Attempts of a batch run update that lost the optimistic version check
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+
+    public BatchRunService(BatchRunRepository batchRunRepository, RecipeRepository recipeRepository,
+                           PlatformTransactionManager transactionManager) {
         this.batchRunRepository = batchRunRepository;
         this.recipeRepository = recipeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public BatchRunDTO createBatchRun(BatchRunDTO batchRunDTO) {
@@ -49,6 +124,7 @@ public class BatchRunService {
                 .targetQuantity(batchRunDTO.getTargetQuantity())
                 .notes(batchRunDTO.getNotes())
                 .operatorName(batchRunDTO.getOperatorName())
+                .line(lineRegistry.resolve(batchRunDTO.getLine()).getName())
                 .build();
 
         BatchRun savedBatchRun = batchRunRepository.save(batchRun);
@@ -57,6 +133,54 @@ public class BatchRunService {
         return mapToDTO(savedBatchRun);
     }
 
+    /**
+     * Create batch runs all or nothing
+     * One query checks all batch numbers, one loads the recipes, and the rows are
+     * inserted in JDBC batches (ids come from a pooled sequence).
+     */
+    public List<BatchRunDTO> createBatchRuns(List<BatchRunDTO> batchRunDTOs) {
+        log.info("Creating {} batch runs", batchRunDTOs.size());
+        checkBulkSize(batchRunDTOs.size());
+
+        Set<String> batchNumbers = new HashSet<>();
+        for (BatchRunDTO batchRunDTO : batchRunDTOs) {
+            if (!batchNumbers.add(batchRunDTO.getBatchNumber())) {
+                throw new IllegalArgumentException("Batch number '" + batchRunDTO.getBatchNumber() + "' appears more than once");
+            }
+        }
+        List<String> existing = batchRunRepository.findExistingBatchNumbers(batchNumbers);
+        if (!existing.isEmpty()) {
+            throw new IllegalArgumentException("Batches with numbers " + existing + " already exist");
+        }
+
+        Set<Long> recipeIds = batchRunDTOs.stream().map(BatchRunDTO::getRecipeId).collect(Collectors.toSet());
+        Map<Long, Recipe> recipes = recipeRepository.findAllById(recipeIds).stream()
+                .collect(Collectors.toMap(Recipe::getId, Function.identity()));
+
+        List<BatchRun> batchRuns = new ArrayList<>(batchRunDTOs.size());
+        for (BatchRunDTO batchRunDTO : batchRunDTOs) {
+            Recipe recipe = recipes.get(batchRunDTO.getRecipeId());
+            if (recipe == null) {
+                throw new IllegalArgumentException("Recipe not found with ID: " + batchRunDTO.getRecipeId());
+            }
+            batchRuns.add(BatchRun.builder()
+                    .recipe(recipe)
+                    .batchNumber(batchRunDTO.getBatchNumber())
+                    .targetQuantity(batchRunDTO.getTargetQuantity())
+                    .notes(batchRunDTO.getNotes())
+                    .operatorName(batchRunDTO.getOperatorName())
+                    .line(lineRegistry.resolve(batchRunDTO.getLine()).getName())
+                    .build());
+        }
+
+        List<BatchRunDTO> created = batchRunRepository.saveAll(batchRuns).stream()
+                .map(this::mapToDTO)
+                .collect(Collectors.toList());
+        log.info("{} batch runs created", created.size());
+        return created;
+    }
+
+    @Transactional(readOnly = true)
     public BatchRunDTO getBatchRunById(Long id) {
         log.info("Fetching batch run with ID: {}", id);
         BatchRun batchRun = batchRunRepository.findById(id)
@@ -64,147 +188,438 @@ public class BatchRunService {
         return mapToDTO(batchRun);
     }
 
-    public List<BatchRunDTO> getAllBatchRuns() {
-        log.info("Fetching all batch runs");
-        return batchRunRepository.findAll().stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+    /**
+     * Get one page of batch runs, newest first
+     * Keyset pagination on (startedAt, id): cost depends on the page size, not the table size.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<BatchRunDTO> getBatchRunPage(BatchRunFilter filter, String cursor, Integer limit) {
+        log.info("Fetching batch runs page (filter: {}, cursor: {})", filter, cursor);
+
+        int pageSize = pageSize(limit);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        LocalDateTime afterStartedAt = after != null ? after.dateTimeKey() : null;
+        BatchRun.BatchStatus status = filter.getStatus() != null && !filter.getStatus().isEmpty()
+                ? parseStatus(filter.getStatus()) : null;
+
+        List<BatchRun> rows = batchRunRepository.findPage(
+                status, filter.getRecipeId(), filter.getOperatorName(), filter.getLine(), filter.getFrom(), filter.getTo(),
+                afterStartedAt, after != null ? after.id : null,
+                pageSize + 1);
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            BatchRun last = rows.get(pageSize - 1);
+            nextCursor = new KeysetCursor(last.getStartedAt().toString(), last.getId()).encode();
+        }
+
+        return CursorPageDTO.<BatchRunDTO>builder()
+                .items(rows.stream().map(this::mapToDTO).collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .build();
     }
 
+    @Transactional(readOnly = true)
     public List<BatchRunDTO> getBatchRunsByRecipe(Long recipeId) {
         log.info("Fetching batch runs for recipe ID: {}", recipeId);
 
-        recipeRepository.findById(recipeId)
-                .orElseThrow(() -> new IllegalArgumentException("Recipe not found with ID: " + recipeId));
+        if (!recipeRepository.existsById(recipeId)) {
+            throw new IllegalArgumentException("Recipe not found with ID: " + recipeId);
+        }
 
         return batchRunRepository.findByRecipeIdOrderByStartedAtDesc(recipeId).stream()
                 .map(this::mapToDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Set the status of a batch run; only transitions of the lifecycle table are accepted
+     * and setting the current status again is a no-op
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public BatchRunDTO updateBatchRunStatus(Long id, String status) {
         log.info("Updating batch run {} status to: {}", id, status);
 
-        BatchRun batchRun = batchRunRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Batch run not found with ID: " + id));
-
-        batchRun.setStatus(BatchRun.BatchStatus.valueOf(status));
-
-        if (BatchRun.BatchStatus.COMPLETED.toString().equals(status)) {
-            batchRun.setCompletedAt(LocalDateTime.now());
-        }
-
-        BatchRun updatedBatchRun = batchRunRepository.save(batchRun);
+        BatchRun.BatchStatus target = parseStatus(status);
+        BatchRunDTO updatedBatchRun = update(id, batchRun -> {
+            if (batchRun.getStatus() != target) {
+                transition(batchRun, target);
+            }
+        });
         log.info("Batch run status updated successfully");
 
-        return mapToDTO(updatedBatchRun);
+        return updatedBatchRun;
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public BatchRunDTO completeBatchRun(Long id, Double actualQuantity) {
         log.info("Completing batch run with ID: {} with actual quantity: {}", id, actualQuantity);
 
-        BatchRun batchRun = batchRunRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Batch run not found with ID: " + id));
-
-        batchRun.setActualQuantity(actualQuantity);
-        batchRun.setStatus(BatchRun.BatchStatus.COMPLETED);
-        batchRun.setCompletedAt(LocalDateTime.now());
+        // Operator-supplied quantity wins over buffered PLC values
+        progressWriteBehind.discard(id);
 
-        BatchRun updatedBatchRun = batchRunRepository.save(batchRun);
+        BatchRunDTO completedBatchRun = update(id, batchRun -> {
+            transition(batchRun, BatchRun.BatchStatus.COMPLETED);
+            batchRun.setActualQuantity(actualQuantity);
+        });
         log.info("Batch run completed successfully");
 
-        return mapToDTO(updatedBatchRun);
+        return completedBatchRun;
     }
 
     /**
-     * Start batch run - sends start command to OpENer simulator via EtherNet/IP
+     * Start batch run without blocking the caller on the PLC
+     * The start is claimed on the calling thread; recipe download and start command
+     * go out asynchronously, as one command of the batch unit, and the new status
+     * is saved in a new transaction when the PLC has answered.
      */
-    public BatchRunDTO startBatchRun(Long id) {
-        log.info("Starting batch run with ID: {}", id);
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<BatchRunDTO> startBatchRunAsync(Long id, String idempotencyKey) {
+        log.info("Starting batch run with ID: {} (async)", id);
 
-        BatchRun batchRun = batchRunRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Batch run not found with ID: " + id));
-
-        // Write recipe to PLC
-        boolean recipeWriteSuccess = recipeEtherNetIPService.writeRecipeToPLC(batchRun.getRecipe(), batchRun);
-        if (!recipeWriteSuccess) {
-            log.warn("Failed to write recipe to PLC, but continuing");
+        Claim claim = claim(id, idempotencyKey, BatchRun.BatchStatus.RUNNING);
+        if (claim.replay) {
+            return CompletableFuture.completedFuture(mapToDTO(claim.batchRun));
+        }
+        BatchRun batchRun = claim.batchRun;
+        try {
+            RecipeSnapshotCache.RecipeSnapshot recipe = recipeSnapshotCache.get(batchRun.getRecipe().getId());
+
+            return recipeEtherNetIPService.writeRecipeAndStartAsync(recipe, batchRun)
+                    .thenApplyAsync(startSuccess -> completeStart(id, startSuccess), completionExecutor)
+                    .whenComplete((started, ex) -> {
+                        if (ex != null) {
+                            abandonStart(id, ex);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            abandonStart(id, e);
+            throw e;
         }
+    }
+
+    /**
+     * Stop batch run without blocking the caller on the PLC
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<BatchRunDTO> stopBatchRunAsync(Long id, String idempotencyKey) {
+        log.info("Stopping batch run with ID: {} (async)", id);
+
+        // Persist the last PLC quantity before the row is loaded and rewritten
+        progressWriteBehind.flush(id);
 
-        // Send start command to PLC
-        boolean startSuccess = ethernetIPService.sendBatchStart(batchRun.getBatchNumber(), batchRun.getTargetQuantity());
-        if (!startSuccess) {
-            log.warn("Failed to send start command to PLC");
-            batchRun.setStatus(BatchRun.BatchStatus.FAILED);
-            return mapToDTO(batchRunRepository.save(batchRun));
+        Claim claim = claim(id, idempotencyKey, BatchRun.BatchStatus.STOPPED);
+        if (claim.replay) {
+            return CompletableFuture.completedFuture(mapToDTO(claim.batchRun));
         }
 
-        batchRun.setStatus(BatchRun.BatchStatus.RUNNING);
-        BatchRun updatedBatchRun = batchRunRepository.save(batchRun);
-        
-        log.info("Batch run started successfully, status: RUNNING");
-        return mapToDTO(updatedBatchRun);
+        String stopRequestKey = claim.batchRun.getStopRequestKey();
+        return ethernetIPService.sendBatchStopAsync(claim.batchRun.getLine(), claim.batchRun.getBatchNumber())
+                .thenApplyAsync(stopSuccess -> completeStop(id, stopSuccess), completionExecutor)
+                .whenComplete((stopped, ex) -> {
+                    if (ex != null) {
+                        abandonStop(id, stopRequestKey, ex);
+                    }
+                });
     }
 
     /**
-     * Stop batch run - sends stop command to OpENer simulator via EtherNet/IP
+     * Start many batch runs at once
+     * Each start is claimed like a single start (so one batch failing does not affect
+     * the others), then all recipe downloads and start commands are in flight together.
+     * Batches on different units start in parallel; on one unit each batch's download
+     * and start are sent back to back, so every batch starts with its own recipe.
+     * A batch's idempotency key is derived from the request key and its id.
+     *
+     * @return one future per distinct id, in request order
      */
-    public BatchRunDTO stopBatchRun(Long id) {
-        log.info("Stopping batch run with ID: {}", id);
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<Long, CompletableFuture<BatchRunDTO>> startBatchRunsAsync(List<Long> ids, String idempotencyKey) {
+        log.info("Starting {} batch runs (async)", ids.size());
+        checkBulkSize(ids.size());
+
+        Map<Long, CompletableFuture<BatchRunDTO>> starts = new LinkedHashMap<>();
+        for (Long id : ids) {
+            if (id == null || starts.containsKey(id)) {
+                continue;
+            }
+            String key = idempotencyKey != null && !idempotencyKey.isBlank()
+                    ? UUID.nameUUIDFromBytes((idempotencyKey + "/" + id).getBytes(StandardCharsets.UTF_8)).toString()
+                    : null;
+            CompletableFuture<BatchRunDTO> start;
+            try {
+                start = startBatchRunAsync(id, key);
+            } catch (RuntimeException e) {
+                start = CompletableFuture.failedFuture(e);
+            }
+            starts.put(id, start);
+        }
+        return starts;
+    }
 
-        BatchRun batchRun = batchRunRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Batch run not found with ID: " + id));
+    private void checkBulkSize(int size) {
+        if (size > bulkMaxSize) {
+            throw new IllegalArgumentException("At most " + bulkMaxSize + " batch runs per request");
+        }
+    }
 
-        // Send stop command to PLC
-        boolean stopSuccess = ethernetIPService.sendBatchStop(batchRun.getBatchNumber());
+    private BatchRunDTO completeStart(Long id, boolean startSuccess) {
+        return update(id, batchRun -> {
+            if (!startSuccess) {
+                log.warn("Failed to send start command to PLC");
+                transition(batchRun, BatchRun.BatchStatus.FAILED);
+            } else {
+                transition(batchRun, BatchRun.BatchStatus.RUNNING);
+                log.info("Batch run started successfully, status: RUNNING");
+            }
+        });
+    }
+
+    private BatchRunDTO completeStop(Long id, boolean stopSuccess) {
         if (!stopSuccess) {
             log.warn("Failed to send stop command to PLC");
         }
+        return update(id, batchRun -> {
+            // The PLC may have finished the batch while the stop command was in flight
+            if (batchRun.getStatus() == BatchRun.BatchStatus.RUNNING) {
+                transition(batchRun, BatchRun.BatchStatus.STOPPED);
+                log.info("Batch run stopped successfully");
+            } else {
+                log.info("Batch run {} was already {} when the stop completed", id, batchRun.getStatus());
+            }
+        });
+    }
 
-        batchRun.setStatus(BatchRun.BatchStatus.COMPLETED);
-        batchRun.setCompletedAt(LocalDateTime.now());
-        
-        BatchRun updatedBatchRun = batchRunRepository.save(batchRun);
-        log.info("Batch run stopped successfully");
-        
-        return mapToDTO(updatedBatchRun);
+    /**
+     * A claimed start that failed before its outcome was saved (e.g. the recipe was
+     * deleted, or the update lost the version check on every attempt) would leave
+     * the batch PENDING with its start key taken, so no start could be accepted
+     * again; mark it FAILED like a start the PLC refused
+     */
+    private void abandonStart(Long id, Throwable failure) {
+        log.error("Start of batch run {} failed: {}", id, failureMessage(failure));
+        try {
+            update(id, batchRun -> {
+                if (batchRun.getStatus() == BatchRun.BatchStatus.PENDING) {
+                    transition(batchRun, BatchRun.BatchStatus.FAILED);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Could not mark batch run {} FAILED after its start failed", id, e);
+        }
     }
 
     /**
-     * Get batch progress from OpENer simulator via EtherNet/IP
-     * Reads current status from Assembly 100
+     * A claimed stop whose outcome could not be saved would leave the batch RUNNING
+     * with its stop key taken; release the key so the stop can be requested again
      */
-    public BatchProgress getBatchProgress(Long id) {
-        log.info("Reading batch progress for ID: {}", id);
+    private void abandonStop(Long id, String stopRequestKey, Throwable failure) {
+        log.error("Stop of batch run {} failed: {}", id, failureMessage(failure));
+        try {
+            update(id, batchRun -> {
+                if (batchRun.getStatus() == BatchRun.BatchStatus.RUNNING
+                        && stopRequestKey.equals(batchRun.getStopRequestKey())) {
+                    batchRun.setStopRequestKey(null);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Could not release the stop request of batch run {}", id, e);
+        }
+    }
+
+    private static String failureMessage(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause().getMessage() : ex.getMessage();
+    }
+
+    /**
+     * Accept a start (target RUNNING) or stop (target STOPPED) request before its PLC command
+     * is sent, by saving its idempotency key on the batch run. Of concurrent requests only
+     * one saves the key (the others fail the version check and are retried); a request
+     * with the already saved key is a replay, any other request is a conflict.
+     */
+    private Claim claim(Long id, String idempotencyKey, BatchRun.BatchStatus target) {
+        boolean start = target == BatchRun.BatchStatus.RUNNING;
+        String key = idempotencyKey != null && !idempotencyKey.isBlank()
+                ? idempotencyKey : UUID.randomUUID().toString();
+        if (key.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key longer than " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+
+        return retryOnConflict(id, () -> transactionTemplate.execute(tx -> {
+            BatchRun batchRun = batchRunRepository.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Batch run not found with ID: " + id));
+            String claimedKey = start ? batchRun.getStartRequestKey() : batchRun.getStopRequestKey();
+            if (key.equals(claimedKey)) {
+                log.info("Repeated {} request for batch run {}, returning current state", start ? "start" : "stop", id);
+                return new Claim(batchRun, true);
+            }
+            if (claimedKey != null) {
+                throw new BatchStateConflictException((start ? "Start" : "Stop") + " of batch "
+                        + batchRun.getBatchNumber() + " was already requested");
+            }
+            checkTransition(batchRun, target);
+
+            if (start) {
+                batchRun.setStartRequestKey(key);
+            } else {
+                batchRun.setStopRequestKey(key);
+            }
+            return new Claim(batchRunRepository.saveAndFlush(batchRun), false);
+        }));
+    }
+
+    /**
+     * Load, change and save a batch run in its own transaction; the change is
+     * applied again to a fresh copy if a concurrent writer updated the row first.
+     * A run the committed change took out of RUNNING is recorded in batch.duration
+     * and dropped from the progress write-behind.
+     */
+    private BatchRunDTO update(Long id, Consumer<BatchRun> change) {
+        Update update = retryOnConflict(id, () -> transactionTemplate.execute(tx -> {
+            BatchRun batchRun = batchRunRepository.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Batch run not found with ID: " + id));
+            BatchRun.BatchStatus previousStatus = batchRun.getStatus();
+            change.accept(batchRun);
+            return new Update(batchRunRepository.saveAndFlush(batchRun), previousStatus);
+        }));
+
+        // Once per committed change, not per attempt
+        BatchRun batchRun = update.batchRun;
+        if (update.previousStatus == BatchRun.BatchStatus.RUNNING && batchRun.getStatus() != BatchRun.BatchStatus.RUNNING) {
+            recordDuration(batchRun, batchRun.getStatus(), lastElapsedSeconds(id));
+            progressWriteBehind.discard(id);
+        }
+        return mapToDTO(batchRun);
+    }
+
+    private <T> T retryOnConflict(Long id, Supplier<T> operation) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return operation.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_UPDATE_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Batch run {} was updated concurrently, retrying", id);
+            }
+        }
+    }
+
+    private static void checkTransition(BatchRun batchRun, BatchRun.BatchStatus target) {
+        if (!batchRun.getStatus().canTransitionTo(target)) {
+            throw new BatchStateConflictException("Batch " + batchRun.getBatchNumber() + " cannot go from "
+                    + batchRun.getStatus() + " to " + target);
+        }
+    }
+
+    /**
+     * Move a batch run to a new status of the lifecycle table; finished runs get
+     * their completion time
+     */
+    private void transition(BatchRun batchRun, BatchRun.BatchStatus target) {
+        checkTransition(batchRun, target);
+        batchRun.setStatus(target);
+        if (target.isTerminal()) {
+            batchRun.setCompletedAt(LocalDateTime.now());
+            replacedReads.remove(batchRun.getId());
+        }
+    }
+
+    /**
+     * Batch run loaded when its start or stop request was accepted, or replayed
+     */
+    private static class Claim {
+        final BatchRun batchRun;
+        final boolean replay;
+
+        Claim(BatchRun batchRun, boolean replay) {
+            this.batchRun = batchRun;
+            this.replay = replay;
+        }
+    }
+
+    /**
+     * Batch run saved by {@link #update} and its status before the change
+     */
+    private static class Update {
+        final BatchRun batchRun;
+        final BatchRun.BatchStatus previousStatus;
+
+        Update(BatchRun batchRun, BatchRun.BatchStatus previousStatus) {
+            this.batchRun = batchRun;
+            this.previousStatus = previousStatus;
+        }
+    }
+
+    /**
+     * Get latest known batch progress without touching the PLC
+     * Running batches are served from the poller cache; other batches
+     * (or a running batch not polled yet) from the database.
+     */
+    @Transactional(readOnly = true)
+    public BatchProgressDTO getLatestProgress(Long id) {
+        BatchProgressDTO cached = progressCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
 
         BatchRun batchRun = batchRunRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Batch run not found with ID: " + id));
+        return mapToProgressDTO(batchRun);
+    }
 
-        // Read progress from PLC
-        EthernetIPService.BatchProgress plcProgress = ethernetIPService.getBatchProgress(batchRun.getBatchNumber());
-        
-        if (plcProgress == null) {
-            log.warn("Failed to read progress from PLC, returning database values");
-            return new BatchProgress(
-                batchRun.getActualQuantity(),
-                batchRun.getStatus().toString()
-            );
+    /**
+     * Read progress of the RUNNING batches of one production line into the progress cache
+     * Reads the line's PLC once for all its batches (batched CIP requests) instead of
+     * once per batch, decoding into each batch's cache slot. The running batches are
+     * loaded on the calling thread; the future completes on the application task
+     * executor with the number of running batches, once the slots of batches that
+     * stopped running have been dropped.
+     */
+    @Transactional(readOnly = true)
+    public CompletableFuture<Integer> pollRunningBatchesAsync(String line) {
+        log.debug("Reading progress of running batches on line {}", line);
+
+        List<BatchRun> runningBatches = batchRunRepository.findByStatusAndLine(
+                BatchRun.BatchStatus.RUNNING, line, lineRegistry.isDefault(line));
+        long poll = progressCache.nextPoll();
+        if (runningBatches.isEmpty()) {
+            progressCache.retainPolled(line, poll);
+            return CompletableFuture.completedFuture(0);
         }
 
-        // Update database with latest values from PLC
-        batchRun.setActualQuantity(plcProgress.currentQuantity);
-        if ("COMPLETED".equals(plcProgress.status)) {
-            batchRun.setStatus(BatchRun.BatchStatus.COMPLETED);
-            batchRun.setCompletedAt(LocalDateTime.now());
+        List<BatchProgressCache.Slot> slots = new ArrayList<>(runningBatches.size());
+        for (BatchRun batchRun : runningBatches) {
+            BatchProgressCache.Slot slot = progressCache.slot(batchRun.getId());
+            if (slot == null) {
+                slot = progressCache.add(newProgressSlot(batchRun, line));
+            }
+            slot.beginRead(poll);
+            slots.add(slot);
         }
-        batchRunRepository.save(batchRun);
 
-        return new BatchProgress(
-            plcProgress.currentQuantity,
-            plcProgress.status,
-            plcProgress.progressPercentage,
-            plcProgress.elapsedSeconds
-        );
+        return ethernetIPService.readProgressAsync(line, slots)
+                .thenApplyAsync(read -> {
+                    for (int i = 0; i < slots.size(); i++) {
+                        BatchRun batchRun = runningBatches.get(i);
+                        BatchProgressCache.Slot slot = slots.get(i);
+                        switch (slot.outcome()) {
+                            case BatchProgressCache.Slot.READ:
+                                replacedReads.remove(batchRun.getId());
+                                applyProgress(batchRun, slot.currentQuantity(), slot.status(), slot.elapsedSeconds());
+                                break;
+                            case BatchProgressCache.Slot.OTHER_BATCH:
+                                replacedProgress(batchRun, slot);
+                                break;
+                            default:
+                                // PLC unreachable (or its circuit open): keep the last progress
+                                log.debug("No progress read for batch {}, keeping last known progress", batchRun.getBatchNumber());
+                        }
+                    }
+                    progressCache.retainPolled(line, poll);
+                    return slots.size();
+                }, completionExecutor);
     }
 
     public void deleteBatchRun(Long id) {
@@ -213,13 +628,148 @@ public class BatchRunService {
         BatchRun batchRun = batchRunRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Batch run not found with ID: " + id));
 
+        progressWriteBehind.discard(id);
+        replacedReads.remove(id);
         batchRunRepository.delete(batchRun);
+        progressCache.remove(id);
+        historian.delete(id);
         log.info("Batch run deleted successfully");
     }
 
-    private BatchRunDTO mapToDTO(BatchRun batchRun) {
+    private int pageSize(Integer limit) {
+        return limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+    }
+
+    private static BatchRun.BatchStatus parseStatus(String status) {
+        if (status == null) {
+            throw new IllegalArgumentException("Batch status is required");
+        }
+        try {
+            return BatchRun.BatchStatus.valueOf(status);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown batch status: " + status);
+        }
+    }
+
+    /**
+     * Hand PLC values to the write-behind buffer instead of dirtying the entity.
+     * Quantities are coalesced and flushed on a timer; final statuses are written at once.
+     */
+    private void applyProgress(BatchRun batchRun, double currentQuantity, int plcStatus, int elapsedSeconds) {
+        BatchRun.BatchStatus status = finalStatus(plcStatus);
+        if (status != null) {
+            // Applied only if the batch is still RUNNING; an operator stop may have won the race
+            if (progressWriteBehind.recordTransition(batchRun.getId(), currentQuantity, status)) {
+                recordDuration(batchRun, status, elapsedSeconds);
+            }
+        } else {
+            progressWriteBehind.record(batchRun.getId(), currentQuantity);
+        }
+    }
+
+    /**
+     * Progress of a RUNNING batch whose unit reports another batch
+     * A new start takes effect within a PLC scan, so a few such reads in a row mean the
+     * batch's final image was replaced before a poll saw it. The batch is then finished
+     * from its last known progress: COMPLETED if it had reached its target, else FAILED.
+     * Until then its slot keeps the last known progress.
+     */
+    private void replacedProgress(BatchRun batchRun, BatchProgressCache.Slot slot) {
+        if (replacedReads.merge(batchRun.getId(), 1, Integer::sum) < replacedAfterPolls) {
+            log.debug("PLC unit of batch {} reports another batch, keeping last known progress", batchRun.getBatchNumber());
+            return;
+        }
+        replacedReads.remove(batchRun.getId());
+
+        double quantity = slot.currentQuantity();
+        BatchRun.BatchStatus status = !Double.isNaN(quantity) && batchRun.getTargetQuantity() != null
+                && quantity >= batchRun.getTargetQuantity()
+                ? BatchRun.BatchStatus.COMPLETED : BatchRun.BatchStatus.FAILED;
+        log.warn("Final status of batch {} was not read before its PLC unit moved on, marking it {} at quantity {}",
+                batchRun.getBatchNumber(), status, quantity);
+        if (progressWriteBehind.recordTransition(batchRun.getId(), Double.isNaN(quantity) ? null : quantity, status)) {
+            recordDuration(batchRun, status, slot.elapsedSeconds());
+        }
+        slot.update(quantity, AssemblyLayout.statusCode(status.name()), slot.progressPercentage(), slot.elapsedSeconds());
+    }
+
+    /**
+     * Final status reported by the PLC (COMPLETED, FAILED, STOPPED), null while the batch runs
+     */
+    private static BatchRun.BatchStatus finalStatus(int plcStatus) {
+        switch (plcStatus) {
+            case AssemblyLayout.STATUS_COMPLETED:
+                return BatchRun.BatchStatus.COMPLETED;
+            case AssemblyLayout.STATUS_FAILED:
+                return BatchRun.BatchStatus.FAILED;
+            case AssemblyLayout.STATUS_STOPPED:
+                return BatchRun.BatchStatus.STOPPED;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Record a finished run in the batch.duration distribution, per recipe and final status.
+     * Uses the PLC's elapsed time if known, else the time since the run was created.
+     */
+    private void recordDuration(BatchRun batchRun, BatchRun.BatchStatus status, Integer elapsedSeconds) {
+        Duration duration = elapsedSeconds != null
+                ? Duration.ofSeconds(elapsedSeconds)
+                : Duration.between(batchRun.getStartedAt(), LocalDateTime.now());
+        Timer.builder("batch.duration")
+                .description("Run time of finished batches")
+                .tag("recipe", String.valueOf(batchRun.getRecipe().getId()))
+                .tag("status", status.name())
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofSeconds(1))
+                .maximumExpectedValue(Duration.ofDays(1))
+                .register(meterRegistry)
+                .record(duration);
+    }
+
+    private Integer lastElapsedSeconds(Long id) {
+        BatchProgressCache.Slot slot = progressCache.slot(id);
+        return slot != null ? slot.elapsedSeconds() : null;
+    }
+
+    /**
+     * Cache slot of a running batch, starting from its database values
+     */
+    private BatchProgressCache.Slot newProgressSlot(BatchRun batchRun, String line) {
+        BatchProgressDTO progress = mapToProgressDTO(batchRun);
+        BatchProgressCache.Slot slot = new BatchProgressCache.Slot(batchRun.getId(), batchRun.getBatchNumber(),
+                batchRun.getLine(), batchRun.getTargetQuantity(), line);
+        slot.update(progress.getCurrentQuantity() != null ? progress.getCurrentQuantity() : Double.NaN,
+                AssemblyLayout.statusCode(progress.getStatus()), progress.getProgressPercentage(),
+                progress.getElapsedSeconds());
+        return slot;
+    }
+
+    private BatchProgressDTO mapToProgressDTO(BatchRun batchRun) {
+        Double actual = batchRun.getActualQuantity();
+        Double target = batchRun.getTargetQuantity();
+        LocalDateTime end = batchRun.getCompletedAt() != null ? batchRun.getCompletedAt() : LocalDateTime.now();
+        boolean started = batchRun.getStatus() != BatchRun.BatchStatus.PENDING;
+
+        return BatchProgressDTO.builder()
+                .id(batchRun.getId())
+                .batchNumber(batchRun.getBatchNumber())
+                .line(batchRun.getLine())
+                .targetQuantity(target)
+                .currentQuantity(actual)
+                .status(batchRun.getStatus().toString())
+                .progressPercentage(actual != null && target != null && target > 0
+                        ? Math.min(100.0, actual / target * 100.0) : 0.0)
+                .elapsedSeconds(started ? (int) Duration.between(batchRun.getStartedAt(), end).getSeconds() : 0)
+                .build();
+    }
+
+    // Package-private for the JMH benchmarks (src/jmh)
+    BatchRunDTO mapToDTO(BatchRun batchRun) {
         return BatchRunDTO.builder()
                 .id(batchRun.getId())
+                // Identifier of an uninitialized proxy is the FK column; no extra SELECT
                 .recipeId(batchRun.getRecipe().getId())
                 .batchNumber(batchRun.getBatchNumber())
                 .targetQuantity(batchRun.getTargetQuantity())
@@ -229,37 +779,7 @@ public class BatchRunService {
                 .completedAt(batchRun.getCompletedAt())
                 .notes(batchRun.getNotes())
                 .operatorName(batchRun.getOperatorName())
+                .line(batchRun.getLine())
                 .build();
     }
-
-    /**
-     * Data class for batch progress information
-     */
-    public static class BatchProgress {
-        public final Double currentQuantity;
-        public final String status;
-        public final Double progressPercentage;
-        public final Integer elapsedSeconds;
-
-        public BatchProgress(Double currentQuantity, String status) {
-            this(currentQuantity, status, 0.0, 0);
-        }
-
-        public BatchProgress(Double currentQuantity, String status, Double progressPercentage, Integer elapsedSeconds) {
-            this.currentQuantity = currentQuantity;
-            this.status = status;
-            this.progressPercentage = progressPercentage;
-            this.elapsedSeconds = elapsedSeconds;
-        }
-
-        @Override
-        public String toString() {
-            return "BatchProgress{" +
-                    "currentQuantity=" + currentQuantity +
-                    ", status='" + status + '\'' +
-                    ", progressPercentage=" + progressPercentage +
-                    ", elapsedSeconds=" + elapsedSeconds +
-                    '}';
-        }
-    }
 }
@@ -1,151 +1,409 @@
 package com.plc.recipe.service;
 
+import com.plc.recipe.codec.BatchCommandFlyweight;
+import com.plc.recipe.codec.BatchStatusFlyweight;
+import com.plc.recipe.exception.PlcCommunicationException;
+import com.plc.recipe.plc.GetAssemblyDataService;
+import com.plc.recipe.plc.ImplicitIoService;
+import com.plc.recipe.plc.MultipleServicePacketService;
+import com.plc.recipe.plc.PlcCircuitBreaker;
+import com.plc.recipe.plc.PlcEndpoint;
+import com.plc.recipe.plc.PlcLine;
+import com.plc.recipe.plc.PlcLineRegistry;
+import com.plc.recipe.plc.PlcMetrics;
+import com.plc.recipe.plc.PlcSessionPool;
+import com.plc.recipe.plc.SerialCommandQueue;
+import com.plc.recipe.plc.SetAssemblyDataService;
+import com.plc.recipe.simulator.BatchSimulator;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.time.Instant;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.plc.recipe.codec.AssemblyLayout.*;
 
 /**
  * Service for communicating with PLC devices via Ethernet/IP protocol.
  * Connects to OpENer simulator on port 44818 to read/write batch data.
  * 
- * Current implementation: Offline simulation mode
- * - Simulates batch processing with configurable duration
- * - Maintains state in memory for testing
+ * Offline mode:
+ * - Batches are run by {@link BatchSimulator} (per-recipe duration curves,
+ *   fault injection, seeded runs) and read back as Assembly 100 images
  * 
- * Future implementation: Online mode
- * - Will use proper EtherNet/IP library for actual PLC communication
+ * Online mode:
+ * - Explicit CIP messaging over sessions pooled by {@link PlcSessionPool};
+ *   every PLC operation has a non-blocking *Async variant returning
+ *   CompletableFuture, the blocking methods wait on it
+ * - Optional Class 1 cyclic I/O for Assembly 100 via {@link ImplicitIoService};
+ *   progress reads are then served from the latest received image
+ * - Every CIP round trip is timed per operation and line ({@link PlcMetrics})
+ * - Progress of many batches is read with Multiple_Service_Packet requests
+ *   sized to plc.max-message-size
+ * - One PLC per production line ({@link PlcLineRegistry}); every batch
+ *   operation names its line (null is the default line). Sessions, loaded
+ *   recipes and the connect lock are kept per line, so
+ *   lines never wait on each other
+ * - Commands to one command assembly (Assembly 150+n: one batch unit, so
+ *   every command of a batch) reach the PLC in submission order through a
+ *   {@link SerialCommandQueue}; other units and lines run in parallel
+ * - plc.lines.&lt;name&gt;.batch-units batch units per PLC (see AssemblyLayout#unitFor)
  * - Assembly 100: Input (PLC → Application) - Batch status, progress, quantity
  * - Assembly 150: Output (Application → PLC) - Batch control commands
+ * - Byte layouts are defined in {@link com.plc.recipe.codec.AssemblyLayout}
  */
 @Service
 @Slf4j
 public class EthernetIPService {
 
-    @Value("${plc.host:localhost}")
-    private String plcHost;
-
-    @Value("${plc.port:44818}")
-    private int plcPort;
-
     @Value("${plc.offline-mode:true}")
     private boolean offlineMode;
 
-    // Simulated batch state storage
-    private final ConcurrentHashMap<String, SimulatedBatchState> batchStates = new ConcurrentHashMap<>();
+    @Value("${plc.max-message-size:504}")
+    private int maxMessageSize;
+
+    @Autowired
+    private PlcSessionPool sessionPool;
+
+    @Autowired
+    private PlcMetrics metrics;
+
+    @Autowired
+    private ImplicitIoService implicitIo;
+
+    @Autowired
+    private PlcLineRegistry lineRegistry;
+
+    @Autowired
+    private BatchSimulator simulator;
+
+    // Runtime state per production line name
+    private final ConcurrentHashMap<String, LineState> lineStates = new ConcurrentHashMap<>();
     
-    private static final long BATCH_DURATION_MS = 60000; // 60 seconds
-    private static final int ASSEMBLY_INPUT = 100;   // PLC → App (read)
-    private static final int ASSEMBLY_OUTPUT = 150;  // App → PLC (write)
+    private static final int ASSEMBLY_INPUT = STATUS_ASSEMBLY;    // PLC → App (read), unit 0
+
+    // CIP replies of one line's poll are decoded on the session event loops
+    private static final ThreadLocal<BatchStatusFlyweight> REPLY_STATUS = ThreadLocal.withInitial(BatchStatusFlyweight::new);
 
-    public EthernetIPService() {
-        log.info("EthernetIPService initialized (Offline Simulation Mode)");
+    @PostConstruct
+    void init() {
+        sessionPool.addSessionListener(this::sessionRegistered);
+        log.info("EthernetIPService initialized ({})", offlineMode ? "offline simulation mode" : "online mode");
     }
 
     /**
-     * Initialize connection to OpENer simulator
+     * A new session may be to a PLC that restarted and lost its recipes, whether it was
+     * registered by initializeConnection, a request after a dropped session or a circuit
+     * probe; download recipes again on the lines of that PLC
+     */
+    private void sessionRegistered(PlcEndpoint endpoint) {
+        lineStates.values().forEach(plc -> {
+            if (plc.endpoint().equals(endpoint) && !plc.loadedRecipes.isEmpty()) {
+                log.info("New session to {}, forgetting recipes loaded on line {}", endpoint, plc.line.getName());
+                plc.loadedRecipes.clear();
+            }
+        });
+    }
+
+    /**
+     * Initialize connection to the default line's PLC
      * In offline mode, this just logs the configuration
      */
-    public synchronized boolean initializeConnection() {
-        log.info("Initializing EtherNet/IP connection to PLC at {}:{}", plcHost, plcPort);
+    public boolean initializeConnection() {
+        return initializeConnection(null);
+    }
+
+    /**
+     * Initialize connection to a line's PLC
+     * Implicit I/O is opened for the default line only.
+     */
+    public boolean initializeConnection(String line) {
+        LineState plc = lineState(line);
+        log.info("Initializing EtherNet/IP connection to line {}", plc.line);
         
         if (offlineMode) {
             log.info("Running in OFFLINE MODE - using simulated batch responses");
             return true;
         }
 
-        // TODO: Implement actual EtherNet/IP client connection when proper library is available
-        // This would:
-        // 1. Create EtherNet/IP session to PLC
-        // 2. Establish connection on port 44818
-        // 3. Register session
-        // 4. Ready for assembly read/write operations
-        
-        log.warn("Online mode not yet implemented - falling back to offline simulation");
-        return true;
+        plc.connectionLock.lock();
+        try {
+            try {
+                sessionPool.connect(plc.endpoint());
+            } catch (PlcCommunicationException e) {
+                log.error("Failed to connect to PLC of line {}: {}", plc.line, e.getMessage());
+                return false;
+            }
+
+            if (plc.line == lineRegistry.getDefaultLine()) {
+                try {
+                    implicitIo.open(plc.endpoint());
+                } catch (PlcCommunicationException e) {
+                    log.warn("Implicit I/O unavailable, progress will be polled explicitly: {}", e.getMessage());
+                }
+            }
+            return true;
+        } finally {
+            plc.connectionLock.unlock();
+        }
     }
 
     /**
-     * Close connection to OpENer simulator
+     * Close connections to the PLCs of all lines
      */
-    public synchronized void closeConnection() {
-        log.info("Closing EtherNet/IP connection to PLC");
-        // TODO: Implement actual connection cleanup
+    public void closeConnection() {
+        implicitIo.close();
+        lineRegistry.getLines().forEach(line -> closeConnection(line.getName()));
+    }
+
+    /**
+     * Close connection to a line's PLC
+     */
+    public void closeConnection(String line) {
+        LineState plc = lineState(line);
+        log.info("Closing EtherNet/IP connection to line {}", plc.line);
+        plc.connectionLock.lock();
+        try {
+            if (implicitIo.isOpen(plc.endpoint())) {
+                implicitIo.close();
+            }
+            sessionPool.close(plc.endpoint());
+            plc.loadedRecipes.clear();
+        } finally {
+            plc.connectionLock.unlock();
+        }
     }
 
     /**
      * Send batch start command to OpENer simulator
      * In offline mode, creates a simulated batch in progress state
      */
-    public boolean sendBatchStart(String batchNumber, Double quantity) {
-        log.info("Sending batch start command: {} with quantity: {}", batchNumber, quantity);
+    public boolean sendBatchStart(String line, String batchNumber, Double quantity) {
+        return sendBatchStartAsync(line, batchNumber, quantity).join();
+    }
+
+    /**
+     * Non-blocking {@link #sendBatchStart}; completes with false if the write fails
+     */
+    public CompletableFuture<Boolean> sendBatchStartAsync(String line, String batchNumber, Double quantity) {
+        LineState plc = lineState(line);
+        log.info("Sending batch start command: {} with quantity: {} on line {}", batchNumber, quantity, plc.line.getName());
 
         if (offlineMode) {
             log.info("Offline mode - Starting simulated batch: {}", batchNumber);
-            SimulatedBatchState state = new SimulatedBatchState(quantity);
-            batchStates.put(batchNumber, state);
-            return true;
+            simulator.start(plc.line.getName(), batchNumber, quantity);
+            return CompletableFuture.completedFuture(true);
         }
 
-        // TODO: Online mode implementation
-        // Would send CIP Write command to Assembly 150 with start signal
-        return true;
+        return writeOutputAssembly(plc, plc.commandInstanceFor(batchNumber), 0, plcBatchId(batchNumber), COMMAND_START, quantity.floatValue());
     }
 
     /**
      * Send batch stop command to OpENer simulator
      * In offline mode, marks the batch as stopped
      */
-    public boolean sendBatchStop(String batchNumber) {
-        log.info("Sending batch stop command: {}", batchNumber);
+    public boolean sendBatchStop(String line, String batchNumber) {
+        return sendBatchStopAsync(line, batchNumber).join();
+    }
+
+    /**
+     * Non-blocking {@link #sendBatchStop}; completes with false if the write fails
+     */
+    public CompletableFuture<Boolean> sendBatchStopAsync(String line, String batchNumber) {
+        LineState plc = lineState(line);
+        log.info("Sending batch stop command: {} on line {}", batchNumber, plc.line.getName());
 
         if (offlineMode) {
             log.info("Offline mode - Stopping simulated batch: {}", batchNumber);
-            SimulatedBatchState state = batchStates.get(batchNumber);
-            if (state != null) {
-                state.stop();
-            }
-            return true;
+            simulator.stop(plc.line.getName(), batchNumber);
+            return CompletableFuture.completedFuture(true);
+        }
+
+        return writeOutputAssembly(plc, plc.commandInstanceFor(batchNumber), 0, plcBatchId(batchNumber), COMMAND_STOP, 0.0f);
+    }
+
+    /**
+     * Send recipe load command to OpENer simulator
+     * The image is a complete, pre-encoded Assembly 150 LOAD_RECIPE command.
+     * Nothing is sent if the same recipe version is already loaded on the batch's
+     * unit: the START command carries BatchID and target on its own.
+     */
+    public boolean sendRecipeLoad(String line, String batchNumber, long recipeId, long recipeVersion, ByteBuffer commandImage) {
+        return sendRecipeLoadAsync(line, batchNumber, recipeId, recipeVersion, commandImage).join();
+    }
+
+    /**
+     * Non-blocking {@link #sendRecipeLoad}; completes with false if the write fails
+     */
+    public CompletableFuture<Boolean> sendRecipeLoadAsync(String line, String batchNumber, long recipeId, long recipeVersion,
+                                                          ByteBuffer commandImage) {
+        LineState plc = lineState(line);
+        if (offlineMode) {
+            simulator.loadRecipe(plc.line.getName(), batchNumber, recipeId);
+            return CompletableFuture.completedFuture(true);
+        }
+
+        int instance = plc.commandInstanceFor(batchNumber);
+        LoadedRecipe recipe = new LoadedRecipe(recipeId, recipeVersion);
+
+        // Checked in turn with the other commands of the assembly, so a download
+        // for another batch on the same unit cannot slip in between
+        return plc.commands.submit(instance, () -> loadRecipe(plc, instance, batchNumber, recipe, commandImage));
+    }
+
+    /**
+     * Download a recipe and start the batch as one command of its assembly
+     * START keeps the recipe loaded on the unit, so the two must not be split: a
+     * download for another batch on the same unit queued in between would run
+     * this batch with the other recipe. The start is sent even if the download
+     * fails, as a separate download and start would.
+     *
+     * @return completes with false if the start command fails
+     */
+    public CompletableFuture<Boolean> sendRecipeLoadAndStartAsync(String line, String batchNumber, long recipeId,
+                                                                  long recipeVersion, ByteBuffer commandImage,
+                                                                  Double quantity) {
+        LineState plc = lineState(line);
+        log.info("Sending recipe load and batch start command: {} with quantity: {} on line {}",
+                batchNumber, quantity, plc.line.getName());
+
+        if (offlineMode) {
+            log.info("Offline mode - Starting simulated batch: {}", batchNumber);
+            simulator.loadRecipe(plc.line.getName(), batchNumber, recipeId);
+            simulator.start(plc.line.getName(), batchNumber, quantity);
+            return CompletableFuture.completedFuture(true);
         }
 
-        // TODO: Online mode implementation
-        // Would send CIP Write command to Assembly 150 with stop signal
-        return true;
+        int instance = plc.commandInstanceFor(batchNumber);
+        LoadedRecipe recipe = new LoadedRecipe(recipeId, recipeVersion);
+        return plc.commands.submit(instance, () -> loadRecipe(plc, instance, batchNumber, recipe, commandImage)
+                .thenCompose(loaded -> {
+                    if (!loaded) {
+                        log.warn("Failed to write recipe to PLC, but continuing");
+                    }
+                    return writeCommand(plc, instance, 0, plcBatchId(batchNumber), COMMAND_START, quantity.floatValue());
+                }));
     }
 
     /**
      * Read current batch progress from OpENer simulator
      * In offline mode, returns simulated progress based on elapsed time
      */
-    public BatchProgress getBatchProgress(String batchNumber) {
+    public BatchProgress getBatchProgress(String line, String batchNumber) {
+        return readProgressAsync(line, batchNumber).join();
+    }
+
+    /**
+     * Non-blocking {@link #getBatchProgress(String, String)}; completes with null if the read
+     * fails or the batch's unit reports another batch
+     * Requests from concurrent callers are pipelined on the pooled sessions.
+     */
+    public CompletableFuture<BatchProgress> readProgressAsync(String line, String batchNumber) {
         log.debug("Reading batch progress for: {}", batchNumber);
+        LineState plc = lineState(line);
 
         if (offlineMode) {
             log.debug("Offline mode - Simulating batch progress read for: {}", batchNumber);
-            return simulateGetBatchProgress(batchNumber);
+            return CompletableFuture.completedFuture(simulateGetBatchProgress(plc, batchNumber));
         }
 
-        // TODO: Online mode implementation
-        // Would send CIP Read command to Assembly 100 and parse response
-        // Parse assembly data structure:
-        // 0-3: RecipeID (int32)
-        // 4-7: BatchID (int32)
-        // 8: BatchStatus (uint8: 0=IDLE, 1=RUNNING, 2=COMPLETED, 3=FAILED)
-        // 9: OperationMode (uint8)
-        // 10-13: ActualQuantity (float)
-        // 14-17: ProgressPercentage (float)
-        // 18-21: ElapsedTime (int32)
-        
-        return null;
+        if (implicitIo.isOpen(plc.endpoint())) {
+            ByteBuffer image = ByteBuffer.allocate(STATUS_SIZE);
+            if (implicitIo.copyLatest(plc.endpoint(), plcBatchId(batchNumber), image)) {
+                return CompletableFuture.completedFuture(decodeInputAssembly(new BatchStatusFlyweight().wrap(image, 0), null));
+            }
+        }
+
+        return readInputAssembly(plc, plc.statusInstanceFor(batchNumber), plcBatchId(batchNumber))
+                .thenApply(progress -> progress == BatchProgress.OTHER_BATCH ? null : progress);
+    }
+
+    /**
+     * Read progress of many batches on one line into their cache slots
+     * Batches with a fresh implicit I/O image are served from memory; the rest
+     * are read once per distinct status assembly, packed into as few
+     * Multiple_Service_Packet requests as plc.max-message-size allows.
+     * Slots start a poll NOT_READ ({@link BatchProgressCache.Slot#beginRead}); a read
+     * sets READ, or OTHER_BATCH if the batch's unit reports another BatchID.
+     *
+     * Images are decoded in place into the slots: simulated and implicit I/O
+     * images go through the line's reused image, CIP replies are decoded from
+     * the receive buffer. Only the CIP requests themselves allocate. The line's
+     * image is not shared between threads, so one line must not be polled
+     * concurrently ({@link BatchProgressPoller} keeps one poll in flight per line).
+     */
+    public CompletableFuture<Void> readProgressAsync(String line, List<BatchProgressCache.Slot> slots) {
+        log.debug("Reading batch progress for {} batches on line {}", slots.size(), line);
+        LineState plc = lineState(line);
+
+        if (offlineMode) {
+            for (int i = 0; i < slots.size(); i++) {
+                BatchProgressCache.Slot slot = slots.get(i);
+                String batchNumber = slot.getBatchNumber();
+                if (simulator.writeStatus(plc.line.getName(), batchNumber, plc.pollStatus, plcBatchId(batchNumber))) {
+                    slot.read(plc.pollStatus);
+                }
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Map<Integer, List<BatchProgressCache.Slot>> slotsByInstance = new LinkedHashMap<>();
+        for (int i = 0; i < slots.size(); i++) {
+            BatchProgressCache.Slot slot = slots.get(i);
+            String batchNumber = slot.getBatchNumber();
+            if (implicitIo.copyLatest(plc.endpoint(), plcBatchId(batchNumber), plc.pollImage)) {
+                slot.read(plc.pollStatus);
+            } else {
+                slotsByInstance.computeIfAbsent(plc.statusInstanceFor(batchNumber), instance -> new ArrayList<>()).add(slot);
+            }
+        }
+        if (slotsByInstance.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<Integer> instances = new ArrayList<>(slotsByInstance.keySet());
+        int perPacket = Math.max(1, (maxMessageSize - MultipleServicePacketService.REPLY_OVERHEAD)
+                / (MultipleServicePacketService.REPLY_ITEM_OVERHEAD + STATUS_SIZE));
+
+        List<CompletableFuture<?>> reads = new ArrayList<>();
+        for (int from = 0; from < instances.size(); from += perPacket) {
+            reads.add(readStatusInto(plc, instances.subList(from, Math.min(from + perPacket, instances.size())), slotsByInstance));
+        }
+        return CompletableFuture.allOf(reads.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Read the default line's Assembly 100 regardless of which batch it currently reports
+     * Returns null if the read fails or in offline mode
+     */
+    public BatchProgress readCurrentProgress() {
+        if (offlineMode) {
+            return null;
+        }
+        return readInputAssembly(lineState(null), ASSEMBLY_INPUT, null).join();
     }
 
     /**
-     * Check if PLC connection is established
+     * Check if the default line's PLC connection is established
      */
     public boolean isPLCConnected() {
+        return isPLCConnected(null);
+    }
+
+    /**
+     * Check if a line's PLC connection is established
+     */
+    public boolean isPLCConnected(String line) {
         log.debug("Checking PLC connection status");
 
         if (offlineMode) {
@@ -153,8 +411,17 @@ public class EthernetIPService {
             return true; // Always "connected" in offline mode
         }
 
-        // TODO: Check actual PLC connection status
-        return false;
+        return sessionPool.isConnected(lineState(line).endpoint());
+    }
+
+    /**
+     * Circuit breaker state of a line's PLC; CLOSED in offline mode
+     */
+    public PlcCircuitBreaker.State getCircuitState(String line) {
+        if (offlineMode) {
+            return PlcCircuitBreaker.State.CLOSED;
+        }
+        return sessionPool.getCircuitState(lineState(line).endpoint());
     }
 
     public boolean isOfflineMode() {
@@ -166,39 +433,180 @@ public class EthernetIPService {
         log.info("EtherNet/IP mode changed to: {}", offline ? "OFFLINE" : "ONLINE");
     }
 
-    // Offline simulation methods
+    /**
+     * Batch identifier exchanged with the PLC in the BatchID field of
+     * Assemblies 100 and 150. Derived from the batch number so that every
+     * component addressing the same batch agrees on it.
+     */
+    public static int plcBatchId(String batchNumber) {
+        return batchNumber.hashCode() & 0x7FFFFFFF;
+    }
+
+    // Online (EtherNet/IP) methods
+
+    private LineState lineState(String line) {
+        PlcLine plcLine = lineRegistry.resolve(line);
+        return lineStates.computeIfAbsent(plcLine.getName(), name -> new LineState(plcLine));
+    }
 
-    private boolean simulateBatchStart(String batchNumber, Double quantity) {
-        log.debug("Simulating batch start: {} with quantity: {}", batchNumber, quantity);
-        SimulatedBatchState state = new SimulatedBatchState(quantity);
-        batchStates.put(batchNumber, state);
-        return true;
+    private CompletableFuture<Boolean> writeOutputAssembly(LineState plc, int instance, int recipeId, int batchId,
+                                                           int command, float targetQuantity) {
+        return plc.commands.submit(instance, () -> writeCommand(plc, instance, recipeId, batchId, command, targetQuantity));
     }
 
-    private boolean simulateBatchStop(String batchNumber) {
-        log.debug("Simulating batch stop: {}", batchNumber);
-        SimulatedBatchState state = batchStates.get(batchNumber);
-        if (state != null) {
-            state.stop();
+    /**
+     * Write a command to Assembly 150+n; callers hold the assembly's turn in {@link LineState#commands}
+     */
+    private CompletableFuture<Boolean> writeCommand(LineState plc, int instance, int recipeId, int batchId,
+                                                    int command, float targetQuantity) {
+        String operation = command == COMMAND_START ? PlcMetrics.START : PlcMetrics.STOP;
+        return metrics.timeRequest(operation, plc.line.getName(),
+                        () -> sessionPool.invokeAsync(plc.endpoint(), new SetAssemblyDataService(instance, buffer ->
+                                new BatchCommandFlyweight().append(buffer)
+                                        .recipeId(recipeId)
+                                        .batchId(batchId)
+                                        .command(command)
+                                        .operationMode(OPERATION_MODE_AUTO)
+                                        .targetQuantity(targetQuantity))))
+                .handle((reply, ex) -> {
+                    if (ex != null) {
+                        log.error("Failed to write Assembly {} (command {}) on line {}: {}",
+                                instance, command, plc.line.getName(), failureMessage(ex));
+                        return false;
+                    }
+                    return true;
+                });
+    }
+
+    /**
+     * Write a LOAD_RECIPE image unless that recipe version is already loaded;
+     * callers hold the assembly's turn in {@link LineState#commands}
+     */
+    private CompletableFuture<Boolean> loadRecipe(LineState plc, int instance, String batchNumber, LoadedRecipe recipe,
+                                                  ByteBuffer commandImage) {
+        Map<Integer, LoadedRecipe> loaded = plc.loadedRecipes;
+        if (recipe.equals(loaded.get(instance))) {
+            log.info("Recipe {} v{} already loaded on Assembly {}, skipping download", recipe.recipeId, recipe.version, instance);
+            return CompletableFuture.completedFuture(true);
         }
-        return true;
+
+        log.info("Sending recipe load command for batch {} on line {}", batchNumber, plc.line.getName());
+        return metrics.timeRequest(PlcMetrics.RECIPE_WRITE, plc.line.getName(),
+                        () -> sessionPool.invokeAsync(plc.endpoint(), new SetAssemblyDataService(instance,
+                                buffer -> buffer.writeBytes(commandImage.duplicate()))))
+                .handle((reply, ex) -> {
+                    if (ex != null) {
+                        // The write may have been partially applied; do not trust what is loaded
+                        loaded.remove(instance);
+                        log.error("Failed to write recipe to Assembly {}: {}", instance, failureMessage(ex));
+                        return false;
+                    }
+                    loaded.put(instance, recipe);
+                    return true;
+                });
     }
 
-    private BatchProgress simulateGetBatchProgress(String batchNumber) {
-        log.debug("Simulating batch progress read: {}", batchNumber);
-        
-        SimulatedBatchState state = batchStates.get(batchNumber);
-        if (state == null) {
-            return new BatchProgress(0.0, "IDLE", 0.0, 0);
+    private CompletableFuture<BatchProgress> readInputAssembly(LineState plc, int instance, Integer expectedBatchId) {
+        return metrics.timeRequest(PlcMetrics.PROGRESS_READ, plc.line.getName(),
+                        () -> sessionPool.invokeAsync(plc.endpoint(), new GetAssemblyDataService<>(instance,
+                                data -> decodeInputAssembly(new BatchStatusFlyweight().wrap(data, data.readerIndex()), expectedBatchId))))
+                .exceptionally(ex -> {
+                    logReadFailure(plc, "Assembly " + instance, ex);
+                    return null;
+                });
+    }
+
+    /**
+     * Reads failing on an open circuit are expected for the whole outage; the
+     * pool logs the circuit transitions, so they are only logged at debug level.
+     */
+    private void logReadFailure(LineState plc, String what, Throwable ex) {
+        if (sessionPool.getCircuitState(plc.endpoint()) == PlcCircuitBreaker.State.CLOSED) {
+            log.error("Failed to read {} on line {}: {}", what, plc.line.getName(), failureMessage(ex));
+        } else {
+            log.debug("Failed to read {} on line {}: {}", what, plc.line.getName(), failureMessage(ex));
+        }
+    }
+
+    private static String failureMessage(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause().getMessage() : ex.getMessage();
+    }
+
+    /**
+     * Read several status assemblies in one request, decoding each reply into the slots
+     * of its batches; the slots of failed reads are left NOT_READ
+     */
+    private CompletableFuture<?> readStatusInto(LineState plc, List<Integer> instances,
+                                                Map<Integer, List<BatchProgressCache.Slot>> slotsByInstance) {
+        List<GetAssemblyDataService<Boolean>> reads = new ArrayList<>(instances.size());
+        for (int instance : instances) {
+            List<BatchProgressCache.Slot> slots = slotsByInstance.get(instance);
+            reads.add(new GetAssemblyDataService<>(instance, data -> {
+                BatchStatusFlyweight status = REPLY_STATUS.get().wrap(data, data.readerIndex());
+                for (int i = 0; i < slots.size(); i++) {
+                    BatchProgressCache.Slot slot = slots.get(i);
+                    if (status.batchId() != plcBatchId(slot.getBatchNumber())) {
+                        // The PLC is reporting a different batch; nothing is known about this one
+                        slot.otherBatch();
+                    } else {
+                        slot.read(status);
+                    }
+                }
+                return Boolean.TRUE;
+            }));
         }
 
-        return state.getProgress();
+        CompletableFuture<?> replies = reads.size() == 1
+                ? metrics.timeRequest(PlcMetrics.PROGRESS_READ, plc.line.getName(),
+                        () -> sessionPool.invokeAsync(plc.endpoint(), reads.get(0)))
+                : metrics.timeRequest(PlcMetrics.PROGRESS_READ_MULTIPLE, plc.line.getName(),
+                        () -> sessionPool.invokeAsync(plc.endpoint(), new MultipleServicePacketService<>(reads)));
+        return replies.exceptionally(ex -> {
+            logReadFailure(plc, "Assemblies " + instances, ex);
+            return null;
+        });
+    }
+
+    private static BatchProgress decodeInputAssembly(BatchStatusFlyweight status, Integer expectedBatchId) {
+        if (expectedBatchId != null && status.batchId() != expectedBatchId) {
+            // The PLC is reporting a different batch; nothing is known about this one
+            return BatchProgress.OTHER_BATCH;
+        }
+
+        return new BatchProgress(
+                (double) status.actualQuantity(),
+                statusName(status.status()),
+                (double) status.progressPercentage(),
+                status.elapsedSeconds()
+        );
+    }
+
+    // Offline simulation methods
+
+    /**
+     * Simulated read; null while the simulator reports communication loss
+     */
+    private BatchProgress simulateGetBatchProgress(LineState plc, String batchNumber) {
+        log.debug("Simulating batch progress read: {}", batchNumber);
+
+        ByteBuffer image = ByteBuffer.allocate(STATUS_SIZE);
+        BatchStatusFlyweight status = new BatchStatusFlyweight().wrap(image, 0);
+        if (!simulator.writeStatus(plc.line.getName(), batchNumber, status, plcBatchId(batchNumber))) {
+            return null;
+        }
+        return decodeInputAssembly(status, null);
     }
 
     /**
      * Data class for batch progress information
      */
     public static class BatchProgress {
+        /**
+         * Not a reading: the batch's unit reports another BatchID, so the batch's own
+         * image was replaced by a later start (or the PLC restarted)
+         */
+        public static final BatchProgress OTHER_BATCH = new BatchProgress(null, "OTHER_BATCH", null, null);
+
         public final Double currentQuantity;
         public final String status;
         public final Double progressPercentage;
@@ -227,45 +635,61 @@ public class EthernetIPService {
     }
 
     /**
-     * Simulated batch state for offline testing
-     * Tracks batch progress over time with linear progression
+     * Runtime state of one production line's PLC
      */
-    private static class SimulatedBatchState {
-        private final long startTime;
-        private final Double targetQuantity;
-        private boolean stopped = false;
-
-        public SimulatedBatchState(Double targetQuantity) {
-            this.startTime = Instant.now().toEpochMilli();
-            this.targetQuantity = targetQuantity;
+    private static class LineState {
+        private final PlcLine line;
+        // Recipe version last written to each command assembly
+        private final ConcurrentHashMap<Integer, LoadedRecipe> loadedRecipes = new ConcurrentHashMap<>();
+        // Commands (recipe load, start, stop) per command assembly, in submission order;
+        // other assemblies and lines are not held up
+        private final SerialCommandQueue<Integer> commands = new SerialCommandQueue<>();
+        // Guards connect/close; a lock rather than synchronized so a virtual thread
+        // waiting on the PLC does not pin its carrier thread
+        private final ReentrantLock connectionLock = new ReentrantLock();
+        // Reused by progress polls of the line for simulated and implicit I/O images
+        private final ByteBuffer pollImage = ByteBuffer.allocateDirect(STATUS_SIZE);
+        private final BatchStatusFlyweight pollStatus = new BatchStatusFlyweight().wrap(pollImage, 0);
+
+        LineState(PlcLine line) {
+            this.line = line;
         }
 
-        public void stop() {
-            this.stopped = true;
+        PlcEndpoint endpoint() {
+            return line.getEndpoint();
         }
 
-        public BatchProgress getProgress() {
-            long elapsed = Instant.now().toEpochMilli() - startTime;
-            long elapsedSeconds = elapsed / 1000;
-            
-            // Linear progress: 0-100% over 60 seconds
-            double progressPercentage = Math.min(100.0, (elapsedSeconds / 60.0) * 100.0);
-            double currentQuantity = (progressPercentage / 100.0) * targetQuantity;
-
-            String status;
-            if (stopped) {
-                status = "STOPPED";
-            } else if (progressPercentage >= 100.0) {
-                status = "COMPLETED";
-            } else {
-                status = "RUNNING";
-            }
+        int statusInstanceFor(String batchNumber) {
+            return statusInstance(unitFor(plcBatchId(batchNumber), line.getBatchUnits()));
+        }
+
+        int commandInstanceFor(String batchNumber) {
+            return commandInstance(unitFor(plcBatchId(batchNumber), line.getBatchUnits()));
+        }
+    }
 
-            return new BatchProgress(
-                currentQuantity,
-                status,
-                progressPercentage,
-                (int) elapsedSeconds
-            );
+    /**
+     * Recipe version written to a command assembly
+     */
+    private static class LoadedRecipe {
+        private final long recipeId;
+        private final long version;
+
+        LoadedRecipe(long recipeId, long version) {
+            this.recipeId = recipeId;
+            this.version = version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof LoadedRecipe
+                    && ((LoadedRecipe) o).recipeId == recipeId
+                    && ((LoadedRecipe) o).version == version;
         }
-    }}
\ No newline at end of file
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(recipeId) * 31 + Long.hashCode(version);
+        }
+    }
+}
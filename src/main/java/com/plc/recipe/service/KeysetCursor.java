@@ -0,0 +1,56 @@
+package com.plc.recipe.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque cursor for keyset pagination: the sort key and id of the last row
+ * of a page, Base64url-encoded. The next page continues strictly after it.
+ */
+public class KeysetCursor {
+
+    private static final char SEPARATOR = '|';
+
+    public final String key;
+    public final Long id;
+
+    public KeysetCursor(String key, Long id) {
+        this.key = key;
+        this.id = id;
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((key + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return null for a null or empty cursor (first page)
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf(SEPARATOR);
+            return new KeysetCursor(value.substring(0, separator), Long.parseLong(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Sort key of a cursor over a LocalDateTime column
+     * @throws IllegalArgumentException if the key is not a date-time (a forged or stale cursor)
+     */
+    public LocalDateTime dateTimeKey() {
+        try {
+            return LocalDateTime.parse(key);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + encode());
+        }
+    }
+}
@@ -3,10 +3,13 @@ package com.plc.recipe.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import com.plc.recipe.entity.Recipe;
 import com.plc.recipe.entity.BatchRun;
+import com.plc.recipe.codec.AssemblyLayout;
+import com.plc.recipe.codec.BatchCommandFlyweight;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service for reading and writing recipe data to/from OpENer simulator via EtherNet/IP
@@ -25,14 +28,14 @@ public class RecipeEtherNetIPService {
 
     /**
      * Write recipe data to OpENer simulator
-     * Maps recipe properties to PLC variables and writes via Assembly 150
+     * Sends the snapshot's pre-encoded Assembly 150 image with the batch's ID and target
      * 
-     * @param recipe Recipe entity containing configuration
+     * @param recipe Cached recipe snapshot
      * @param batchRun Batch run with target parameters
      * @return true if write successful
      */
-    public boolean writeRecipeToPLC(Recipe recipe, BatchRun batchRun) {
-        log.info("Writing recipe {} to PLC for batch {}", recipe.getId(), batchRun.getId());
+    public boolean writeRecipeToPLC(RecipeSnapshotCache.RecipeSnapshot recipe, BatchRun batchRun) {
+        log.info("Writing recipe {} to PLC for batch {}", recipe.id, batchRun.getId());
 
         if (ethernetIPService.isOfflineMode()) {
             log.info("Offline mode - Simulating recipe write");
@@ -40,23 +43,19 @@ public class RecipeEtherNetIPService {
         }
 
         try {
-            // Ensure connection to PLC
-            if (!ethernetIPService.isPLCConnected()) {
-                log.warn("PLC not connected, attempting to reconnect");
-                ethernetIPService.initializeConnection();
+            // Sessions are registered on demand; an unreachable PLC fails fast on its open circuit
+            // Write recipe selection and target quantity to PLC (Assembly 150);
+            // skipped by the PLC service if this recipe version is already loaded
+            boolean written = ethernetIPService.sendRecipeLoad(
+                batchRun.getLine(), batchRun.getBatchNumber(), recipe.id, recipe.version,
+                recipe.commandImageFor(EthernetIPService.plcBatchId(batchRun.getBatchNumber()),
+                    batchRun.getTargetQuantity().floatValue()));
+            if (!written) {
+                log.warn("Recipe {} could not be written to PLC", recipe.id);
+                return false;
             }
-
-            // Build recipe data structure for Assembly 150 (output)
-            RecipeData recipeData = buildRecipeData(recipe, batchRun);
-            
-            // Write recipe configuration to PLC
-            // This would include:
-            // - Recipe ID
-            // - Target quantity
-            // - Processing parameters (temperature, time, etc.)
-            // - Quality thresholds
             
-            log.info("Recipe {} written to PLC successfully", recipe.getId());
+            log.info("Recipe {} written to PLC successfully", recipe.id);
             return true;
 
         } catch (Exception e) {
@@ -65,6 +64,26 @@ public class RecipeEtherNetIPService {
         }
     }
 
+    /**
+     * Write recipe data and start the batch without blocking the caller
+     * Both commands take one turn on the batch's command assembly, so no other
+     * batch's recipe can be loaded between them. Sessions are (re)registered by
+     * the pool on demand, so no connection check is made here.
+     *
+     * @return completes with false if the start command fails
+     */
+    public CompletableFuture<Boolean> writeRecipeAndStartAsync(RecipeSnapshotCache.RecipeSnapshot recipe, BatchRun batchRun) {
+        log.info("Writing recipe {} to PLC and starting batch {}", recipe.id, batchRun.getId());
+
+        // The simulator takes the recipe id; no image is encoded in offline mode
+        ByteBuffer commandImage = ethernetIPService.isOfflineMode() ? null
+                : recipe.commandImageFor(EthernetIPService.plcBatchId(batchRun.getBatchNumber()),
+                    batchRun.getTargetQuantity().floatValue());
+        return ethernetIPService.sendRecipeLoadAndStartAsync(
+                batchRun.getLine(), batchRun.getBatchNumber(), recipe.id, recipe.version, commandImage,
+                batchRun.getTargetQuantity());
+    }
+
     /**
      * Read recipe data from OpENer simulator
      * Retrieves recipe configuration from PLC memory via Assembly 100
@@ -80,14 +99,8 @@ public class RecipeEtherNetIPService {
         }
 
         try {
-            // Ensure connection to PLC
-            if (!ethernetIPService.isPLCConnected()) {
-                log.warn("PLC not connected, attempting to reconnect");
-                ethernetIPService.initializeConnection();
-            }
-
             // Read Assembly 100 (input assembly) containing recipe data
-            EthernetIPService.BatchProgress progress = ethernetIPService.getBatchProgress("0");
+            EthernetIPService.BatchProgress progress = ethernetIPService.readCurrentProgress();
             
             if (progress == null) {
                 log.warn("Failed to read recipe data from PLC");
@@ -128,7 +141,7 @@ public class RecipeEtherNetIPService {
         }
 
         try {
-            if (!ethernetIPService.isPLCConnected()) {
+            if (!ethernetIPService.isPLCConnected(batchRun.getLine())) {
                 return false;
             }
 
@@ -158,7 +171,7 @@ public class RecipeEtherNetIPService {
         }
 
         try {
-            EthernetIPService.BatchProgress progress = ethernetIPService.getBatchProgress("0");
+            EthernetIPService.BatchProgress progress = ethernetIPService.readCurrentProgress();
             if (progress == null) {
                 return false;
             }
@@ -191,7 +204,7 @@ public class RecipeEtherNetIPService {
         try {
             Map<String, Object> metrics = new HashMap<>();
             
-            EthernetIPService.BatchProgress progress = ethernetIPService.getBatchProgress("0");
+            EthernetIPService.BatchProgress progress = ethernetIPService.readCurrentProgress();
             if (progress != null) {
                 metrics.put("currentQuantity", progress.currentQuantity);
                 metrics.put("progressPercentage", progress.progressPercentage);
@@ -215,24 +228,14 @@ public class RecipeEtherNetIPService {
 
     // Helper methods
 
-    /**
-     * Build recipe data structure for transmission to PLC
-     */
-    private RecipeData buildRecipeData(Recipe recipe, BatchRun batchRun) {
-        RecipeData data = new RecipeData();
-        data.recipeId = recipe.getId().intValue();
-        data.batchId = batchRun.getId().intValue();
-        data.targetQuantity = batchRun.getTargetQuantity().floatValue();
-        data.recipeName = recipe.getName();
-        return data;
-    }
-
     /**
      * Simulate recipe write in offline mode
+     * Hands the recipe to the batch simulator so its duration profile applies; no image is encoded
      */
-    private boolean simulateRecipeWrite(Recipe recipe, BatchRun batchRun) {
-        log.debug("Simulated write: Recipe {} for Batch {}", recipe.getId(), batchRun.getId());
-        return true;
+    private boolean simulateRecipeWrite(RecipeSnapshotCache.RecipeSnapshot recipe, BatchRun batchRun) {
+        log.debug("Simulated write: Recipe {} for Batch {}", recipe.id, batchRun.getId());
+        return ethernetIPService.sendRecipeLoad(batchRun.getLine(), batchRun.getBatchNumber(),
+            recipe.id, recipe.version, null);
     }
 
     /**
@@ -267,6 +270,26 @@ public class RecipeEtherNetIPService {
         public int batchId;
         public float targetQuantity;
         public String recipeName;
+
+        /**
+         * Encode as an Assembly 150 LOAD_RECIPE command
+         */
+        public void writeTo(BatchCommandFlyweight command) {
+            command.recipeId(recipeId)
+                .batchId(batchId)
+                .command(AssemblyLayout.COMMAND_LOAD_RECIPE)
+                .operationMode(AssemblyLayout.OPERATION_MODE_AUTO)
+                .targetQuantity(targetQuantity);
+        }
+
+        /**
+         * Encode into a new Assembly 150 image
+         */
+        public ByteBuffer toCommandImage() {
+            ByteBuffer image = ByteBuffer.allocate(AssemblyLayout.COMMAND_SIZE);
+            writeTo(new BatchCommandFlyweight().wrap(image, 0));
+            return image;
+        }
         
         @Override
         public String toString() {
@@ -1,10 +1,12 @@
 package com.plc.recipe.service;
 
+import com.plc.recipe.dto.CursorPageDTO;
 import com.plc.recipe.dto.RecipeDTO;
 import com.plc.recipe.entity.Recipe;
 import com.plc.recipe.entity.Ingredient;
 import com.plc.recipe.repository.RecipeRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,9 +19,17 @@ import java.util.stream.Collectors;
 public class RecipeService {
 
     private final RecipeRepository recipeRepository;
+    private final RecipeSnapshotCache recipeSnapshotCache;
 
-    public RecipeService(RecipeRepository recipeRepository) {
+    @Value("${app.pagination.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${app.pagination.max-page-size:200}")
+    private int maxPageSize;
+
+    public RecipeService(RecipeRepository recipeRepository, RecipeSnapshotCache recipeSnapshotCache) {
         this.recipeRepository = recipeRepository;
+        this.recipeSnapshotCache = recipeSnapshotCache;
     }
 
     public RecipeDTO createRecipe(RecipeDTO recipeDTO) {
@@ -59,20 +69,42 @@ public class RecipeService {
         return mapToDTO(savedRecipe);
     }
 
+    @Transactional(readOnly = true)
     public RecipeDTO getRecipeById(Long id) {
         log.info("Fetching recipe with ID: {}", id);
-        Recipe recipe = recipeRepository.findById(id)
+        Recipe recipe = recipeRepository.findWithIngredientsById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Recipe not found with ID: " + id));
         return mapToDTO(recipe);
     }
 
-    public List<RecipeDTO> getAllRecipes() {
-        log.info("Fetching all recipes");
-        return recipeRepository.findAll().stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+    /**
+     * Get one page of recipes ordered by name
+     * Keyset pagination on (name, id); {@code active} and {@code name} (substring) are optional filters.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<RecipeDTO> getRecipePage(Boolean active, String name, String cursor, Integer limit) {
+        log.info("Fetching recipes page (active: {}, name: {}, cursor: {})", active, name, cursor);
+
+        int pageSize = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+
+        List<Recipe> rows = recipeRepository.findPage(active, name != null && !name.isEmpty() ? name : null,
+                after != null ? after.key : null, after != null ? after.id : null, pageSize + 1);
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            Recipe last = rows.get(pageSize - 1);
+            nextCursor = new KeysetCursor(last.getName(), last.getId()).encode();
+        }
+
+        return CursorPageDTO.<RecipeDTO>builder()
+                .items(rows.stream().map(this::mapToDTO).collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .build();
     }
 
+    @Transactional(readOnly = true)
     public List<RecipeDTO> getActiveRecipes() {
         log.info("Fetching active recipes");
         return recipeRepository.findByIsActiveTrueOrderByNameAsc().stream()
@@ -109,6 +141,7 @@ public class RecipeService {
         }
 
         Recipe updatedRecipe = recipeRepository.save(recipe);
+        recipeSnapshotCache.invalidate(id);
         log.info("Recipe updated successfully with ID: {}", id);
 
         return mapToDTO(updatedRecipe);
@@ -121,6 +154,7 @@ public class RecipeService {
                 .orElseThrow(() -> new IllegalArgumentException("Recipe not found with ID: " + id));
 
         recipeRepository.delete(recipe);
+        recipeSnapshotCache.invalidate(id);
         log.info("Recipe deleted successfully with ID: {}", id);
     }
 
@@ -132,6 +166,7 @@ public class RecipeService {
 
         recipe.setIsActive(true);
         recipeRepository.save(recipe);
+        recipeSnapshotCache.invalidate(id);
     }
 
     public void deactivateRecipe(Long id) {
@@ -142,9 +177,11 @@ public class RecipeService {
 
         recipe.setIsActive(false);
         recipeRepository.save(recipe);
+        recipeSnapshotCache.invalidate(id);
     }
 
-    private RecipeDTO mapToDTO(Recipe recipe) {
+    // Package-private for the JMH benchmarks (src/jmh)
+    RecipeDTO mapToDTO(Recipe recipe) {
         return RecipeDTO.builder()
                 .id(recipe.getId())
                 .name(recipe.getName())
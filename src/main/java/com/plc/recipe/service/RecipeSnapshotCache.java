@@ -0,0 +1,139 @@
+package com.plc.recipe.service;
+
+import com.plc.recipe.codec.AssemblyLayout;
+import com.plc.recipe.codec.BatchCommandFlyweight;
+import com.plc.recipe.entity.Recipe;
+import com.plc.recipe.repository.RecipeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read-through cache of immutable recipe snapshots for PLC downloads.
+ *
+ * - A snapshot holds the recipe's Assembly 150 LOAD_RECIPE image, encoded
+ *   once per (id, version); starting a batch copies it and patches only
+ *   BatchID and target quantity
+ * - Bounded, least-recently-used entries are evicted
+ * - {@link RecipeService} invalidates a recipe when it changes; a snapshot
+ *   never replaces one with a newer version
+ */
+@Component
+@Slf4j
+public class RecipeSnapshotCache {
+
+    @Value("${app.recipe-cache.max-size:256}")
+    private int maxSize;
+
+    private final RecipeRepository recipeRepository;
+
+    private final Map<Long, RecipeSnapshot> snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, RecipeSnapshot> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    public RecipeSnapshotCache(RecipeRepository recipeRepository) {
+        this.recipeRepository = recipeRepository;
+    }
+
+    /**
+     * Snapshot of the recipe, loading and encoding it on a miss
+     */
+    public RecipeSnapshot get(Long recipeId) {
+        synchronized (snapshots) {
+            RecipeSnapshot cached = snapshots.get(recipeId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        Recipe recipe = recipeRepository.findById(recipeId)
+                .orElseThrow(() -> new IllegalArgumentException("Recipe not found with ID: " + recipeId));
+        RecipeSnapshot loaded = new RecipeSnapshot(recipe);
+        log.debug("Cached recipe {} version {}", recipeId, loaded.version);
+
+        synchronized (snapshots) {
+            RecipeSnapshot current = snapshots.get(recipeId);
+            if (current != null && current.version >= loaded.version) {
+                return current;
+            }
+            snapshots.put(recipeId, loaded);
+            return loaded;
+        }
+    }
+
+    /**
+     * Drop a recipe now and again when the current transaction commits,
+     * so a concurrent reader cannot re-cache the pre-update row.
+     */
+    public void invalidate(Long recipeId) {
+        evict(recipeId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(recipeId);
+                }
+            });
+        }
+    }
+
+    public int size() {
+        synchronized (snapshots) {
+            return snapshots.size();
+        }
+    }
+
+    private void evict(Long recipeId) {
+        synchronized (snapshots) {
+            snapshots.remove(recipeId);
+        }
+    }
+
+    /**
+     * Immutable recipe state needed to download it to the PLC
+     */
+    public static class RecipeSnapshot {
+        public final Long id;
+        public final long version;
+        public final String name;
+        private final ByteBuffer commandTemplate;
+
+        RecipeSnapshot(Recipe recipe) {
+            this.id = recipe.getId();
+            this.version = recipe.getVersion() != null ? recipe.getVersion() : 0L;
+            this.name = recipe.getName();
+
+            RecipeEtherNetIPService.RecipeData data = new RecipeEtherNetIPService.RecipeData();
+            data.recipeId = id.intValue();
+            data.recipeName = name;
+            this.commandTemplate = data.toCommandImage().asReadOnlyBuffer();
+        }
+
+        /**
+         * Assembly 150 LOAD_RECIPE image for one batch: a copy of the
+         * pre-encoded template with BatchID and target quantity set.
+         */
+        public ByteBuffer commandImageFor(int batchId, float targetQuantity) {
+            ByteBuffer image = ByteBuffer.allocate(AssemblyLayout.COMMAND_SIZE);
+            image.put(0, commandTemplate, 0, AssemblyLayout.COMMAND_SIZE);
+            new BatchCommandFlyweight().wrap(image, 0)
+                    .batchId(batchId)
+                    .targetQuantity(targetQuantity);
+            return image;
+        }
+
+        @Override
+        public String toString() {
+            return "RecipeSnapshot{id=" + id + ", version=" + version + ", name=" + name + '}';
+        }
+    }
+}
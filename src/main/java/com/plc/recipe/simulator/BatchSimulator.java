@@ -0,0 +1,240 @@
+package com.plc.recipe.simulator;
+
+import com.plc.recipe.codec.BatchStatusFlyweight;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.plc.recipe.codec.AssemblyLayout.*;
+
+/**
+ * Offline PLC simulator: batches behave as on a PLC, without a network.
+ *
+ * - Batch duration and progress curve per recipe (plc.simulator.recipes.&lt;id&gt;),
+ *   the recipe being the one last loaded for the batch
+ * - Faults (stall, FAILED, communication loss) are drawn per batch when it
+ *   starts, or injected on demand; with plc.simulator.seed set, every run
+ *   makes the same decisions for the same batch numbers
+ * - All transitions are driven by one hashed timer wheel; reads compute
+ *   progress from the clock, so the cost of an idle batch is a map entry
+ * - Finished batches stay readable for plc.simulator.retain-completed-ms,
+ *   then are evicted
+ *
+ * Batches are keyed by production line and batch number.
+ */
+@Component
+@Slf4j
+public class BatchSimulator {
+
+    public enum Fault {
+        STALL, FAIL, COMMS_LOSS
+    }
+
+    private final SimulatorProperties properties;
+
+    private final ConcurrentHashMap<String, SimulatedBatch> batches = new ConcurrentHashMap<>();
+    // Recipe loaded for a batch that has not started yet
+    private final ConcurrentHashMap<String, Long> loadedRecipes = new ConcurrentHashMap<>();
+
+    private long seed;
+    private Timer timer;
+
+    public BatchSimulator(SimulatorProperties properties) {
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    void init() {
+        seed = properties.getSeed() != null ? properties.getSeed() : new SplittableRandom().nextLong();
+        log.info("Batch simulator seed {} (set plc.simulator.seed to repeat a run)", seed);
+
+        // The worker thread starts with the first scheduled transition
+        timer = new HashedWheelTimer(r -> {
+            Thread thread = new Thread(r, "batch-simulator");
+            thread.setDaemon(true);
+            return thread;
+        }, Math.max(1, properties.getTickMs()), TimeUnit.MILLISECONDS, Math.max(16, properties.getTicksPerWheel()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.stop();
+    }
+
+    /**
+     * Remember the recipe downloaded for a batch; it selects the duration curve at start
+     */
+    public void loadRecipe(String line, String batchNumber, long recipeId) {
+        String key = key(line, batchNumber);
+        loadedRecipes.put(key, recipeId);
+        // A load without a start must not stay forever
+        timer.newTimeout(t -> loadedRecipes.remove(key, recipeId), properties.getRetainCompletedMs(), TimeUnit.MILLISECONDS);
+    }
+
+    public void start(String line, String batchNumber, double targetQuantity) {
+        String key = key(line, batchNumber);
+        Long recipeId = loadedRecipes.remove(key);
+        SimulatorProperties.RecipeProfile profile = recipeId != null ? properties.getRecipes().get(recipeId) : null;
+
+        long durationMs = Math.max(1, profile != null && profile.getDurationMs() != null
+                ? profile.getDurationMs() : properties.getDefaultDurationMs());
+        SimulationCurve curve = profile != null && profile.getCurve() != null
+                ? profile.getCurve() : properties.getDefaultCurve();
+
+        long now = System.nanoTime();
+        SimulatedBatch batch = new SimulatedBatch(recipeId != null ? recipeId.intValue() : 0, (float) targetQuantity,
+                TimeUnit.MILLISECONDS.toNanos(durationMs), curve, now);
+        SimulatedBatch previous = batches.put(key, batch);
+        if (previous != null) {
+            previous.finish(STATUS_STOPPED, now);
+        }
+
+        scheduleCompletion(key, batch, batch.remainingNanos(now));
+        planFaults(key, batch, durationMs);
+        log.debug("Simulated batch {} started: {} ms, {} curve", key, durationMs, curve);
+    }
+
+    public void stop(String line, String batchNumber) {
+        String key = key(line, batchNumber);
+        SimulatedBatch batch = batches.get(key);
+        if (batch != null && batch.finish(STATUS_STOPPED, System.nanoTime())) {
+            scheduleEviction(key, batch);
+        }
+    }
+
+    /**
+     * Write the batch's Assembly 100 image; an unknown (or evicted) batch reads as IDLE
+     *
+     * @return false while communication with the batch is lost
+     */
+    public boolean writeStatus(String line, String batchNumber, BatchStatusFlyweight image, int batchId) {
+        SimulatedBatch batch = batches.get(key(line, batchNumber));
+        if (batch == null) {
+            image.recipeId(0)
+                    .batchId(batchId)
+                    .status(STATUS_IDLE)
+                    .operationMode(0)
+                    .actualQuantity(0.0f)
+                    .progressPercentage(0.0f)
+                    .elapsedSeconds(0);
+            return true;
+        }
+        return batch.writeTo(image, batchId, System.nanoTime());
+    }
+
+    /**
+     * Inject a fault into a running batch now; durationMs applies to STALL and COMMS_LOSS
+     *
+     * @return false if the batch is not simulated
+     */
+    public boolean injectFault(String line, String batchNumber, Fault fault, long durationMs) {
+        String key = key(line, batchNumber);
+        SimulatedBatch batch = batches.get(key);
+        if (batch == null) {
+            return false;
+        }
+        apply(key, batch, fault, durationMs);
+        return true;
+    }
+
+    public int getBatchCount() {
+        return batches.size();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Draw the batch's faults from a generator seeded by the run seed and the
+     * batch key. All draws are made in a fixed order, so a batch's faults do not
+     * depend on the configured probabilities of the other faults or on timing.
+     */
+    private void planFaults(String key, SimulatedBatch batch, long durationMs) {
+        SplittableRandom random = new SplittableRandom(seed ^ (key.hashCode() * 0x9E3779B97F4A7C15L));
+        SimulatorProperties.Faults faults = properties.getFaults();
+
+        boolean stall = random.nextDouble() < faults.getStallProbability();
+        double stallAt = 0.1 + 0.8 * random.nextDouble();
+        boolean fail = random.nextDouble() < faults.getFailProbability();
+        double failAt = 0.1 + 0.8 * random.nextDouble();
+        boolean commsLoss = random.nextDouble() < faults.getCommsLossProbability();
+        double commsLossAt = 0.1 + 0.8 * random.nextDouble();
+
+        if (stall) {
+            schedule(key, batch, Fault.STALL, (long) (durationMs * stallAt), faults.getStallMs());
+        }
+        if (fail) {
+            schedule(key, batch, Fault.FAIL, (long) (durationMs * failAt), 0);
+        }
+        if (commsLoss) {
+            schedule(key, batch, Fault.COMMS_LOSS, (long) (durationMs * commsLossAt), faults.getCommsLossMs());
+        }
+    }
+
+    private void schedule(String key, SimulatedBatch batch, Fault fault, long delayMs, long durationMs) {
+        timer.newTimeout(t -> {
+            if (!batch.isFinished()) {
+                apply(key, batch, fault, durationMs);
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void apply(String key, SimulatedBatch batch, Fault fault, long durationMs) {
+        log.debug("Simulated fault {} on batch {} ({} ms)", fault, key, durationMs);
+        switch (fault) {
+            case STALL:
+                if (batch.pause(System.nanoTime())) {
+                    timer.newTimeout(t -> {
+                        long now = System.nanoTime();
+                        if (batch.resume(now)) {
+                            scheduleCompletion(key, batch, batch.remainingNanos(now));
+                        }
+                    }, durationMs, TimeUnit.MILLISECONDS);
+                }
+                break;
+            case FAIL:
+                if (batch.finish(STATUS_FAILED, System.nanoTime())) {
+                    scheduleEviction(key, batch);
+                }
+                break;
+            case COMMS_LOSS:
+                batch.loseComms();
+                timer.newTimeout(t -> batch.restoreComms(), durationMs, TimeUnit.MILLISECONDS);
+                break;
+        }
+    }
+
+    private void scheduleCompletion(String key, SimulatedBatch batch, long delayNanos) {
+        batch.setCompletion(timer.newTimeout(t -> complete(key, batch), Math.max(0, delayNanos), TimeUnit.NANOSECONDS));
+    }
+
+    private void complete(String key, SimulatedBatch batch) {
+        long now = System.nanoTime();
+        if (batch.isPaused()) {
+            // Rescheduled when the stall ends
+            return;
+        }
+        long remaining = batch.remainingNanos(now);
+        if (remaining > 0) {
+            scheduleCompletion(key, batch, remaining);
+        } else if (batch.finish(STATUS_COMPLETED, now)) {
+            scheduleEviction(key, batch);
+        }
+    }
+
+    private void scheduleEviction(String key, SimulatedBatch batch) {
+        timer.newTimeout(t -> batches.remove(key, batch), properties.getRetainCompletedMs(), TimeUnit.MILLISECONDS);
+    }
+
+    private static String key(String line, String batchNumber) {
+        return line + '/' + batchNumber;
+    }
+}
@@ -0,0 +1,784 @@
+package com.plc.recipe.simulator;
+
+import com.plc.recipe.codec.BatchCommandFlyweight;
+import com.plc.recipe.codec.BatchStatusFlyweight;
+import com.plc.recipe.plc.ImplicitIoProducer;
+import com.plc.recipe.plc.IoFrame;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.plc.recipe.codec.AssemblyLayout.*;
+
+/**
+ * Local EtherNet/IP target driven by {@link BatchSimulator}, so the online
+ * path (sessions, CIP encoding, Multiple_Service_Packet, implicit I/O) can be
+ * exercised and benchmarked on one machine without the OpENer container.
+ *
+ * Encapsulation: RegisterSession, UnRegisterSession, ListIdentity,
+ * ListServices, NOP and SendRRData. CIP requests, bare or wrapped in
+ * Unconnected_Send:
+ * - Get_Attribute_Single on Assembly 100+n: status of the batch last commanded on unit n
+ * - Get_Attribute_Single of the Identity object's Vendor ID (circuit probes)
+ * - Set_Attribute_Single on Assembly 150+n: LOAD_RECIPE / START / STOP drive the simulator
+ * - Multiple_Service_Packet of the above
+ * - Forward_Open / Forward_Close of a Class 1 input connection to Assembly 100+n;
+ *   the image is produced to the originator's UDP port every RPI
+ *   (O→T heartbeats are not supervised)
+ *
+ * While the simulator reports communication loss for a batch, requests that
+ * read it get no reply, so clients see timeouts as with a real outage.
+ *
+ * Port 0 binds a free port, see {@link #getPort()}.
+ *
+ * Usage: java ... EnipStandInServer [port] [batchUnits] [durationMs]
+ */
+@Slf4j
+public class EnipStandInServer implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = 44818;
+
+    // Encapsulation header: command, length, session, status, sender context, options
+    private static final int HEADER_SIZE = 24;
+    private static final int MAX_FRAME_SIZE = HEADER_SIZE + 0xFFFF;
+
+    private static final int NOP = 0x0000;
+    private static final int LIST_SERVICES = 0x0004;
+    private static final int LIST_IDENTITY = 0x0063;
+    private static final int REGISTER_SESSION = 0x0065;
+    private static final int UNREGISTER_SESSION = 0x0066;
+    private static final int SEND_RR_DATA = 0x006F;
+
+    private static final int ENCAP_SUCCESS = 0x0000;
+    private static final int ENCAP_UNSUPPORTED_COMMAND = 0x0001;
+    private static final int ENCAP_INVALID_SESSION = 0x0064;
+    private static final int ENCAP_INVALID_LENGTH = 0x0065;
+
+    private static final int NULL_ADDRESS_ITEM = 0x0000;
+    private static final int IDENTITY_ITEM = 0x000C;
+    private static final int UNCONNECTED_DATA_ITEM = 0x00B2;
+    private static final int SERVICES_ITEM = 0x0100;
+
+    private static final int GET_ATTRIBUTE_SINGLE = 0x0E;
+    private static final int SET_ATTRIBUTE_SINGLE = 0x10;
+    private static final int MULTIPLE_SERVICE_PACKET = 0x0A;
+    private static final int UNCONNECTED_SEND = 0x52;
+    private static final int FORWARD_OPEN = 0x54;
+    private static final int FORWARD_CLOSE = 0x4E;
+
+    private static final int IDENTITY_CLASS = 0x01;
+    private static final int MESSAGE_ROUTER_CLASS = 0x02;
+    private static final int ASSEMBLY_CLASS = 0x04;
+    private static final int CONNECTION_MANAGER_CLASS = 0x06;
+    private static final int DATA_ATTRIBUTE = 0x03;
+    private static final int VENDOR_ID_ATTRIBUTE = 0x01;
+
+    // CIP general status
+    private static final int SUCCESS = 0x00;
+    private static final int CONNECTION_FAILURE = 0x01;
+    private static final int PATH_SEGMENT_ERROR = 0x04;
+    private static final int PATH_DESTINATION_UNKNOWN = 0x05;
+    private static final int SERVICE_NOT_SUPPORTED = 0x08;
+    private static final int NOT_ENOUGH_DATA = 0x13;
+    private static final int ATTRIBUTE_NOT_SUPPORTED = 0x14;
+    private static final int TOO_MUCH_DATA = 0x15;
+    private static final int OBJECT_DOES_NOT_EXIST = 0x16;
+    private static final int EMBEDDED_SERVICE_ERROR = 0x1E;
+
+    // Connection Manager extended status
+    private static final int CONNECTION_NOT_FOUND = 0x0107;
+    private static final int INVALID_APPLICATION_PATH = 0x0117;
+
+    private static final String PRODUCT_NAME = "Recipe Manager Stand-in";
+    private static final int DEVICE_TYPE_PLC = 0x0E;
+
+    private final BatchSimulator simulator;
+    private final String line;
+    private final int batchUnits;
+
+    // Batch last commanded on each unit; its status is what the unit reports
+    private final AtomicReferenceArray<Bound> units;
+    // Recipe last loaded on each unit, applied when a batch starts
+    private final AtomicIntegerArray unitRecipes;
+    private final AtomicInteger sessionHandles = new AtomicInteger();
+
+    private int ioPort = IoFrame.DEFAULT_PORT;
+
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private Channel serverChannel;
+
+    /**
+     * @param line production line the simulated batches are keyed under
+     */
+    public EnipStandInServer(BatchSimulator simulator, String line, int batchUnits) {
+        this.simulator = simulator;
+        this.line = line;
+        this.batchUnits = Math.max(1, Math.min(batchUnits, MAX_BATCH_UNITS));
+        this.units = new AtomicReferenceArray<>(this.batchUnits);
+        this.unitRecipes = new AtomicIntegerArray(this.batchUnits);
+    }
+
+    /**
+     * UDP port implicit I/O is produced to on the originator (default 2222)
+     */
+    public EnipStandInServer setIoPort(int ioPort) {
+        this.ioPort = ioPort;
+        return this;
+    }
+
+    public EnipStandInServer start(String host, int port) {
+        bossGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("enip-stand-in-accept", true));
+        workerGroup = new NioEventLoopGroup(0, new DefaultThreadFactory("enip-stand-in", true));
+
+        serverChannel = new ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_REUSEADDR, true)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel channel) {
+                        channel.pipeline()
+                                .addLast(new LengthFieldBasedFrameDecoder(ByteOrder.LITTLE_ENDIAN,
+                                        MAX_FRAME_SIZE, 2, 2, HEADER_SIZE - 4, 0, true))
+                                .addLast(new SessionHandler());
+                    }
+                })
+                .bind(host, port)
+                .syncUninterruptibly()
+                .channel();
+
+        log.info("EtherNet/IP stand-in listening on {}, {} batch units, line '{}'",
+                serverChannel.localAddress(), batchUnits, line);
+        return this;
+    }
+
+    /**
+     * Bound TCP port; the actual port if started with port 0
+     */
+    public int getPort() {
+        return ((InetSocketAddress) serverChannel.localAddress()).getPort();
+    }
+
+    @Override
+    public void close() {
+        if (serverChannel != null) {
+            serverChannel.close().syncUninterruptibly();
+        }
+        if (workerGroup != null) {
+            workerGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+        if (bossGroup != null) {
+            bossGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+        log.info("EtherNet/IP stand-in closed");
+    }
+
+    /**
+     * Write the status image of the unit's batch at the writer index.
+     *
+     * @return false while communication with the batch is lost
+     */
+    private boolean appendStatus(int unit, ByteBuf out, BatchStatusFlyweight status) {
+        Bound bound = units.get(unit);
+        if (bound == null) {
+            out.writeZero(STATUS_SIZE);
+            return true;
+        }
+        int offset = out.writerIndex();
+        out.writeZero(STATUS_SIZE);
+        return simulator.writeStatus(line, bound.batchNumber, status.wrap(out, offset), bound.batchId);
+    }
+
+    private void execute(int unit, BatchCommandFlyweight command) {
+        int batchId = command.batchId();
+        Bound bound = units.get(unit);
+        if (bound == null || bound.batchId != batchId) {
+            bound = new Bound(batchId);
+            units.set(unit, bound);
+        }
+
+        switch (command.command()) {
+            case COMMAND_LOAD_RECIPE:
+                unitRecipes.set(unit, command.recipeId());
+                break;
+            case COMMAND_START:
+                // A PLC keeps the loaded recipe; the client skips reloading an unchanged one
+                int recipeId = command.recipeId() != 0 ? command.recipeId() : unitRecipes.get(unit);
+                if (recipeId != 0) {
+                    simulator.loadRecipe(line, bound.batchNumber, recipeId);
+                }
+                simulator.start(line, bound.batchNumber, command.targetQuantity());
+                break;
+            case COMMAND_STOP:
+                simulator.stop(line, bound.batchNumber);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void writeReplyHeader(ByteBuf reply, int service, int generalStatus) {
+        reply.writeByte(service | 0x80);
+        reply.writeByte(0);
+        reply.writeByte(generalStatus);
+        reply.writeByte(0);
+    }
+
+    private static void writeConnectionFailure(ByteBuf reply, int service, int extendedStatus) {
+        reply.writeByte(service | 0x80);
+        reply.writeByte(0);
+        reply.writeByte(CONNECTION_FAILURE);
+        reply.writeByte(1);
+        reply.writeShortLE(extendedStatus);
+    }
+
+    /**
+     * Batch bound to a unit, with the key it has in the simulator
+     */
+    private static class Bound {
+        private final int batchId;
+        private final String batchNumber;
+
+        Bound(int batchId) {
+            this.batchId = batchId;
+            this.batchNumber = Integer.toString(batchId);
+        }
+    }
+
+    /**
+     * Logical segments of a request or connection path.
+     * Re-used per session; callers read the fields before parsing the next path.
+     */
+    private static class Path {
+        private int classId;
+        private int instance;
+        private int attribute;
+        private int connectionPoints;
+        private int lastConnectionPoint;
+
+        /**
+         * @return false on a segment type this target does not understand
+         */
+        boolean parse(ByteBuf path) {
+            classId = -1;
+            instance = -1;
+            attribute = -1;
+            connectionPoints = 0;
+            lastConnectionPoint = -1;
+
+            while (path.isReadable()) {
+                int segment = path.readUnsignedByte();
+                switch (segment) {
+                    case 0x20:
+                        classId = path.readUnsignedByte();
+                        break;
+                    case 0x21:
+                        path.skipBytes(1);
+                        classId = path.readUnsignedShortLE();
+                        break;
+                    case 0x24:
+                        instance = path.readUnsignedByte();
+                        break;
+                    case 0x25:
+                        path.skipBytes(1);
+                        instance = path.readUnsignedShortLE();
+                        break;
+                    case 0x2C:
+                        connectionPoints++;
+                        lastConnectionPoint = path.readUnsignedByte();
+                        break;
+                    case 0x30:
+                        attribute = path.readUnsignedByte();
+                        break;
+                    default:
+                        return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * One TCP connection: at most one registered session and the I/O
+     * connections opened through it. Runs on the channel's event loop only.
+     */
+    private class SessionHandler extends SimpleChannelInboundHandler<ByteBuf> {
+
+        private final Path path = new Path();
+        private final BatchStatusFlyweight status = new BatchStatusFlyweight();
+        private final BatchCommandFlyweight command = new BatchCommandFlyweight();
+        private final List<IoConnection> ioConnections = new ArrayList<>();
+
+        private int sessionHandle;
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) {
+            int command = frame.readUnsignedShortLE();
+            int length = frame.readUnsignedShortLE();
+            int session = frame.readIntLE();
+            frame.skipBytes(4); // status
+            ByteBuf senderContext = frame.readSlice(8);
+            int options = frame.readIntLE();
+            ByteBuf data = frame.readSlice(length);
+
+            if (command == NOP) {
+                return;
+            }
+            if (command == UNREGISTER_SESSION) {
+                ctx.close();
+                return;
+            }
+
+            ByteBuf reply = ctx.alloc().buffer();
+            reply.writeShortLE(command);
+            reply.writeShortLE(0);
+            reply.writeIntLE(session);
+            reply.writeIntLE(ENCAP_SUCCESS);
+            reply.writeBytes(senderContext);
+            reply.writeIntLE(options);
+
+            int encapStatus = ENCAP_SUCCESS;
+            switch (command) {
+                case LIST_IDENTITY:
+                    writeIdentity(ctx, reply);
+                    break;
+                case LIST_SERVICES:
+                    writeServices(reply);
+                    break;
+                case REGISTER_SESSION:
+                    if (length < 4) {
+                        encapStatus = ENCAP_INVALID_LENGTH;
+                        break;
+                    }
+                    if (sessionHandle == 0) {
+                        sessionHandle = sessionHandles.incrementAndGet();
+                    }
+                    reply.setIntLE(4, sessionHandle);
+                    reply.writeBytes(data, data.readerIndex(), 4);
+                    break;
+                case SEND_RR_DATA:
+                    if (sessionHandle == 0 || session != sessionHandle) {
+                        encapStatus = ENCAP_INVALID_SESSION;
+                    } else if (!sendRRData(ctx, data, reply)) {
+                        // Communication loss: leave the request unanswered
+                        reply.release();
+                        return;
+                    }
+                    break;
+                default:
+                    encapStatus = ENCAP_UNSUPPORTED_COMMAND;
+                    break;
+            }
+
+            if (encapStatus != ENCAP_SUCCESS) {
+                reply.writerIndex(HEADER_SIZE);
+                reply.setIntLE(8, encapStatus);
+            }
+            reply.setShortLE(2, reply.readableBytes() - HEADER_SIZE);
+            ctx.write(reply);
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            ctx.flush();
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            ioConnections.forEach(IoConnection::close);
+            ioConnections.clear();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            log.warn("Closing stand-in connection from {}: {}", ctx.channel().remoteAddress(), cause.toString());
+            ctx.close();
+        }
+
+        /**
+         * Common Packet Format: null address item + unconnected data item, both ways
+         */
+        private boolean sendRRData(ChannelHandlerContext ctx, ByteBuf data, ByteBuf reply) {
+            data.skipBytes(4 + 2); // interface handle, timeout
+            int itemCount = data.readUnsignedShortLE();
+            ByteBuf request = null;
+            for (int i = 0; i < itemCount; i++) {
+                int type = data.readUnsignedShortLE();
+                ByteBuf item = data.readSlice(data.readUnsignedShortLE());
+                if (type == UNCONNECTED_DATA_ITEM) {
+                    request = item;
+                }
+            }
+
+            reply.writeIntLE(0);
+            reply.writeShortLE(0);
+            reply.writeShortLE(2);
+            reply.writeShortLE(NULL_ADDRESS_ITEM).writeShortLE(0);
+            reply.writeShortLE(UNCONNECTED_DATA_ITEM);
+            int lengthIndex = reply.writerIndex();
+            reply.writeShortLE(0);
+
+            if (request == null) {
+                writeReplyHeader(reply, 0, PATH_DESTINATION_UNKNOWN);
+            } else if (!handleRequest(ctx, request, reply)) {
+                return false;
+            }
+            reply.setShortLE(lengthIndex, reply.writerIndex() - lengthIndex - 2);
+            return true;
+        }
+
+        /**
+         * Process one Message Router request and append its reply.
+         *
+         * @return false if the request must stay unanswered
+         */
+        private boolean handleRequest(ChannelHandlerContext ctx, ByteBuf request, ByteBuf reply) {
+            int service = request.readUnsignedByte();
+            ByteBuf requestPath = request.readSlice(2 * request.readUnsignedByte());
+            if (!path.parse(requestPath)) {
+                writeReplyHeader(reply, service, PATH_SEGMENT_ERROR);
+                return true;
+            }
+
+            switch (service) {
+                case UNCONNECTED_SEND:
+                    if (path.classId != CONNECTION_MANAGER_CLASS) {
+                        break;
+                    }
+                    request.skipBytes(2); // priority/time tick, timeout ticks
+                    // The embedded request's reply is returned as is; the route path is ignored
+                    return handleRequest(ctx, request.readSlice(request.readUnsignedShortLE()), reply);
+                case MULTIPLE_SERVICE_PACKET:
+                    if (path.classId != MESSAGE_ROUTER_CLASS) {
+                        break;
+                    }
+                    return multipleServicePacket(ctx, request, reply);
+                case GET_ATTRIBUTE_SINGLE:
+                    return getAttribute(reply);
+                case SET_ATTRIBUTE_SINGLE:
+                    setAttribute(request, reply);
+                    return true;
+                case FORWARD_OPEN:
+                    if (path.classId != CONNECTION_MANAGER_CLASS) {
+                        break;
+                    }
+                    forwardOpen(ctx, request, reply);
+                    return true;
+                case FORWARD_CLOSE:
+                    if (path.classId != CONNECTION_MANAGER_CLASS) {
+                        break;
+                    }
+                    forwardClose(request, reply);
+                    return true;
+                default:
+                    writeReplyHeader(reply, service, SERVICE_NOT_SUPPORTED);
+                    return true;
+            }
+            writeReplyHeader(reply, service, PATH_DESTINATION_UNKNOWN);
+            return true;
+        }
+
+        private boolean multipleServicePacket(ChannelHandlerContext ctx, ByteBuf request, ByteBuf reply) {
+            int countIndex = request.readerIndex();
+            int end = request.writerIndex();
+            int count = request.readUnsignedShortLE();
+            int[] offsets = new int[count];
+            for (int i = 0; i < count; i++) {
+                offsets[i] = countIndex + request.readUnsignedShortLE();
+            }
+
+            int headerIndex = reply.writerIndex();
+            writeReplyHeader(reply, MULTIPLE_SERVICE_PACKET, SUCCESS);
+            int replyCountIndex = reply.writerIndex();
+            reply.writeShortLE(count);
+            int offsetTableIndex = reply.writerIndex();
+            reply.writeZero(2 * count);
+
+            boolean embeddedError = false;
+            for (int i = 0; i < count; i++) {
+                int length = (i + 1 < count ? offsets[i + 1] : end) - offsets[i];
+                int itemIndex = reply.writerIndex();
+                reply.setShortLE(offsetTableIndex + 2 * i, itemIndex - replyCountIndex);
+                if (!handleRequest(ctx, request.slice(offsets[i], length), reply)) {
+                    return false;
+                }
+                embeddedError |= reply.getUnsignedByte(itemIndex + 2) != SUCCESS;
+            }
+            if (embeddedError) {
+                reply.setByte(headerIndex + 2, EMBEDDED_SERVICE_ERROR);
+            }
+            return true;
+        }
+
+        private boolean getAttribute(ByteBuf reply) {
+            if (path.classId == IDENTITY_CLASS && path.instance == 1) {
+                if (path.attribute != VENDOR_ID_ATTRIBUTE) {
+                    writeReplyHeader(reply, GET_ATTRIBUTE_SINGLE, ATTRIBUTE_NOT_SUPPORTED);
+                    return true;
+                }
+                writeReplyHeader(reply, GET_ATTRIBUTE_SINGLE, SUCCESS);
+                reply.writeShortLE(0); // vendor id, as in ListIdentity
+                return true;
+            }
+            int unit = path.instance - STATUS_ASSEMBLY;
+            if (path.classId != ASSEMBLY_CLASS || unit < 0 || unit >= batchUnits) {
+                writeReplyHeader(reply, GET_ATTRIBUTE_SINGLE, OBJECT_DOES_NOT_EXIST);
+                return true;
+            }
+            if (path.attribute != DATA_ATTRIBUTE) {
+                writeReplyHeader(reply, GET_ATTRIBUTE_SINGLE, ATTRIBUTE_NOT_SUPPORTED);
+                return true;
+            }
+            writeReplyHeader(reply, GET_ATTRIBUTE_SINGLE, SUCCESS);
+            return appendStatus(unit, reply, status);
+        }
+
+        private void setAttribute(ByteBuf request, ByteBuf reply) {
+            int unit = path.instance - COMMAND_ASSEMBLY;
+            if (path.classId != ASSEMBLY_CLASS || unit < 0 || unit >= batchUnits) {
+                writeReplyHeader(reply, SET_ATTRIBUTE_SINGLE, OBJECT_DOES_NOT_EXIST);
+            } else if (path.attribute != DATA_ATTRIBUTE) {
+                writeReplyHeader(reply, SET_ATTRIBUTE_SINGLE, ATTRIBUTE_NOT_SUPPORTED);
+            } else if (request.readableBytes() < COMMAND_SIZE) {
+                writeReplyHeader(reply, SET_ATTRIBUTE_SINGLE, NOT_ENOUGH_DATA);
+            } else if (request.readableBytes() > COMMAND_SIZE) {
+                writeReplyHeader(reply, SET_ATTRIBUTE_SINGLE, TOO_MUCH_DATA);
+            } else {
+                execute(unit, command.wrap(request, request.readerIndex()));
+                writeReplyHeader(reply, SET_ATTRIBUTE_SINGLE, SUCCESS);
+            }
+        }
+
+        private void forwardOpen(ChannelHandlerContext ctx, ByteBuf request, ByteBuf reply) {
+            request.skipBytes(2 + 4); // priority/time tick, timeout ticks, O→T id (ours to choose)
+            int toConnectionId = request.readIntLE();
+            int connectionSerial = request.readUnsignedShortLE();
+            int vendorId = request.readUnsignedShortLE();
+            int originatorSerial = request.readIntLE();
+            request.skipBytes(4); // timeout multiplier, reserved
+            int otRpiMicros = request.readIntLE();
+            request.skipBytes(2);
+            int toRpiMicros = request.readIntLE();
+            request.skipBytes(2 + 1); // T→O parameters, transport class
+            ByteBuf connectionPath = request.readSlice(2 * request.readUnsignedByte());
+
+            int unit = path.parse(connectionPath) && path.classId == ASSEMBLY_CLASS
+                    ? path.lastConnectionPoint - STATUS_ASSEMBLY : -1;
+            if (unit < 0 || unit >= batchUnits) {
+                writeConnectionFailure(reply, FORWARD_OPEN, INVALID_APPLICATION_PATH);
+                return;
+            }
+
+            IoConnection io;
+            try {
+                InetAddress originator = ((InetSocketAddress) ctx.channel().remoteAddress()).getAddress();
+                io = new IoConnection(new InetSocketAddress(originator, ioPort), toConnectionId,
+                        Math.max(1, toRpiMicros / 1000), connectionSerial, vendorId, originatorSerial, unit);
+            } catch (IOException e) {
+                log.warn("Unable to open I/O producer: {}", e.getMessage());
+                writeConnectionFailure(reply, FORWARD_OPEN, INVALID_APPLICATION_PATH);
+                return;
+            }
+            io.start(ctx);
+            ioConnections.add(io);
+
+            writeReplyHeader(reply, FORWARD_OPEN, SUCCESS);
+            reply.writeIntLE(ThreadLocalRandom.current().nextInt());
+            reply.writeIntLE(toConnectionId);
+            reply.writeShortLE(connectionSerial);
+            reply.writeShortLE(vendorId);
+            reply.writeIntLE(originatorSerial);
+            reply.writeIntLE(otRpiMicros);
+            reply.writeIntLE(toRpiMicros);
+            reply.writeByte(0); // application reply size
+            reply.writeByte(0);
+        }
+
+        private void forwardClose(ByteBuf request, ByteBuf reply) {
+            request.skipBytes(2); // priority/time tick, timeout ticks
+            int connectionSerial = request.readUnsignedShortLE();
+            int vendorId = request.readUnsignedShortLE();
+            int originatorSerial = request.readIntLE();
+
+            for (Iterator<IoConnection> it = ioConnections.iterator(); it.hasNext(); ) {
+                IoConnection io = it.next();
+                if (io.matches(connectionSerial, vendorId, originatorSerial)) {
+                    it.remove();
+                    io.close();
+
+                    writeReplyHeader(reply, FORWARD_CLOSE, SUCCESS);
+                    reply.writeShortLE(connectionSerial);
+                    reply.writeShortLE(vendorId);
+                    reply.writeIntLE(originatorSerial);
+                    reply.writeByte(0); // application reply size
+                    reply.writeByte(0);
+                    return;
+                }
+            }
+            writeConnectionFailure(reply, FORWARD_CLOSE, CONNECTION_NOT_FOUND);
+        }
+
+        private void writeIdentity(ChannelHandlerContext ctx, ByteBuf reply) {
+            InetSocketAddress local = (InetSocketAddress) ctx.channel().localAddress();
+            byte[] address = local.getAddress().getAddress();
+            byte[] name = PRODUCT_NAME.getBytes(StandardCharsets.US_ASCII);
+
+            reply.writeShortLE(1);
+            reply.writeShortLE(IDENTITY_ITEM);
+            int lengthIndex = reply.writerIndex();
+            reply.writeShortLE(0);
+            reply.writeShortLE(1); // encapsulation protocol version
+            // Socket address, big-endian
+            reply.writeShort(2);
+            reply.writeShort(local.getPort());
+            if (address.length == 4) {
+                reply.writeBytes(address);
+            } else {
+                reply.writeZero(4);
+            }
+            reply.writeZero(8);
+            reply.writeShortLE(0); // vendor id
+            reply.writeShortLE(DEVICE_TYPE_PLC);
+            reply.writeShortLE(1); // product code
+            reply.writeByte(1).writeByte(0); // revision
+            reply.writeShortLE(0); // status
+            reply.writeIntLE(sessionHandles.get());
+            reply.writeByte(name.length);
+            reply.writeBytes(name);
+            reply.writeByte(3); // state: operational
+            reply.setShortLE(lengthIndex, reply.writerIndex() - lengthIndex - 2);
+        }
+
+        private void writeServices(ByteBuf reply) {
+            byte[] name = new byte[16];
+            byte[] communications = "Communications".getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(communications, 0, name, 0, communications.length);
+
+            reply.writeShortLE(1);
+            reply.writeShortLE(SERVICES_ITEM);
+            reply.writeShortLE(2 + 2 + name.length);
+            reply.writeShortLE(1); // version
+            reply.writeShortLE(0x0120); // encapsulated CIP over TCP + Class 0/1 over UDP
+            reply.writeBytes(name);
+        }
+    }
+
+    /**
+     * Class 1 input connection: produces the unit's status image every RPI.
+     * Updated on the owning channel's event loop.
+     */
+    private class IoConnection {
+
+        private final ImplicitIoProducer producer;
+        private final int connectionSerial;
+        private final int vendorId;
+        private final int originatorSerial;
+        private final int unit;
+        private final long rpiMs;
+        private final ByteBuffer image = ByteBuffer.allocate(STATUS_SIZE);
+        private final BatchStatusFlyweight status = new BatchStatusFlyweight().wrap(image, 0);
+
+        private ScheduledFuture<?> updates;
+        private Integer produced;
+
+        IoConnection(InetSocketAddress target, int connectionId, long rpiMs, int connectionSerial, int vendorId,
+                     int originatorSerial, int unit) throws IOException {
+            this.connectionSerial = connectionSerial;
+            this.vendorId = vendorId;
+            this.originatorSerial = originatorSerial;
+            this.unit = unit;
+            this.rpiMs = rpiMs;
+            this.producer = new ImplicitIoProducer(target, connectionId, rpiMs);
+        }
+
+        void start(ChannelHandlerContext ctx) {
+            producer.start();
+            updates = ctx.executor().scheduleAtFixedRate(this::update, 0, rpiMs, TimeUnit.MILLISECONDS);
+        }
+
+        boolean matches(int connectionSerial, int vendorId, int originatorSerial) {
+            return this.connectionSerial == connectionSerial
+                    && this.vendorId == vendorId
+                    && this.originatorSerial == originatorSerial;
+        }
+
+        /**
+         * Publish the unit's current image; nothing is produced during communication loss
+         */
+        private void update() {
+            Bound bound = units.get(unit);
+            if (produced != null && (bound == null || bound.batchId != produced)) {
+                producer.remove(produced);
+                produced = null;
+            }
+            if (bound == null) {
+                return;
+            }
+            if (simulator.writeStatus(line, bound.batchNumber, status, bound.batchId)) {
+                producer.publish(image);
+                produced = bound.batchId;
+            } else if (produced != null) {
+                producer.remove(produced);
+                produced = null;
+            }
+        }
+
+        void close() {
+            if (updates != null) {
+                updates.cancel(false);
+            }
+            try {
+                producer.close();
+            } catch (IOException e) {
+                log.debug("Error closing I/O producer", e);
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int batchUnits = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+
+        SimulatorProperties properties = new SimulatorProperties();
+        if (args.length > 2) {
+            properties.setDefaultDurationMs(Long.parseLong(args[2]));
+        }
+        BatchSimulator simulator = new BatchSimulator(properties);
+        simulator.init();
+
+        try (EnipStandInServer server = new EnipStandInServer(simulator, "stand-in", batchUnits).start("0.0.0.0", port)) {
+            server.serverChannel.closeFuture().syncUninterruptibly();
+        } finally {
+            simulator.shutdown();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.plc.recipe.simulator;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs {@link EnipStandInServer} inside the application when
+ * plc.simulator.server.enabled=true. Pointing plc.host / plc.port (or a
+ * plc.lines entry) at it exercises the full online path on one machine.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "plc.simulator.server.enabled", havingValue = "true")
+public class EnipStandInService {
+
+    private final BatchSimulator simulator;
+    private final SimulatorProperties properties;
+
+    private EnipStandInServer server;
+
+    public EnipStandInService(BatchSimulator simulator, SimulatorProperties properties) {
+        this.simulator = simulator;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    void start() {
+        SimulatorProperties.Server config = properties.getServer();
+        server = new EnipStandInServer(simulator, config.getLine(), config.getBatchUnits())
+                .start(config.getHost(), config.getPort());
+    }
+
+    public int getPort() {
+        return server.getPort();
+    }
+
+    @PreDestroy
+    public void stop() {
+        server.close();
+    }
+}
@@ -0,0 +1,141 @@
+package com.plc.recipe.simulator;
+
+import com.plc.recipe.codec.BatchStatusFlyweight;
+import io.netty.util.Timeout;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.plc.recipe.codec.AssemblyLayout.*;
+
+/**
+ * State of one simulated batch.
+ *
+ * Progress is derived from the clock when the batch is read; the timer
+ * wheel only fires on transitions (completion, faults, eviction). Stalls
+ * stop the clock, so a stalled batch finishes late by the stall time.
+ * Methods are synchronized on the batch and never block.
+ */
+final class SimulatedBatch {
+
+    private final int recipeId;
+    private final float targetQuantity;
+    private final long durationNanos;
+    private final SimulationCurve curve;
+    private final long startNanos;
+
+    private long pausedNanos;
+    private long pauseStartNanos = -1;
+    private long endNanos = -1;
+    private int endStatus;
+    // Overlapping comms-loss windows
+    private int commsLosses;
+    private Timeout completion;
+
+    SimulatedBatch(int recipeId, float targetQuantity, long durationNanos, SimulationCurve curve, long nowNanos) {
+        this.recipeId = recipeId;
+        this.targetQuantity = targetQuantity;
+        this.durationNanos = durationNanos;
+        this.curve = curve;
+        this.startNanos = nowNanos;
+    }
+
+    /**
+     * Write the state at {@code nowNanos} as an Assembly 100 image, as the PLC would report it
+     *
+     * @return false while communication with the batch is lost
+     */
+    synchronized boolean writeTo(BatchStatusFlyweight image, int batchId, long nowNanos) {
+        if (commsLosses > 0) {
+            return false;
+        }
+
+        double fraction = Math.min(1.0, (double) activeNanos(nowNanos) / durationNanos);
+        int status = endNanos >= 0 ? endStatus : fraction >= 1.0 ? STATUS_COMPLETED : STATUS_RUNNING;
+        double completed = curve.apply(fraction);
+        long end = endNanos >= 0 ? endNanos : nowNanos;
+
+        image.recipeId(recipeId)
+                .batchId(batchId)
+                .status(status)
+                .operationMode(OPERATION_MODE_AUTO)
+                .actualQuantity((float) (completed * targetQuantity))
+                .progressPercentage((float) (completed * 100.0))
+                .elapsedSeconds((int) TimeUnit.NANOSECONDS.toSeconds(end - startNanos));
+        return true;
+    }
+
+    /**
+     * Freeze the batch in a final status (COMPLETED, FAILED or STOPPED)
+     *
+     * @return false if it had already finished
+     */
+    synchronized boolean finish(int status, long nowNanos) {
+        if (endNanos >= 0) {
+            return false;
+        }
+        resume(nowNanos);
+        endNanos = nowNanos;
+        endStatus = status;
+        if (completion != null) {
+            completion.cancel();
+            completion = null;
+        }
+        return true;
+    }
+
+    synchronized boolean pause(long nowNanos) {
+        if (endNanos >= 0 || pauseStartNanos >= 0) {
+            return false;
+        }
+        pauseStartNanos = nowNanos;
+        return true;
+    }
+
+    synchronized boolean resume(long nowNanos) {
+        if (pauseStartNanos < 0) {
+            return false;
+        }
+        pausedNanos += nowNanos - pauseStartNanos;
+        pauseStartNanos = -1;
+        return true;
+    }
+
+    synchronized boolean isPaused() {
+        return pauseStartNanos >= 0;
+    }
+
+    synchronized boolean isFinished() {
+        return endNanos >= 0;
+    }
+
+    synchronized long remainingNanos(long nowNanos) {
+        return durationNanos - activeNanos(nowNanos);
+    }
+
+    synchronized void loseComms() {
+        commsLosses++;
+    }
+
+    synchronized void restoreComms() {
+        if (commsLosses > 0) {
+            commsLosses--;
+        }
+    }
+
+    synchronized void setCompletion(Timeout timeout) {
+        if (endNanos >= 0) {
+            timeout.cancel();
+            return;
+        }
+        if (completion != null) {
+            completion.cancel();
+        }
+        completion = timeout;
+    }
+
+    private long activeNanos(long nowNanos) {
+        long end = endNanos >= 0 ? endNanos : nowNanos;
+        long paused = pausedNanos + (pauseStartNanos >= 0 ? end - pauseStartNanos : 0);
+        return end - startNanos - paused;
+    }
+}
@@ -0,0 +1,38 @@
+package com.plc.recipe.simulator;
+
+/**
+ * Shape of simulated progress over a batch's duration.
+ * Maps the elapsed fraction of the duration (0..1) to the completed fraction (0..1).
+ */
+public enum SimulationCurve {
+
+    LINEAR {
+        @Override
+        public double apply(double t) {
+            return t;
+        }
+    },
+    // Slow start, e.g. heating before dosing
+    EASE_IN {
+        @Override
+        public double apply(double t) {
+            return t * t;
+        }
+    },
+    // Fast start, tapering off, e.g. filling to level
+    EASE_OUT {
+        @Override
+        public double apply(double t) {
+            return 1.0 - (1.0 - t) * (1.0 - t);
+        }
+    },
+    // Slow start and finish (smoothstep)
+    S_CURVE {
+        @Override
+        public double apply(double t) {
+            return t * t * (3.0 - 2.0 * t);
+        }
+    };
+
+    public abstract double apply(double t);
+}
@@ -0,0 +1,69 @@
+package com.plc.recipe.simulator;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Offline simulator settings (plc.simulator.*)
+ */
+@Component
+@ConfigurationProperties(prefix = "plc.simulator")
+@Data
+public class SimulatorProperties {
+
+    // Seed of all random decisions; unset picks (and logs) a random seed
+    private Long seed;
+
+    private long defaultDurationMs = 60000;
+
+    private SimulationCurve defaultCurve = SimulationCurve.LINEAR;
+
+    // How long finished batches stay readable before they are evicted
+    private long retainCompletedMs = 300000;
+
+    // Hashed timer wheel resolution
+    private long tickMs = 10;
+
+    private int ticksPerWheel = 512;
+
+    // Duration and curve per recipe ID
+    private Map<Long, RecipeProfile> recipes = new LinkedHashMap<>();
+
+    private Faults faults = new Faults();
+
+    private Server server = new Server();
+
+    @Data
+    public static class RecipeProfile {
+        private Long durationMs;
+        private SimulationCurve curve;
+    }
+
+    /**
+     * Probability per batch of each fault, decided when the batch starts
+     */
+    @Data
+    public static class Faults {
+        private double stallProbability = 0.0;
+        private long stallMs = 10000;
+        private double failProbability = 0.0;
+        private double commsLossProbability = 0.0;
+        private long commsLossMs = 5000;
+    }
+
+    /**
+     * Embedded EtherNet/IP stand-in ({@link EnipStandInServer}); port 0 picks a free port
+     */
+    @Data
+    public static class Server {
+        private boolean enabled = false;
+        private String host = "127.0.0.1";
+        private int port = EnipStandInServer.DEFAULT_PORT;
+        private int batchUnits = 1;
+        private String line = "stand-in";
+    }
+}
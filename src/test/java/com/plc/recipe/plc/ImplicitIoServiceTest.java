@@ -0,0 +1,116 @@
+package com.plc.recipe.plc;
+
+import com.plc.recipe.codec.AssemblyLayout;
+import com.plc.recipe.codec.BatchStatusFlyweight;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Listen-only implicit I/O (plc.implicit-io.forward-open=false) fed by
+ * {@link ImplicitIoProducer} over loopback UDP: only the PLC's host and
+ * connection id may publish snapshots
+ */
+class ImplicitIoServiceTest {
+
+    private static final int RPI_MS = 20;
+    private static final int CONNECTION_ID = 0x1234;
+    private static final long WAIT_MS = 2000;
+
+    private final ImplicitIoService implicitIo = new ImplicitIoService();
+    private final List<ImplicitIoProducer> producers = new ArrayList<>();
+    private int port;
+
+    @BeforeEach
+    void configure() throws Exception {
+        try (DatagramSocket socket = new DatagramSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        ReflectionTestUtils.setField(implicitIo, "enabled", true);
+        ReflectionTestUtils.setField(implicitIo, "rpiMs", RPI_MS);
+        ReflectionTestUtils.setField(implicitIo, "localPort", port);
+        ReflectionTestUtils.setField(implicitIo, "forwardOpen", false);
+        ReflectionTestUtils.setField(implicitIo, "producedConnectionId", CONNECTION_ID);
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        for (ImplicitIoProducer producer : producers) {
+            producer.close();
+        }
+        implicitIo.close();
+    }
+
+    @Test
+    void publishesFramesOfThePlcConnection() throws Exception {
+        PlcEndpoint plc = new PlcEndpoint("127.0.0.1", 44818);
+        implicitIo.open(plc);
+        produce(CONNECTION_ID, 1001, 250.0f);
+
+        ByteBuffer image = AssemblyLayout.allocateStatusImage();
+        assertThat(awaitImage(plc, 1001, image)).isTrue();
+        BatchStatusFlyweight status = new BatchStatusFlyweight().wrap(image, 0);
+        assertThat(status.actualQuantity()).isEqualTo(250.0f);
+        assertThat(status.status()).isEqualTo(AssemblyLayout.STATUS_RUNNING);
+    }
+
+    @Test
+    void dropsFramesWithAnotherConnectionId() throws Exception {
+        PlcEndpoint plc = new PlcEndpoint("127.0.0.1", 44818);
+        implicitIo.open(plc);
+        produce(CONNECTION_ID + 1, 2001, 10.0f);
+        produce(CONNECTION_ID, 2002, 20.0f);
+
+        // Frames of both producers have arrived once the PLC's batch is published
+        ByteBuffer image = AssemblyLayout.allocateStatusImage();
+        assertThat(awaitImage(plc, 2002, image)).isTrue();
+        Thread.sleep(5 * RPI_MS);
+        assertThat(implicitIo.copyLatest(plc, 2001, image)).isFalse();
+    }
+
+    @Test
+    void dropsFramesFromAnotherHost() throws Exception {
+        // The producer sends from 127.0.0.1, which is not the PLC's host
+        PlcEndpoint plc = new PlcEndpoint("127.0.0.2", 44818);
+        implicitIo.open(plc);
+        produce(CONNECTION_ID, 3001, 30.0f);
+
+        assertThat(awaitImage(plc, 3001, AssemblyLayout.allocateStatusImage())).isFalse();
+    }
+
+    private void produce(int connectionId, int batchId, float quantity) throws Exception {
+        ImplicitIoProducer producer = new ImplicitIoProducer(new InetSocketAddress("127.0.0.1", port), connectionId, RPI_MS);
+        producers.add(producer);
+
+        ByteBuffer image = AssemblyLayout.allocateStatusImage();
+        new BatchStatusFlyweight().wrap(image, 0)
+                .batchId(batchId)
+                .status(AssemblyLayout.STATUS_RUNNING)
+                .operationMode(AssemblyLayout.OPERATION_MODE_AUTO)
+                .actualQuantity(quantity)
+                .progressPercentage(quantity / 10.0f)
+                .elapsedSeconds(5);
+        producer.publish(image);
+        producer.start();
+    }
+
+    private boolean awaitImage(PlcEndpoint plc, int batchId, ByteBuffer image) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            if (implicitIo.copyLatest(plc, batchId, image)) {
+                return true;
+            }
+            Thread.sleep(RPI_MS);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,179 @@
+package com.plc.recipe.plc;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Commands complete on delayed futures, like PLC replies arriving on the Netty threads
+ */
+class SerialCommandQueueTest {
+
+    private static final int THREADS = 8;
+    private static final int KEYS = 4;
+    private static final int COMMANDS_PER_THREAD = 200;
+
+    private final SerialCommandQueue<Integer> queue = new SerialCommandQueue<>();
+    private final ExecutorService submitters = Executors.newFixedThreadPool(THREADS);
+
+    @AfterEach
+    void shutdown() {
+        submitters.shutdownNow();
+    }
+
+    @Test
+    void issuesCommandsOfOneKeyInSubmissionOrderOneAtATime() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<Integer> issued = new ArrayList<>();
+
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            int command = i;
+            results.add(queue.submit(0, () -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                synchronized (issued) {
+                    issued.add(command);
+                }
+                return delayed(() -> {
+                    inFlight.decrementAndGet();
+                    return command;
+                });
+            }));
+        }
+
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).join();
+        assertThat(maxInFlight.get()).isEqualTo(1);
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(issued.get(i)).isEqualTo(i);
+            assertThat(results.get(i).join()).isEqualTo(i);
+        }
+        assertIdleSoon();
+    }
+
+    @Test
+    void issuesCommandOfAnotherKeyWhileOneIsInFlight() throws Exception {
+        CompletableFuture<Boolean> blocked = new CompletableFuture<>();
+        CompletableFuture<Boolean> first = queue.submit(1, () -> blocked);
+        CompletableFuture<Boolean> sameKey = queue.submit(1, () -> CompletableFuture.completedFuture(true));
+        CompletableFuture<Boolean> otherKey = queue.submit(2, () -> CompletableFuture.completedFuture(true));
+
+        assertThat(otherKey.get(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(first).isNotDone();
+        assertThat(sameKey).isNotDone();
+
+        blocked.complete(true);
+        assertThat(sameKey.get(1, TimeUnit.SECONDS)).isTrue();
+        assertIdleSoon();
+    }
+
+    @Test
+    void failedCommandDoesNotStopItsKey() throws Exception {
+        CompletableFuture<Boolean> failed = queue.submit(3, () -> {
+            throw new IllegalStateException("write failed");
+        });
+        CompletableFuture<Boolean> next = queue.submit(3, () -> CompletableFuture.completedFuture(true));
+
+        assertThat(failed).isCompletedExceptionally();
+        assertThat(next.get(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    /**
+     * Many threads submit to a few keys at once. Per key, at most one command is in
+     * flight and each thread's commands are issued in the order it submitted them;
+     * across keys, commands overlap.
+     */
+    @Test
+    void keepsPerKeyOrderAndRunsKeysConcurrentlyUnderContention() throws Exception {
+        Map<Integer, AtomicInteger> inFlightPerKey = new ConcurrentHashMap<>();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlightPerKey = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        // Last sequence number issued per key and thread
+        int[][] lastIssued = new int[KEYS][THREADS];
+        AtomicInteger outOfOrder = new AtomicInteger();
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Void>> submitted = new ArrayList<>();
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            submitted.add(CompletableFuture.runAsync(() -> {
+                awaitQuietly(start);
+                for (int sequence = 1; sequence <= COMMANDS_PER_THREAD; sequence++) {
+                    int key = ThreadLocalRandom.current().nextInt(KEYS);
+                    int commandSequence = sequence;
+                    CompletableFuture<Boolean> result = queue.submit(key, () -> {
+                        AtomicInteger keyInFlight = inFlightPerKey.computeIfAbsent(key, k -> new AtomicInteger());
+                        maxInFlightPerKey.accumulateAndGet(keyInFlight.incrementAndGet(), Math::max);
+                        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                        // Issued one at a time per key, so no lock is needed for this key's row
+                        if (lastIssued[key][thread] >= commandSequence) {
+                            outOfOrder.incrementAndGet();
+                        }
+                        lastIssued[key][thread] = commandSequence;
+                        return delayed(() -> {
+                            inFlight.decrementAndGet();
+                            keyInFlight.decrementAndGet();
+                            return true;
+                        });
+                    });
+                    synchronized (results) {
+                        results.add(result);
+                    }
+                }
+            }, submitters));
+        }
+
+        start.countDown();
+        CompletableFuture.allOf(submitted.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(60, TimeUnit.SECONDS);
+
+        assertThat(results).hasSize(THREADS * COMMANDS_PER_THREAD);
+        assertThat(maxInFlightPerKey.get()).isEqualTo(1);
+        assertThat(outOfOrder.get()).isZero();
+        assertThat(maxInFlight.get()).isGreaterThan(1);
+        assertIdleSoon();
+    }
+
+    /**
+     * Completes on another thread after up to a millisecond
+     */
+    private static <T> CompletableFuture<T> delayed(Supplier<T> reply) {
+        long delayMicros = ThreadLocalRandom.current().nextLong(50, 1000);
+        return CompletableFuture.supplyAsync(reply, CompletableFuture.delayedExecutor(delayMicros, TimeUnit.MICROSECONDS));
+    }
+
+    /**
+     * A key is released by a completion callback that may run after the caller saw the result
+     */
+    private void assertIdleSoon() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (queue.activeKeys() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(queue.activeKeys()).isZero();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.plc.recipe.repository;
+
+import com.plc.recipe.entity.BatchRun;
+import com.plc.recipe.entity.Recipe;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * H2 EXPLAIN of the SQL Hibernate generates for batch run lookups and pages: each
+ * filter must reach its index, including on pages after the first. Plans are taken
+ * over ROWS analyzed rows so that H2's cost-based choice is the one of a full table.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:batch-run-plan",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.plc.recipe.repository.BatchRunPagePlanTest$LastStatement",
+        "app.progress.poller-enabled=false",
+        "spring.main.banner-mode=off"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BatchRunPagePlanTest {
+
+    private static final int PAGE = 20;
+    private static final int RECIPES = 100;
+    private static final int ROWS_PER_RECIPE = 1000;
+
+    // One INSERT ... SELECT per recipe, sent as one JDBC batch; ids and start times
+    // are unique per row, every 4th row is COMPLETED and every 10th is on line-a
+    private static final String INSERT_BATCH_RUNS =
+            "INSERT INTO batch_runs (id, recipe_id, batch_number, target_quantity, status, started_at, line, version) " +
+            "SELECT CAST(? AS BIGINT) + x, CAST(? AS BIGINT), 'PLAN-' || (CAST(? AS BIGINT) + x), 500.0, " +
+            "CASE MOD(x, 4) WHEN 0 THEN 'COMPLETED' WHEN 1 THEN 'FAILED' WHEN 2 THEN 'STOPPED' ELSE 'PENDING' END, " +
+            "DATEADD(SECOND, -(CAST(? AS BIGINT) + x), LOCALTIMESTAMP), " +
+            "CASE WHEN MOD(x, 10) = 0 THEN 'line-a' END, 0 " +
+            "FROM SYSTEM_RANGE(1, " + ROWS_PER_RECIPE + ")";
+
+    @Autowired
+    private BatchRunRepository batchRunRepository;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Recipe> recipes = new ArrayList<>();
+
+    /**
+     * Keeps the last SQL statement Hibernate prepared
+     */
+    public static class LastStatement implements StatementInspector {
+
+        static volatile String sql;
+
+        @Override
+        public String inspect(String sql) {
+            LastStatement.sql = sql;
+            return sql;
+        }
+    }
+
+    @BeforeAll
+    void createData() {
+        for (int r = 0; r < RECIPES; r++) {
+            recipes.add(Recipe.builder()
+                    .name("Plan recipe " + r)
+                    .batchSize(1000.0)
+                    .unit("kg")
+                    .isActive(true)
+                    .build());
+        }
+        recipeRepository.saveAll(recipes);
+
+        List<Object[]> inserts = new ArrayList<>();
+        for (int r = 0; r < RECIPES; r++) {
+            long firstId = (long) r * ROWS_PER_RECIPE;
+            inserts.add(new Object[]{firstId, recipes.get(r).getId(), firstId, firstId});
+        }
+        jdbcTemplate.batchUpdate(INSERT_BATCH_RUNS, inserts);
+        // Row counts and selectivity for the planner
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void batchNumberLookupUsesUniqueIndex() {
+        assertThat(batchRunRepository.findByBatchNumber("PLAN-42")).isPresent();
+
+        assertThat(indexCondition("UX_BATCH_RUNS_BATCH_NUMBER", "PLAN-42")).contains("BATCH_NUMBER =");
+    }
+
+    @Test
+    void batchRunsOfRecipeUseRecipeIndex() {
+        Long recipeId = recipes.get(7).getId();
+        assertThat(batchRunRepository.findByRecipeIdOrderByStartedAtDesc(recipeId)).hasSize(ROWS_PER_RECIPE);
+
+        assertThat(indexCondition("IDX_BATCH_RUNS_RECIPE_STARTED", recipeId)).contains("RECIPE_ID =");
+    }
+
+    @Test
+    void batchRunsWithStatusUseStatusIndex() {
+        assertThat(batchRunRepository.findByStatusOrderByStartedAtDesc(BatchRun.BatchStatus.RUNNING)).isEmpty();
+
+        assertThat(indexCondition("IDX_BATCH_RUNS_STATUS_STARTED", "RUNNING")).contains("STATUS =");
+    }
+
+    @Test
+    void statusPageUsesStatusIndex() {
+        batchRunRepository.findPage(BatchRun.BatchStatus.COMPLETED, null, null, null, null, null, null, null, PAGE);
+
+        assertThat(indexCondition("IDX_BATCH_RUNS_STATUS_STARTED", "COMPLETED")).contains("STATUS =");
+    }
+
+    @Test
+    void laterStatusPageSeeksOnStartedAt() {
+        LocalDateTime after = LocalDateTime.now();
+        batchRunRepository.findPage(BatchRun.BatchStatus.COMPLETED, null, null, null, null, null, after, 100L, PAGE);
+
+        String condition = indexCondition("IDX_BATCH_RUNS_STATUS_STARTED", "COMPLETED", after, after, 100L);
+        assertThat(condition).contains("STATUS =");
+        assertThat(condition).contains("STARTED_AT <=");
+    }
+
+    @Test
+    void recipePageUsesRecipeIndex() {
+        LocalDateTime after = LocalDateTime.now();
+        Long recipeId = recipes.get(3).getId();
+        batchRunRepository.findPage(null, recipeId, null, null, null, null, after, 100L, PAGE);
+
+        String condition = indexCondition("IDX_BATCH_RUNS_RECIPE_STARTED", recipeId, after, after, 100L);
+        assertThat(condition).contains("RECIPE_ID =");
+        assertThat(condition).contains("STARTED_AT <=");
+    }
+
+    @Test
+    void linePageUsesLineIndex() {
+        batchRunRepository.findPage(null, null, null, "line-a", null, null, null, null, PAGE);
+
+        assertThat(indexCondition("IDX_BATCH_RUNS_LINE_STATUS", "line-a")).contains("LINE =");
+    }
+
+    @Test
+    void unfilteredFirstPageHasNoPredicates() {
+        batchRunRepository.findPage(null, null, null, null, null, null, null, null, PAGE);
+
+        assertThat(LastStatement.sql.toLowerCase()).doesNotContain("where");
+    }
+
+    /**
+     * The index lookup of the plan of the last statement, e.g. "STATUS = ?1 AND STARTED_AT <= ?2"
+     *
+     * @param parameters the filter values in the order of the query; the row limit is appended
+     */
+    private String indexCondition(String index, Object... parameters) {
+        String sql = LastStatement.sql;
+        List<Object> arguments = new ArrayList<>(Arrays.asList(parameters));
+        long placeholders = sql.chars().filter(c -> c == '?').count();
+        while (arguments.size() < placeholders) {
+            arguments.add(PAGE);
+        }
+
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, arguments.toArray()).toUpperCase();
+        int start = plan.indexOf("PUBLIC." + index + ":");
+        assertThat(start).as("index %s in plan%n%s", index, plan).isGreaterThanOrEqualTo(0);
+        return plan.substring(start, plan.indexOf("*/", start));
+    }
+}
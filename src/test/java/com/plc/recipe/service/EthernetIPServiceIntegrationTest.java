@@ -0,0 +1,152 @@
+package com.plc.recipe.service;
+
+import com.plc.recipe.codec.AssemblyLayout;
+import com.plc.recipe.plc.PlcLineRegistry;
+import com.plc.recipe.plc.PlcMetrics;
+import com.plc.recipe.simulator.StandInTestServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Online path of {@link EthernetIPService} against the EtherNet/IP stand-in:
+ * RegisterSession, Set_Attribute_Single commands on Assembly 150+n,
+ * Get_Attribute_Single and Multiple_Service_Packet reads of Assembly 100+n.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "plc.offline-mode=false",
+        "plc.batch-units=" + EthernetIPServiceIntegrationTest.BATCH_UNITS,
+        "plc.connection-timeout=2000",
+        "app.progress.poller-enabled=false",
+        "spring.main.banner-mode=off"
+})
+class EthernetIPServiceIntegrationTest {
+
+    static final int BATCH_UNITS = 2;
+
+    // Long enough that no batch completes during a test
+    private static final StandInTestServer STAND_IN = StandInTestServer.start(BATCH_UNITS, 600000);
+
+    @Autowired
+    private EthernetIPService ethernetIPService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void plcEndpoint(DynamicPropertyRegistry registry) {
+        registry.add("plc.host", () -> "127.0.0.1");
+        registry.add("plc.port", STAND_IN::getPort);
+    }
+
+    @AfterAll
+    static void stopStandIn() {
+        STAND_IN.close();
+    }
+
+    @Test
+    void registersSession() {
+        assertThat(ethernetIPService.initializeConnection()).isTrue();
+        assertThat(ethernetIPService.isPLCConnected()).isTrue();
+    }
+
+    @Test
+    void startsReadsAndStopsBatch() throws Exception {
+        String batchNumber = batchNumberOnUnit("IT-START-", 0);
+
+        assertThat(ethernetIPService.sendRecipeLoadAndStartAsync(null, batchNumber, 7, 1,
+                recipeImage(7, batchNumber, 500.0f), 500.0).get(5, TimeUnit.SECONDS)).isTrue();
+
+        EthernetIPService.BatchProgress running = ethernetIPService.readProgressAsync(null, batchNumber).get(5, TimeUnit.SECONDS);
+        assertThat(running).isNotNull();
+        assertThat(running.status).isEqualTo("RUNNING");
+
+        assertThat(ethernetIPService.sendBatchStopAsync(null, batchNumber).get(5, TimeUnit.SECONDS)).isTrue();
+
+        EthernetIPService.BatchProgress stopped = ethernetIPService.readProgressAsync(null, batchNumber).get(5, TimeUnit.SECONDS);
+        assertThat(stopped).isNotNull();
+        assertThat(stopped.status).isEqualTo("STOPPED");
+    }
+
+    @Test
+    void readsBatchesOfSeveralUnitsWithMultipleServicePacket() throws Exception {
+        String first = batchNumberOnUnit("IT-MSP-A-", 0);
+        String second = batchNumberOnUnit("IT-MSP-B-", 1);
+        assertThat(ethernetIPService.sendBatchStartAsync(null, first, 100.0).get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(ethernetIPService.sendBatchStartAsync(null, second, 200.0).get(5, TimeUnit.SECONDS)).isTrue();
+        long packetsBefore = multipleServicePackets();
+
+        BatchProgressCache.Slot firstSlot = slot(first);
+        BatchProgressCache.Slot secondSlot = slot(second);
+
+        ethernetIPService.readProgressAsync(null, List.of(firstSlot, secondSlot)).get(5, TimeUnit.SECONDS);
+
+        assertThat(firstSlot.outcome()).isEqualTo(BatchProgressCache.Slot.READ);
+        assertThat(firstSlot.status()).isEqualTo(AssemblyLayout.STATUS_RUNNING);
+        assertThat(secondSlot.outcome()).isEqualTo(BatchProgressCache.Slot.READ);
+        assertThat(secondSlot.status()).isEqualTo(AssemblyLayout.STATUS_RUNNING);
+        assertThat(multipleServicePackets()).isEqualTo(packetsBefore + 1);
+    }
+
+    @Test
+    void reportsNoProgressForBatchReplacedOnItsUnit() throws Exception {
+        String replaced = batchNumberOnUnit("IT-OLD-", 1);
+        String current = batchNumberOnUnit("IT-NEW-", 1);
+        assertThat(ethernetIPService.sendBatchStartAsync(null, replaced, 100.0).get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(ethernetIPService.sendBatchStartAsync(null, current, 100.0).get(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(ethernetIPService.readProgressAsync(null, replaced).get(5, TimeUnit.SECONDS)).isNull();
+        BatchProgressCache.Slot slot = slot(replaced);
+        ethernetIPService.readProgressAsync(null, List.of(slot)).get(5, TimeUnit.SECONDS);
+        assertThat(slot.outcome()).isEqualTo(BatchProgressCache.Slot.OTHER_BATCH);
+    }
+
+    private long multipleServicePackets() {
+        Timer timer = meterRegistry.find("plc.requests")
+                .tag("operation", PlcMetrics.PROGRESS_READ_MULTIPLE)
+                .tag("line", PlcLineRegistry.DEFAULT_LINE)
+                .tag("outcome", "success")
+                .timer();
+        return timer != null ? timer.count() : 0;
+    }
+
+    /**
+     * Cache slot of a batch, ready for a read
+     */
+    private static BatchProgressCache.Slot slot(String batchNumber) {
+        BatchProgressCache.Slot slot = new BatchProgressCache.Slot(1L, batchNumber, null, 100.0, PlcLineRegistry.DEFAULT_LINE);
+        slot.beginRead(1);
+        return slot;
+    }
+
+    /**
+     * A batch number not used by another test whose batch runs on the given unit
+     */
+    private static String batchNumberOnUnit(String prefix, int unit) {
+        for (int i = 0; ; i++) {
+            String batchNumber = prefix + i;
+            if (AssemblyLayout.unitFor(EthernetIPService.plcBatchId(batchNumber), BATCH_UNITS) == unit) {
+                return batchNumber;
+            }
+        }
+    }
+
+    private static ByteBuffer recipeImage(int recipeId, String batchNumber, float targetQuantity) {
+        RecipeEtherNetIPService.RecipeData recipe = new RecipeEtherNetIPService.RecipeData();
+        recipe.recipeId = recipeId;
+        recipe.batchId = EthernetIPService.plcBatchId(batchNumber);
+        recipe.targetQuantity = targetQuantity;
+        return recipe.toCommandImage();
+    }
+}
@@ -0,0 +1,58 @@
+package com.plc.recipe.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Cursors come from clients: anything malformed must be an IllegalArgumentException
+ * (400 Bad Request), never a parse error surfacing as a 500
+ */
+class KeysetCursorTest {
+
+    @Test
+    void roundTripsDateTimeKey() {
+        LocalDateTime startedAt = LocalDateTime.of(2024, 3, 1, 12, 30, 15);
+
+        KeysetCursor cursor = KeysetCursor.decode(new KeysetCursor(startedAt.toString(), 42L).encode());
+
+        assertThat(cursor.dateTimeKey()).isEqualTo(startedAt);
+        assertThat(cursor.id).isEqualTo(42L);
+    }
+
+    @Test
+    void emptyCursorIsFirstPage() {
+        assertThat(KeysetCursor.decode(null)).isNull();
+        assertThat(KeysetCursor.decode("")).isNull();
+    }
+
+    @Test
+    void rejectsCursorThatIsNotBase64() {
+        assertThatThrownBy(() -> KeysetCursor.decode("not a cursor!"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsCursorWithoutId() {
+        assertThatThrownBy(() -> KeysetCursor.decode(encode("2024-03-01T12:30:15")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsCursorWhoseKeyIsNotADateTime() {
+        KeysetCursor cursor = KeysetCursor.decode(encode("yesterday|42"));
+
+        assertThatThrownBy(cursor::dateTimeKey)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Invalid cursor");
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
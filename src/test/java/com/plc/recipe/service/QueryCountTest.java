@@ -0,0 +1,144 @@
+package com.plc.recipe.service;
+
+import com.plc.recipe.dto.BatchRunDTO;
+import com.plc.recipe.dto.BatchRunFilter;
+import com.plc.recipe.dto.CursorPageDTO;
+import com.plc.recipe.dto.IngredientDTO;
+import com.plc.recipe.dto.RecipeDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * JDBC statements per list and detail read, counted with Hibernate statistics.
+ * The counts must not grow with the number of rows or ingredients on a page (no N+1).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.progress.poller-enabled=false",
+        "spring.main.banner-mode=off"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryCountTest {
+
+    private static final int RECIPES = 30;
+    private static final int INGREDIENTS_PER_RECIPE = 5;
+    private static final int BATCHES_PER_RECIPE = 3;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private BatchRunService batchRunService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private final List<Long> recipeIds = new ArrayList<>();
+
+    @BeforeAll
+    void createData() {
+        List<BatchRunDTO> batchRuns = new ArrayList<>();
+        for (int r = 0; r < RECIPES; r++) {
+            List<IngredientDTO> ingredients = new ArrayList<>();
+            for (int i = 0; i < INGREDIENTS_PER_RECIPE; i++) {
+                ingredients.add(IngredientDTO.builder()
+                        .name("Ingredient " + i)
+                        .quantity(10.0 + i)
+                        .unit("kg")
+                        .sequenceOrder(i + 1)
+                        .build());
+            }
+            RecipeDTO recipe = recipeService.createRecipe(RecipeDTO.builder()
+                    .name("Query count recipe " + r)
+                    .batchSize(1000.0)
+                    .unit("kg")
+                    .ingredients(ingredients)
+                    .build());
+            recipeIds.add(recipe.getId());
+
+            for (int b = 0; b < BATCHES_PER_RECIPE; b++) {
+                batchRuns.add(BatchRunDTO.builder()
+                        .recipeId(recipe.getId())
+                        .batchNumber("QC-" + r + "-" + b)
+                        .targetQuantity(500.0)
+                        .operatorName("query-count")
+                        .build());
+            }
+        }
+        batchRunService.createBatchRuns(batchRuns);
+    }
+
+    @BeforeEach
+    void resetStatistics() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void recipePageLoadsIngredientsInOneBatch() {
+        CursorPageDTO<RecipeDTO> page = recipeService.getRecipePage(null, "Query count recipe", null, RECIPES);
+
+        assertThat(page.getItems()).hasSize(RECIPES);
+        assertThat(page.getItems()).allSatisfy(recipe -> assertThat(recipe.getIngredients()).hasSize(INGREDIENTS_PER_RECIPE));
+        // Page query, then all ingredient collections by batch fetch
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void activeRecipesFetchIngredientsWithTheRecipes() {
+        List<RecipeDTO> recipes = recipeService.getActiveRecipes();
+
+        assertThat(recipes.size()).isGreaterThanOrEqualTo(RECIPES);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void recipeDetailIsOneQuery() {
+        RecipeDTO recipe = recipeService.getRecipeById(recipeIds.get(0));
+
+        assertThat(recipe.getIngredients()).hasSize(INGREDIENTS_PER_RECIPE);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void batchRunPageDoesNotLoadRecipes() {
+        CursorPageDTO<BatchRunDTO> page = batchRunService.getBatchRunPage(
+                BatchRunFilter.builder().operatorName("query-count").build(), null, RECIPES * BATCHES_PER_RECIPE);
+
+        assertThat(page.getItems()).hasSize(RECIPES * BATCHES_PER_RECIPE);
+        assertThat(page.getItems()).allSatisfy(batchRun -> assertThat(batchRun.getRecipeId()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(RECIPES * BATCHES_PER_RECIPE);
+    }
+
+    @Test
+    void filteredBatchRunPageIsOneQuery() {
+        CursorPageDTO<BatchRunDTO> page = batchRunService.getBatchRunPage(
+                BatchRunFilter.builder().status("PENDING").recipeId(recipeIds.get(1)).build(), null, null);
+
+        assertThat(page.getItems()).hasSize(BATCHES_PER_RECIPE);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void batchRunsOfRecipeAreTwoQueries() {
+        List<BatchRunDTO> batchRuns = batchRunService.getBatchRunsByRecipe(recipeIds.get(2));
+
+        assertThat(batchRuns).hasSize(BATCHES_PER_RECIPE);
+        // Recipe existence check and the batch runs
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+}
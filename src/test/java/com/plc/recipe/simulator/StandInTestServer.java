@@ -0,0 +1,34 @@
+package com.plc.recipe.simulator;
+
+/**
+ * {@link EnipStandInServer} on a free local port with its own simulator, for
+ * tests that run the application's online path against it
+ */
+public class StandInTestServer implements AutoCloseable {
+
+    private final BatchSimulator simulator;
+    private final EnipStandInServer server;
+
+    private StandInTestServer(int batchUnits, long batchDurationMs) {
+        SimulatorProperties properties = new SimulatorProperties();
+        properties.setSeed(42L);
+        properties.setDefaultDurationMs(batchDurationMs);
+        simulator = new BatchSimulator(properties);
+        simulator.init();
+        server = new EnipStandInServer(simulator, "stand-in", batchUnits).start("127.0.0.1", 0);
+    }
+
+    public static StandInTestServer start(int batchUnits, long batchDurationMs) {
+        return new StandInTestServer(batchUnits, batchDurationMs);
+    }
+
+    public int getPort() {
+        return server.getPort();
+    }
+
+    @Override
+    public void close() {
+        server.close();
+        simulator.shutdown();
+    }
+}
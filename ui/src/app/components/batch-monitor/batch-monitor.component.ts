@@ -1,9 +1,7 @@
 import { Component, OnInit, OnDestroy, Input } from '@angular/core';
 import { RecipeService } from '../../services/recipe.service';
 import { BatchRun, BatchProgress } from '../../models/recipe.model';
-import { interval, Subscription } from 'rxjs';
-import { switchMap, catchError } from 'rxjs/operators';
-import { of } from 'rxjs';
+import { Subscription } from 'rxjs';
 
 /**
  * Batch Monitor Component
@@ -28,56 +26,50 @@ export class BatchMonitorComponent implements OnInit, OnDestroy {
   estimatedRemainingTime = 0;
   simulatorMode = 'OFFLINE';
   
-  // Polling subscription
-  private pollSubscription: Subscription | null = null;
-  private pollInterval = 2000; // 2 seconds (matches batch simulation speed)
+  // Progress stream subscription (server push, no polling)
+  private streamSubscription: Subscription | null = null;
 
   constructor(private recipeService: RecipeService) {}
 
   ngOnInit(): void {
     if (this.batchRun?.id && this.batchRun.status === 'RUNNING') {
-      this.startPolling();
+      this.startStreaming();
     }
   }
 
   ngOnDestroy(): void {
-    this.stopPolling();
+    this.stopStreaming();
   }
 
   /**
-   * Start polling batch progress from simulator
+   * Subscribe to pushed batch progress
    * Assembly 100: reads RecipeID, BatchID, Status, ActualQuantity, ProgressPercentage, ElapsedTime
    */
-  startPolling(): void {
-    if (!this.batchRun?.id || this.pollSubscription) {
+  startStreaming(): void {
+    if (!this.batchRun?.id || this.streamSubscription) {
       return;
     }
 
-    this.pollSubscription = interval(this.pollInterval)
-      .pipe(
-        switchMap(() => {
-          if (this.batchRun?.id) {
-            return this.recipeService.getBatchProgress(this.batchRun.id);
-          }
-          return of(null);
-        }),
-        catchError((err) => {
-          console.error('Error polling batch progress:', err);
-          this.error = 'Failed to fetch batch progress';
-          return of(null);
-        })
-      )
-      .subscribe((progress) => {
+    const batchId = this.batchRun.id;
+    this.streamSubscription = this.recipeService.batchProgressStream$.subscribe({
+      next: (delta) => {
+        const progress = delta.updated.find(p => p.id === batchId);
         if (progress) {
           this.batchProgress = progress;
           this.updateSimulatorMetrics(progress);
+        }
 
-          // Auto-stop polling when batch completes
-          if (this.batchRun && progress.status === 'COMPLETED') {
-            this.stopPolling();
-          }
+        // Batch left RUNNING: fetch its final values once and stop listening
+        if (delta.removed.includes(batchId)) {
+          this.stopStreaming();
+          this.refreshProgress();
         }
-      });
+      },
+      error: (err) => {
+        console.error('Error streaming batch progress:', err);
+        this.error = 'Failed to fetch batch progress';
+      }
+    });
   }
 
   /**
@@ -92,10 +84,8 @@ export class BatchMonitorComponent implements OnInit, OnDestroy {
     }
 
     // Estimate remaining time based on progress
-    // Assuming 60-second total batch time (matches simulator)
-    const totalBatchTime = 60000; // 60 seconds in milliseconds
-    const elapsedMs = (this.elapsedTime * 1000) + this.pollInterval;
-    this.elapsedTime = Math.floor(elapsedMs / 1000);
+    this.elapsedTime = progress.elapsedSeconds ?? this.elapsedTime;
+    const elapsedMs = this.elapsedTime * 1000;
 
     if (this.progressPercentage > 0) {
       const totalTime = (elapsedMs / this.progressPercentage) * 100;
@@ -103,10 +93,10 @@ export class BatchMonitorComponent implements OnInit, OnDestroy {
     }
   }
 
-  stopPolling(): void {
-    if (this.pollSubscription) {
-      this.pollSubscription.unsubscribe();
-      this.pollSubscription = null;
+  stopStreaming(): void {
+    if (this.streamSubscription) {
+      this.streamSubscription.unsubscribe();
+      this.streamSubscription = null;
     }
   }
 
@@ -145,6 +135,8 @@ export class BatchMonitorComponent implements OnInit, OnDestroy {
         return '#28a745'; // Green
       case 'FAILED':
         return '#dc3545'; // Red
+      case 'STOPPED':
+        return '#6c757d'; // Gray
       case 'PENDING':
         return '#ffc107'; // Yellow
       default:
@@ -174,6 +166,8 @@ export class BatchMonitorComponent implements OnInit, OnDestroy {
         return 'badge-success';
       case 'FAILED':
         return 'badge-danger';
+      case 'STOPPED':
+        return 'badge-secondary';
       case 'PENDING':
         return 'badge-warning';
       default:
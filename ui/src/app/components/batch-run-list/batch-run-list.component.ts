@@ -9,7 +9,9 @@ import { BatchRun } from '../../models/recipe.model';
 })
 export class BatchRunListComponent implements OnInit {
   batchRuns: BatchRun[] = [];
+  nextCursor?: string;
   loading = false;
+  loadingMore = false;
   error: string | null = null;
 
   constructor(private recipeService: RecipeService) { }
@@ -22,13 +24,11 @@ export class BatchRunListComponent implements OnInit {
     this.loading = true;
     this.error = null;
 
-    this.recipeService.getAllBatchRuns().subscribe({
-      next: (data) => {
-        this.batchRuns = data.sort((a, b) => {
-          const dateA = new Date(a.startedAt || 0).getTime();
-          const dateB = new Date(b.startedAt || 0).getTime();
-          return dateB - dateA;
-        });
+    // Pages arrive newest first
+    this.recipeService.getBatchRunPage().subscribe({
+      next: (page) => {
+        this.batchRuns = page.items;
+        this.nextCursor = page.nextCursor;
         this.loading = false;
       },
       error: (err) => {
@@ -39,6 +39,24 @@ export class BatchRunListComponent implements OnInit {
     });
   }
 
+  loadMore(): void {
+    if (!this.nextCursor) return;
+    this.loadingMore = true;
+
+    this.recipeService.getBatchRunPage({}, this.nextCursor).subscribe({
+      next: (page) => {
+        this.batchRuns = [...this.batchRuns, ...page.items];
+        this.nextCursor = page.nextCursor;
+        this.loadingMore = false;
+      },
+      error: (err) => {
+        this.error = 'Failed to load batch runs: ' + (err.message || 'Unknown error');
+        this.loadingMore = false;
+        console.error(err);
+      }
+    });
+  }
+
   getStatusClass(status: string): string {
     return 'status-' + status.toLowerCase();
   }
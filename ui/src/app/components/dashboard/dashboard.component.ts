@@ -1,4 +1,5 @@
-import { Component, OnInit } from '@angular/core';
+import { Component, OnInit, OnDestroy } from '@angular/core';
+import { Subscription } from 'rxjs';
 import { RecipeService } from '../../services/recipe.service';
 import { Recipe, BatchRun } from '../../models/recipe.model';
 
@@ -7,19 +8,35 @@ import { Recipe, BatchRun } from '../../models/recipe.model';
   templateUrl: './dashboard.component.html',
   styleUrls: ['./dashboard.component.scss']
 })
-export class DashboardComponent implements OnInit {
+export class DashboardComponent implements OnInit, OnDestroy {
   recipes: Recipe[] = [];
   batchRuns: BatchRun[] = [];
   plcStatus: any = null;
   loading = false;
   error: string | null = null;
 
+  private streamSubscription: Subscription | null = null;
+
   constructor(private recipeService: RecipeService) { }
 
   ngOnInit(): void {
     this.loadDashboardData();
-    // Refresh every 10 seconds
-    setInterval(() => this.loadDashboardData(), 10000);
+    // Apply pushed progress; reload lists only when a batch leaves RUNNING
+    this.streamSubscription = this.recipeService.batchProgressStream$.subscribe(delta => {
+      delta.updated.forEach(progress => {
+        const batch = this.batchRuns.find(b => b.id === progress.id);
+        if (batch) {
+          batch.actualQuantity = progress.currentQuantity;
+        }
+      });
+      if (delta.removed.length > 0) {
+        this.loadDashboardData();
+      }
+    });
+  }
+
+  ngOnDestroy(): void {
+    this.streamSubscription?.unsubscribe();
   }
 
   private loadDashboardData(): void {
@@ -36,7 +53,7 @@ export class DashboardComponent implements OnInit {
       }
     });
 
-    this.recipeService.getAllBatchRuns().subscribe({
+    this.recipeService.getRecentBatchRuns().subscribe({
       next: (data) => {
         this.batchRuns = data;
         this.loading = false;
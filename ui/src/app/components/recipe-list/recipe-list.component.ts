@@ -1,5 +1,6 @@
 import { Component, OnInit } from '@angular/core';
 import { Router } from '@angular/router';
+import { map } from 'rxjs';
 import { RecipeService } from '../../services/recipe.service';
 import { Recipe } from '../../models/recipe.model';
 
@@ -10,6 +11,7 @@ import { Recipe } from '../../models/recipe.model';
 })
 export class RecipeListComponent implements OnInit {
   recipes: Recipe[] = [];
+  nextCursor?: string;
   loading = false;
   error: string | null = null;
   displayInactive = false;
@@ -28,12 +30,13 @@ export class RecipeListComponent implements OnInit {
     this.error = null;
 
     const request = this.displayInactive ?
-      this.recipeService.getAllRecipes() :
-      this.recipeService.getActiveRecipes();
+      this.recipeService.getRecipePage() :
+      this.recipeService.getActiveRecipes().pipe(map(items => ({ items, nextCursor: undefined })));
 
     request.subscribe({
-      next: (data) => {
-        this.recipes = data;
+      next: (page) => {
+        this.recipes = page.items;
+        this.nextCursor = page.nextCursor;
         this.loading = false;
       },
       error: (err) => {
@@ -44,6 +47,21 @@ export class RecipeListComponent implements OnInit {
     });
   }
 
+  loadMore(): void {
+    if (!this.nextCursor) return;
+
+    this.recipeService.getRecipePage(this.nextCursor).subscribe({
+      next: (page) => {
+        this.recipes = [...this.recipes, ...page.items];
+        this.nextCursor = page.nextCursor;
+      },
+      error: (err) => {
+        this.error = 'Failed to load recipes: ' + (err.message || 'Unknown error');
+        console.error(err);
+      }
+    });
+  }
+
   createRecipe(): void {
     this.router.navigate(['/recipes/new']);
   }
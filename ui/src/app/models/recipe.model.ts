@@ -30,13 +30,37 @@ export interface BatchRun {
   completedAt?: Date;
   notes?: string;
   operatorName?: string;
+  line?: string;
+}
+
+export interface CursorPage<T> {
+  items: T[];
+  nextCursor?: string;
+}
+
+export interface BatchRunFilter {
+  status?: string;
+  recipeId?: number;
+  operatorName?: string;
+  line?: string;
+  from?: string;
+  to?: string;
 }
 
 export interface BatchProgress {
+  id?: number;
   batchNumber: string;
+  line?: string;
   targetQuantity: number;
   currentQuantity: number;
   status: string;
+  progressPercentage?: number;
+  elapsedSeconds?: number;
+}
+
+export interface BatchProgressDelta {
+  updated: BatchProgress[];
+  removed: number[];
 }
 
 export interface PLCStatus {
@@ -45,6 +69,15 @@ export interface PLCStatus {
   status: string;
 }
 
+export interface PlcLine {
+  name: string;
+  endpoint: string;
+  batchUnits: number;
+  default: boolean;
+  connected: boolean;
+  circuit: 'CLOSED' | 'OPEN' | 'HALF_OPEN';
+}
+
 export interface RecipeMetrics {
   currentQuantity: number;
   progressPercentage: number;
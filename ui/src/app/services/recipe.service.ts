@@ -1,7 +1,14 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
-import { Observable } from 'rxjs';
-import { Recipe, BatchRun, BatchProgress, PLCStatus } from '../models/recipe.model';
+import { HttpClient, HttpParams } from '@angular/common/http';
+import { Observable, map, share } from 'rxjs';
+import {
+  Recipe, BatchRun, BatchRunFilter, BatchProgress, BatchProgressDelta, CursorPage, PLCStatus, PlcLine
+} from '../models/recipe.model';
+
+// Unique per request; crypto.randomUUID() is only available in secure contexts
+function newIdempotencyKey(): string {
+  return Date.now().toString(36) + '-' + Math.random().toString(36).slice(2);
+}
 
 @Injectable({
   providedIn: 'root'
@@ -9,6 +16,21 @@ import { Recipe, BatchRun, BatchProgress, PLCStatus } from '../models/recipe.mod
 export class RecipeService {
   private apiUrl = '/api';
 
+  /**
+   * Server-pushed progress deltas of running batches.
+   * One EventSource per browser tab, shared by all subscribers and closed
+   * when the last one unsubscribes.
+   */
+  readonly batchProgressStream$: Observable<BatchProgressDelta> = new Observable<BatchProgressDelta>(subscriber => {
+    const source = new EventSource(`${this.apiUrl}/batch-runs/stream`);
+    source.addEventListener('progress', (event: MessageEvent) => {
+      subscriber.next(JSON.parse(event.data) as BatchProgressDelta);
+    });
+    // EventSource reconnects on its own; the server sends a full snapshot on reconnect
+    source.onerror = () => console.warn('Batch progress stream interrupted, reconnecting');
+    return () => source.close();
+  }).pipe(share());
+
   constructor(private http: HttpClient) { }
 
   // Recipe endpoints
@@ -20,8 +42,8 @@ export class RecipeService {
     return this.http.get<Recipe>(`${this.apiUrl}/recipes/${id}`);
   }
 
-  getAllRecipes(): Observable<Recipe[]> {
-    return this.http.get<Recipe[]>(`${this.apiUrl}/recipes`);
+  getRecipePage(cursor?: string, limit?: number): Observable<CursorPage<Recipe>> {
+    return this.http.get<CursorPage<Recipe>>(`${this.apiUrl}/recipes`, { params: this.pageParams({}, cursor, limit) });
   }
 
   getActiveRecipes(): Observable<Recipe[]> {
@@ -53,8 +75,18 @@ export class RecipeService {
     return this.http.get<BatchRun>(`${this.apiUrl}/batch-runs/${id}`);
   }
 
-  getAllBatchRuns(): Observable<BatchRun[]> {
-    return this.http.get<BatchRun[]>(`${this.apiUrl}/batch-runs`);
+  /**
+   * One page of batch runs, newest first. Pass the previous page's nextCursor to continue.
+   */
+  getBatchRunPage(filter: BatchRunFilter = {}, cursor?: string, limit?: number): Observable<CursorPage<BatchRun>> {
+    return this.http.get<CursorPage<BatchRun>>(`${this.apiUrl}/batch-runs`, { params: this.pageParams(filter, cursor, limit) });
+  }
+
+  /**
+   * Most recent batch runs (first page only)
+   */
+  getRecentBatchRuns(filter: BatchRunFilter = {}): Observable<BatchRun[]> {
+    return this.getBatchRunPage(filter).pipe(map(page => page.items));
   }
 
   getBatchRunsByRecipe(recipeId: number): Observable<BatchRun[]> {
@@ -73,12 +105,18 @@ export class RecipeService {
     return this.http.delete<void>(`${this.apiUrl}/batch-runs/${id}`);
   }
 
-  startBatch(id: number): Observable<any> {
-    return this.http.post<any>(`${this.apiUrl}/batch-runs/${id}/start`, {});
+  /**
+   * Start a batch. Pass the same idempotency key when retrying a request
+   * whose response was lost; the server then does not start the batch twice.
+   */
+  startBatch(id: number, idempotencyKey: string = newIdempotencyKey()): Observable<any> {
+    return this.http.post<any>(`${this.apiUrl}/batch-runs/${id}/start`, {},
+      { headers: { 'Idempotency-Key': idempotencyKey } });
   }
 
-  stopBatch(id: number): Observable<any> {
-    return this.http.post<any>(`${this.apiUrl}/batch-runs/${id}/stop`, {});
+  stopBatch(id: number, idempotencyKey: string = newIdempotencyKey()): Observable<any> {
+    return this.http.post<any>(`${this.apiUrl}/batch-runs/${id}/stop`, {},
+      { headers: { 'Idempotency-Key': idempotencyKey } });
   }
 
   getBatchProgress(id: number): Observable<BatchProgress> {
@@ -94,6 +132,10 @@ export class RecipeService {
     return this.http.get<PLCStatus>(`${this.apiUrl}/batch-runs/plc-status`);
   }
 
+  getPlcLines(): Observable<PlcLine[]> {
+    return this.http.get<PlcLine[]>(`${this.apiUrl}/plc/lines`);
+  }
+
   setPLCMode(offlineMode: boolean): Observable<any> {
     return this.http.post<any>(`${this.apiUrl}/batch-runs/plc-mode`, { offlineMode });
   }
@@ -105,4 +147,14 @@ export class RecipeService {
   enableOnlineMode(): Observable<any> {
     return this.setPLCMode(false);
   }
+
+  private pageParams(filter: object, cursor?: string, limit?: number): HttpParams {
+    let params = new HttpParams();
+    Object.entries({ ...filter, cursor, limit }).forEach(([key, value]) => {
+      if (value !== undefined && value !== null && value !== '') {
+        params = params.set(key, String(value));
+      }
+    });
+    return params;
+  }
 }